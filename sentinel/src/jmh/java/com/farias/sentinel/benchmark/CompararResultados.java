@@ -0,0 +1,57 @@
+package com.farias.sentinel.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compara dos reportes JSON de JMH (versión base vs. nueva) e imprime la diferencia por benchmark:
+// mvn -Pbenchmark exec:java -Dexec.classpathScope=test \
+//     -Dexec.mainClass=com.farias.sentinel.benchmark.CompararResultados -Dexec.args="base.json nuevo.json"
+public final class CompararResultados {
+
+    private CompararResultados() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: CompararResultados <base.json> <nuevo.json>");
+            System.exit(1);
+        }
+        Map<String, JsonNode> base = leer(args[0]);
+        Map<String, JsonNode> nuevo = leer(args[1]);
+
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Base", "Nuevo", "Cambio");
+        for (Map.Entry<String, JsonNode> entry : nuevo.entrySet()) {
+            JsonNode anterior = base.get(entry.getKey());
+            double valorNuevo = entry.getValue().get("score").asDouble();
+            String unidad = entry.getValue().get("scoreUnit").asText();
+            if (anterior == null) {
+                System.out.printf("%-70s %14s %14.2f %9s  %s%n", entry.getKey(), "-", valorNuevo, "nuevo", unidad);
+                continue;
+            }
+            double valorBase = anterior.get("score").asDouble();
+            // en throughput más es mejor; en tiempo promedio menos es mejor
+            double cambio = (valorNuevo - valorBase) / valorBase * 100;
+            boolean mejor = unidad.startsWith("ops") ? cambio > 0 : cambio < 0;
+            System.out.printf("%-70s %14.2f %14.2f %+8.1f%%  %s%s%n", entry.getKey(), valorBase, valorNuevo, cambio,
+                    unidad, Math.abs(cambio) < 5 ? "" : (mejor ? "  (mejor)" : "  (PEOR)"));
+        }
+    }
+
+    private static Map<String, JsonNode> leer(String archivo) throws IOException {
+        Map<String, JsonNode> resultados = new LinkedHashMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(new File(archivo))) {
+            StringBuilder nombre = new StringBuilder(resultado.get("benchmark").asText()
+                    .replace("com.farias.sentinel.", ""));
+            JsonNode params = resultado.get("params");
+            if (params != null) params.fields().forEachRemaining(p ->
+                    nombre.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            resultados.put(nombre.toString(), resultado.get("primaryMetric"));
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,68 @@
+package com.farias.sentinel.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Statistics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Generadores de Container y Statistics con la misma forma que devuelve la API de Docker.
+// Semilla fija: dos corridas generan exactamente los mismos datos.
+public final class DatosSinteticos {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long MB = 1024 * 1024;
+
+    private DatosSinteticos() {
+    }
+
+    // n contenedores, ~10% exited y la mitad con auto-heal
+    public static List<Container> contenedores(int n) {
+        Random random = new Random(42);
+        List<Container> lista = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Id", String.format("%064x", i + 1L));
+            json.put("Names", List.of("/servicio-" + i));
+            json.put("Image", "nginxdemos/hello:latest");
+            json.put("State", random.nextInt(10) == 0 ? "exited" : "running");
+            json.put("Status", "Up 3 hours");
+            Map<String, String> labels = new LinkedHashMap<>();
+            labels.put("com.docker.compose.project", "bench");
+            labels.put("com.docker.compose.service", "servicio-" + i);
+            if (i % 2 == 0) labels.put("sentinel.auto-heal", "true");
+            json.put("Labels", labels);
+            lista.add(MAPPER.convertValue(json, Container.class));
+        }
+        return lista;
+    }
+
+    // Una muestra de stats con CPU, memoria, red y blkio completos
+    public static Statistics estadisticas(Random random) {
+        long total = 1_000_000_000L + random.nextInt(1_000_000);
+        long sistema = 100_000_000_000L + random.nextInt(1_000_000);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("cpu_stats", cpu(total + random.nextInt(50_000_000), sistema + 1_000_000_000L));
+        json.put("precpu_stats", cpu(total, sistema));
+        json.put("memory_stats", Map.of("usage", (100 + random.nextInt(400)) * MB, "limit", 1024 * MB));
+        json.put("networks", Map.of(
+                "eth0", Map.of("rx_bytes", random.nextInt(1 << 30), "tx_bytes", random.nextInt(1 << 30)),
+                "eth1", Map.of("rx_bytes", random.nextInt(1 << 20), "tx_bytes", random.nextInt(1 << 20))));
+        json.put("blkio_stats", Map.of("io_service_bytes_recursive", List.of(
+                Map.of("major", 8, "minor", 0, "op", "Read", "value", random.nextInt(1 << 30)),
+                Map.of("major", 8, "minor", 0, "op", "Write", "value", random.nextInt(1 << 30)),
+                Map.of("major", 8, "minor", 0, "op", "Total", "value", random.nextInt(1 << 30)))));
+        return MAPPER.convertValue(json, Statistics.class);
+    }
+
+    private static Map<String, Object> cpu(long total, long sistema) {
+        return Map.of("cpu_usage", Map.of("total_usage", total),
+                "system_cpu_usage", sistema,
+                "online_cpus", 4);
+    }
+}
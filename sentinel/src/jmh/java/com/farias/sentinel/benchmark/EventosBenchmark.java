@@ -0,0 +1,76 @@
+package com.farias.sentinel.benchmark;
+
+import com.farias.sentinel.repository.SentinelEventRepository;
+import com.farias.sentinel.service.AnalyticsService;
+import com.farias.sentinel.service.EventQueryService;
+import com.farias.sentinel.service.SentinelEventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Throughput de persistencia de eventos: encolar con registrarEvento y esperar a que el escritor los inserte en H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventosBenchmark {
+
+    private static final int EVENTOS_POR_INVOCACION = 1000;
+
+    private SentinelEventService eventService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("container_event.sql")).execute(dataSource);
+
+        // mismos valores por defecto que application.properties, salvo la política BLOCK: no se descarta nada
+        eventService = new SentinelEventService(jdbcTemplate, Mockito.mock(EventQueryService.class),
+                new AnalyticsService(Mockito.mock(SentinelEventRepository.class), jdbcTemplate),
+                new SimpleMeterRegistry(), 10000, 200, 1000, "BLOCK", 500);
+        eventService.iniciar();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws InterruptedException {
+        eventService.detener();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTOS_POR_INVOCACION)
+    public void registrarYPersistir() {
+        for (int i = 0; i < EVENTOS_POR_INVOCACION; i++) {
+            eventService.registrarEvento("local", "servicio-" + (i & 63), "id-" + i,
+                    (i & 1) == 0 ? "FAILURE" : "RECOVERY", "Intento de recuperación #1 de 3");
+        }
+        // la invocación termina cuando el escritor vació la cola
+        while (eventService.getPendientes() > 0) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.farias.sentinel.benchmark;
+
+import com.farias.sentinel.model.LogPatternMatcher;
+import com.farias.sentinel.model.LogTail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Costo de la cola de logs por frame de 64KB (matcher con los patrones por defecto + copia al buffer circular):
+// MB/s que aguanta un hilo = 65536 / (ns por operación) * 1000
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogTailBenchmark {
+
+    private static final int FRAME = 64 * 1024;
+
+    // cantidad de patrones: el costo por byte no debería depender de esto
+    @Param({"8", "64"})
+    private int patrones;
+
+    private final byte[] frame = new byte[FRAME];
+    private LogTail cola;
+
+    @Setup
+    public void preparar() {
+        List<String> lista = new ArrayList<>(List.of("OutOfMemoryError", "JavaScript heap out of memory",
+                "panic:", "fatal error:", "segmentation fault", "SIGSEGV", "core dumped", "Traceback (most recent call last)"));
+        for (int i = lista.size(); i < patrones; i++) lista.add("error-sintetico-" + i + ":");
+        cola = new LogTail(16384, new LogPatternMatcher(lista));
+
+        // líneas de acceso típicas, sin ninguna coincidencia: es el caso de todos los días
+        Random random = new Random(7);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(FRAME + 256);
+        while (salida.size() < FRAME) {
+            String linea = "2026-01-01T12:00:00.000Z INFO  [http-nio-8080-exec-" + random.nextInt(200) + "] "
+                    + "c.e.api.PedidosController : GET /api/pedidos/" + random.nextInt(100_000)
+                    + " -> 200 en " + random.nextInt(50) + "ms usuario=" + Long.toHexString(random.nextLong()) + "\n";
+            salida.writeBytes(linea.getBytes(StandardCharsets.UTF_8));
+        }
+        System.arraycopy(salida.toByteArray(), 0, frame, 0, FRAME);
+    }
+
+    @Benchmark
+    public int agregarFrame() {
+        return cola.agregar(frame, 0, FRAME);
+    }
+}
@@ -0,0 +1,94 @@
+package com.farias.sentinel.benchmark;
+
+import com.farias.sentinel.config.AlertRulesProperties;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.LeakDetector;
+import com.farias.sentinel.model.TrackedContainer;
+import com.farias.sentinel.service.AlertRuleEngine;
+import com.farias.sentinel.service.MetricsHistoryService;
+import com.farias.sentinel.service.MetricsStore;
+import com.github.dockerjava.api.model.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Costo por muestra de stats: cálculo de métricas, historial, reglas de alerta y tendencia de memoria
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final int MUESTRAS = 1024;
+
+    private final Statistics[] muestras = new Statistics[MUESTRAS];
+    private MetricsStore metricsStore;
+    private MetricsHistoryService historyService;
+    private AlertRuleEngine ruleEngine;
+    private TrackedContainer tracked;
+    private ContainerMetrics metrics;
+    private LeakDetector leakDetector;
+    private int indice;
+    private long reloj;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(7);
+        for (int i = 0; i < MUESTRAS; i++) {
+            muestras[i] = DatosSinteticos.estadisticas(random);
+        }
+        metricsStore = new MetricsStore();
+        historyService = new MetricsHistoryService(600, 1440, 720);
+
+        ruleEngine = new AlertRuleEngine(new AlertRulesProperties());
+        tracked = new TrackedContainer("id", "bench", "bench:id");
+        tracked.setReglas(ruleEngine.compilar(null));
+        metrics = metricsStore.actualizar("bench:id", muestras[0]);
+        leakDetector = new LeakDetector(120);
+        reloj = System.currentTimeMillis();
+    }
+
+    private Statistics siguiente() {
+        return muestras[indice++ & (MUESTRAS - 1)];
+    }
+
+    @Benchmark
+    public ContainerMetrics actualizarMetricas() {
+        return metricsStore.actualizar("bench:id", siguiente());
+    }
+
+    @Benchmark
+    public void registrarHistorial() {
+        metrics.setUltimaMuestra(reloj += 1000);
+        historyService.registrar(metrics);
+    }
+
+    @Benchmark
+    public boolean evaluarReglas() {
+        metrics.setUltimaMuestra(reloj += 1000);
+        return ruleEngine.evaluar(tracked, metrics, (t, e) -> { });
+    }
+
+    @Benchmark
+    public boolean tendenciaMemoria() {
+        reloj += 10_000;
+        return leakDetector.agregar(reloj, 100 * MetricsStore.MB + (reloj & 0xFFFFF), 10_000);
+    }
+
+    @Benchmark
+    public String formatearParaDashboard() {
+        return MetricsStore.formatearCpu(metrics) + MetricsStore.formatearMemoria(metrics);
+    }
+}
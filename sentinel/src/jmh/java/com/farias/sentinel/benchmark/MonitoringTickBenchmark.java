@@ -0,0 +1,126 @@
+package com.farias.sentinel.benchmark;
+
+import com.farias.sentinel.config.AlertRulesProperties;
+import com.farias.sentinel.config.DockerConfig;
+import com.farias.sentinel.config.DockerHostsProperties;
+import com.farias.sentinel.model.TrackedContainer;
+import com.farias.sentinel.service.AlertRuleEngine;
+import com.farias.sentinel.service.ContainerService;
+import com.farias.sentinel.service.DockerHostRegistry;
+import com.farias.sentinel.service.HealthCheckService;
+import com.farias.sentinel.service.LogTailService;
+import com.farias.sentinel.service.MetricsHistoryService;
+import com.farias.sentinel.service.MetricsStore;
+import com.farias.sentinel.service.PredictionService;
+import com.farias.sentinel.service.RecoveryExecutor;
+import com.farias.sentinel.service.SentinelEventService;
+import com.farias.sentinel.service.SlackService;
+import com.farias.sentinel.service.SnapshotService;
+import com.farias.sentinel.service.StatsCollector;
+import com.farias.sentinel.service.StatusFeed;
+import com.farias.sentinel.service.StatusPublisher;
+import com.farias.sentinel.service.StreamPacer;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Un tick completo de monitorearContenedores sobre un host con N contenedores (listado simulado):
+// tabla de estado, labels/políticas, registro en el collector, DTOs y dedup del StatusPublisher.
+// La pasada corre en el pool de hosts; la invocación termina cuando el timer sentinel.monitor.tick la registra.
+// Los contenedores protegidos que están exited quedan bloqueados tras el warmup, así que no se mide el restart.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonitoringTickBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int contenedores;
+
+    private ContainerService containerService;
+    private RecoveryExecutor recoveryExecutor;
+    private Timer pasadas; // sentinel.monitor.tick del host
+
+    @Setup
+    public void preparar() {
+        List<Container> lista = DatosSinteticos.contenedores(contenedores);
+        DockerClient client = Mockito.mock(DockerClient.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(client.listContainersCmd().withShowAll(true).exec()).thenReturn(lista);
+        SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+
+        // modo poll sin iniciar(): los contenedores solo se registran, no se piden muestras
+        StatsCollector statsCollector = new StatsCollector("poll", 8, 64, 10000, 2000, 5000, 0, metricas);
+        MetricsHistoryService historyService = new MetricsHistoryService(600, 1440, 720);
+        recoveryExecutor = new RecoveryExecutor(1, 0, 2000, 60000, metricas);
+
+        MetricsStore metricsStore = new MetricsStore();
+        Random random = new Random(3);
+        for (Container container : lista) {
+            metricsStore.actualizar(TrackedContainer.clave(DockerHostRegistry.HOST_LOCAL, container.getId()),
+                    DatosSinteticos.estadisticas(random));
+        }
+
+        containerService = new ContainerService(
+                new DockerHostRegistry(new DockerConfig(), new DockerHostsProperties(), client),
+                new StatusPublisher(Mockito.mock(SimpMessagingTemplate.class), Mockito.mock(StatusFeed.class)),
+                Mockito.mock(SlackService.class),
+                Mockito.mock(SentinelEventService.class),
+                metricsStore,
+                statsCollector,
+                historyService,
+                recoveryExecutor,
+                new AlertRuleEngine(new AlertRulesProperties()),
+                Mockito.mock(PredictionService.class),
+                Mockito.mock(LogTailService.class),
+                new SnapshotService(Mockito.mock(PredictionService.class), Mockito.mock(LogTailService.class), metricas),
+                new StreamPacer(metricas),
+                new HealthCheckService(WebClient.builder(), metricas),
+                metricas,
+                1);
+
+        // la primera pasada registra el timer del host
+        containerService.monitorearContenedores();
+        while ((pasadas = metricas.find("sentinel.monitor.tick").tag("type", "polling").timer()) == null
+                || pasadas.count() == 0) {
+            Thread.yield();
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        containerService.detener();
+        recoveryExecutor.detener();
+    }
+
+    @Benchmark
+    public void tick() {
+        long anteriores = pasadas.count();
+        containerService.monitorearContenedores();
+        // yield y no spin: con un solo núcleo el hilo del pool de hosts necesita la CPU para terminar la pasada
+        while (pasadas.count() == anteriores) {
+            Thread.yield();
+        }
+    }
+}
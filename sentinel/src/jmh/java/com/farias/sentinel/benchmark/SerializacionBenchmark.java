@@ -0,0 +1,62 @@
+package com.farias.sentinel.benchmark;
+
+import com.farias.sentinel.dto.ContainerBatchDTO;
+import com.farias.sentinel.dto.ContainerStatusDTO;
+import com.farias.sentinel.model.CompactFeedFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Payload del WebSocket: un lote de cambios (/topic/containers/batch) serializado con el mismo Jackson que usa STOMP,
+// contra el mismo lote en el formato compacto de /ws/containers (contenedores ya definidos, solo cambios)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int cambios;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ContainerBatchDTO lote;
+
+    @Setup
+    public void preparar() {
+        List<ContainerStatusDTO> dtos = new ArrayList<>(cambios);
+        for (int i = 0; i < cambios; i++) {
+            dtos.add(new ContainerStatusDTO("servicio-" + i, "running", String.format("%064x", i + 1L), "local",
+                    i % 2 == 0, false, String.format("%.2f%%", i % 100 + 0.37), (100 + i % 400) + "MB",
+                    (i % 100) * 100 + 37, 100 + i % 400));
+        }
+        lote = new ContainerBatchDTO(dtos, List.of("local:" + String.format("%064x", 999_999L)));
+    }
+
+    @Benchmark
+    public byte[] serializarLote() throws Exception {
+        return mapper.writeValueAsBytes(lote);
+    }
+
+    @Benchmark
+    public byte[] serializarLoteCompacto() {
+        List<ContainerStatusDTO> dtos = lote.getCambios();
+        List<byte[]> codificados = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) codificados.add(CompactFeedFormat.cambio(i + 1, dtos.get(i)));
+        return CompactFeedFormat.mensaje(CompactFeedFormat.BATCH, List.of(), codificados, new int[]{cambios + 1});
+    }
+}
@@ -1,6 +1,7 @@
 package com.farias.sentinel;
 
 import com.farias.sentinel.service.ContainerService;
+import com.farias.sentinel.service.DockerEventService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -16,10 +17,16 @@ public class SentinelApplication {
 	}
 
 	@Bean
-	public CommandLineRunner run(ContainerService containerService) {
+	public CommandLineRunner run(ContainerService containerService, DockerEventService dockerEventService) {
 		return args -> {
 			// esto se ejecuta justo despues de que arranca la app
-			containerService.monitorearContenedores();
+			if (containerService.isModoEventos()) {
+				// primero nos suscribimos para no perder eventos y despues cargamos el estado completo
+				dockerEventService.suscribir();
+				containerService.reconciliar();
+			} else {
+				containerService.monitorearContenedores();
+			}
 		};
 	}
 
@@ -0,0 +1,27 @@
+package com.farias.sentinel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reglas de alerta proactiva que se evalúan con cada muestra de stats.
+// Cada contenedor puede pisarlas o sumar reglas nuevas con labels sentinel.alert.<nombre>.<propiedad>
+@Data
+@ConfigurationProperties(prefix = "sentinel.alerts")
+public class AlertRulesProperties {
+
+    private List<Regla> rules = new ArrayList<>();
+
+    @Data
+    public static class Regla {
+        private String name;
+        private String metric = "memory"; // cpu (%), memory (MB), memory-pct (% del límite)
+        private String type = "threshold"; // threshold, rate (por segundo), sustained
+        private double threshold;
+        private long windowSeconds; // sustained: cuánto tiempo tiene que estar por encima
+        private double alpha = 1; // suavizado EWMA, 1 = sin suavizar
+        private long cooldownSeconds = 1800;
+    }
+}
@@ -5,6 +5,8 @@ import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -12,18 +14,46 @@ import org.springframework.web.reactive.function.client.WebClient;
 import java.time.Duration;
 
 @Configuration
+@EnableConfigurationProperties({DockerHostsProperties.class, SlackProperties.class, AlertRulesProperties.class})
 public class DockerConfig {
 
+    // Con sentinel.stats.mode=poll alcanza con unas pocas conexiones (hilos del collector + eventos)
+    @Value("${sentinel.docker.max-connections:100}")
+    private int maxConnections;
+
+    // Conexiones del cliente de streams de cada host: es también el tope de logs seguidos por host
+    @Value("${sentinel.logs.max-streams-per-host:256}")
+    private int maxStreams = 256;
+
     @Bean
     public DockerClient dockerClient() {
+        return crearCliente(null);
+    }
+
+    // Un cliente por daemon: dockerHost null usa DOCKER_HOST o el default de la plataforma
+    public DockerClient crearCliente(String dockerHost) {
+        return crearCliente(dockerHost, maxConnections);
+    }
+
+    public DockerClient crearClienteDeStreams(String dockerHost) {
+        return crearCliente(dockerHost, maxStreams);
+    }
+
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    private DockerClient crearCliente(String dockerHost, int conexiones) {
         // 1. Configuramos la conexión básica (usualmente detecta Docker Desktop solo)
-        DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+        DefaultDockerClientConfig.Builder builder = DefaultDockerClientConfig.createDefaultConfigBuilder();
+        if (dockerHost != null) builder.withDockerHost(dockerHost);
+        DefaultDockerClientConfig config = builder.build();
 
         // 2. Creamos el transporte HTTP
         DockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
                 .dockerHost(config.getDockerHost())
                 .sslConfig(config.getSSLConfig())
-                .maxConnections(100)
+                .maxConnections(conexiones)
                 .connectionTimeout(Duration.ofSeconds(30))
                 .responseTimeout(Duration.ofSeconds(45))
                 .build();
@@ -0,0 +1,21 @@
+package com.farias.sentinel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Daemons de Docker a supervisar. Si la lista está vacía se usa solo el daemon local (DOCKER_HOST o el default)
+@Data
+@ConfigurationProperties(prefix = "sentinel.docker")
+public class DockerHostsProperties {
+
+    private List<Host> hosts = new ArrayList<>();
+
+    @Data
+    public static class Host {
+        private String name;
+        private String url; // unix:///var/run/docker.sock o tcp://10.0.0.5:2375
+    }
+}
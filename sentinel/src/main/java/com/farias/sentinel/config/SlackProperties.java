@@ -0,0 +1,30 @@
+package com.farias.sentinel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Pipeline de notificaciones a Slack: agrupado, rate limit, reintentos y outbox
+@Data
+@ConfigurationProperties(prefix = "sentinel.slack")
+public class SlackProperties {
+
+    private String webhook;
+
+    // ventana en la que las alertas se juntan en un solo mensaje
+    private long coalesceMs = 2000;
+    private int queueCapacity = 1000;
+    private int maxMessageChars = 3500;
+
+    // Slack acepta ~1 mensaje por segundo por webhook
+    private double ratePerSecond = 1;
+    private int rateBurst = 3;
+
+    private int maxRetries = 3;
+    private long backoffBaseMs = 1000;
+    private long backoffMaxMs = 30000;
+    private long timeoutMs = 10000;
+
+    // los mensajes que agotaron los reintentos quedan en la tabla slack_outbox
+    private long outboxRetryMs = 60000;
+    private int outboxMax = 500;
+}
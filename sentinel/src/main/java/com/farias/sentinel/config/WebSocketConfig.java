@@ -1,14 +1,25 @@
 package com.farias.sentinel.config;
 
+import com.farias.sentinel.controller.ContainerFeedSocketHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 @Configuration
+@EnableWebSocket
 @EnableWebSocketMessageBroker
-public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer, WebSocketConfigurer {
+
+    private final ContainerFeedSocketHandler feedSocketHandler;
+
+    public WebSocketConfig(ContainerFeedSocketHandler feedSocketHandler) {
+        this.feedSocketHandler = feedSocketHandler;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
@@ -22,4 +33,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // El punto de entrada para que el navegador se conecte
         registry.addEndpoint("/sentinel-websocket").withSockJS();
     }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Feed sin STOMP con formato negociado (JSON o compacto), ver ContainerFeedSocketHandler
+        registry.addHandler(feedSocketHandler, "/ws/containers");
+    }
 }
@@ -1,25 +1,54 @@
 package com.farias.sentinel.controller;
 
 import com.farias.sentinel.config.DockerConfig;
-import com.github.dockerjava.api.DockerClient;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.DockerHost;
+import com.farias.sentinel.model.TrackedContainer;
+import com.farias.sentinel.service.DockerHostRegistry;
+import com.farias.sentinel.service.MetricsStore;
+import com.farias.sentinel.service.RecoveryExecutor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/containers")
 @CrossOrigin("*")
 public class ContainerController {
 
-    private final DockerClient dockerClient;
+    private final DockerHostRegistry hostRegistry;
+    private final MetricsStore metricsStore;
+    private final RecoveryExecutor recoveryExecutor;
+
+    public  ContainerController(DockerHostRegistry hostRegistry, MetricsStore metricsStore, RecoveryExecutor recoveryExecutor) {
+        this.hostRegistry = hostRegistry;
+        this.metricsStore = metricsStore;
+        this.recoveryExecutor = recoveryExecutor;
+    }
+
+    // Cantidad de reinicios y su latencia (promedio, máxima, última)
+    @GetMapping("/recovery-stats")
+    public Map<String, Object> getRecoveryStats() {
+        return recoveryExecutor.getEstadisticas();
+    }
 
-    public  ContainerController(DockerClient dockerClient) {
-        this.dockerClient = dockerClient;
+    // Última muestra con los valores crudos (bytes, fracción de CPU) sin formatear.
+    // host es opcional: sin él se usa el host por defecto (el primero configurado)
+    @GetMapping("/{id}/metrics")
+    public ResponseEntity<ContainerMetrics> getMetrics(@PathVariable String id,
+                                                       @RequestParam(required = false) String host) {
+        String nombreHost = host != null ? host : hostRegistry.getHostPorDefecto();
+        ContainerMetrics metrics = metricsStore.get(TrackedContainer.clave(nombreHost, id));
+        return metrics == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(metrics);
     }
 
     @PostMapping("/{id}/stop")
-    public void stopcontainer(@PathVariable String id) {
-        System.out.println("Solicitud manual de STOP para: " + id);
+    public void stopcontainer(@PathVariable String id, @RequestParam(required = false) String host) {
+        System.out.println("Solicitud manual de STOP para: " + id + (host != null ? " en " + host : ""));
         try {
-            dockerClient.stopContainerCmd(id).exec();
+            DockerHost dockerHost = hostRegistry.get(host);
+            dockerHost.getClient().stopContainerCmd(id).exec();
         } catch (Exception e) {
             System.err.println("Error al deneter: " + e.getMessage());
         }
@@ -0,0 +1,95 @@
+package com.farias.sentinel.controller;
+
+import com.farias.sentinel.service.StatusFeed;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+// WebSocket simple (sin STOMP) sobre el mismo feed que /api/containers/stream. El formato se negocia con el
+// subprotocolo: "sentinel.bin.v1" recibe frames binarios de CompactFeedFormat; "sentinel.json.v1" o ninguno,
+// frames de texto con {"tipo":"snapshot"|"batch", "cambios":[...], "eliminados":[...]}.
+// host y container en la query string filtran igual que en SSE.
+@Component
+public class ContainerFeedSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
+
+    public static final String BINARIO = "sentinel.bin.v1";
+    public static final String JSON = "sentinel.json.v1";
+
+    private static final String SUSCRIPCION = "sentinel.suscripcion";
+
+    private final StatusFeed statusFeed;
+
+    public ContainerFeedSocketHandler(StatusFeed statusFeed) {
+        this.statusFeed = statusFeed;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BINARIO, JSON);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Map<String, List<String>> parametros = session.getUri() == null ? Map.of()
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        boolean compacto = BINARIO.equals(session.getAcceptedProtocol());
+
+        Disposable suscripcion = statusFeed.mensajes(parametro(parametros, "host"), parametro(parametros, "container"), compacto)
+                .subscribe(mensaje -> enviar(session, mensaje, compacto),
+                        error -> cerrar(session, CloseStatus.SERVER_ERROR));
+        session.getAttributes().put(SUSCRIPCION, suscripcion);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Object suscripcion = session.getAttributes().remove(SUSCRIPCION);
+        if (suscripcion instanceof Disposable disposable) disposable.dispose();
+    }
+
+    // Corre en el hilo boundedElastic del cliente: a lo sumo un envío a la vez por sesión
+    private void enviar(WebSocketSession session, StatusFeed.Mensaje mensaje, boolean compacto) {
+        if (!session.isOpen()) return;
+        WebSocketMessage<?> frame;
+        if (mensaje.json() == null && mensaje.binario() == null) {
+            frame = new PingMessage(); // keepalive
+        } else if (compacto) {
+            frame = new BinaryMessage(mensaje.binario());
+        } else {
+            // el JSON del lote ya viene armado y compartido: solo se le antepone el tipo
+            frame = new TextMessage("{\"tipo\":\"" + mensaje.tipo() + "\"," + mensaje.json().substring(1));
+        }
+        try {
+            session.sendMessage(frame);
+        } catch (IOException | IllegalStateException e) {
+            cerrar(session, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static void cerrar(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            // ya estaba cerrada
+        }
+    }
+
+    private static String parametro(Map<String, List<String>> parametros, String nombre) {
+        List<String> valores = parametros.get(nombre);
+        if (valores == null || valores.isEmpty() || valores.get(0) == null || valores.get(0).isBlank()) return null;
+        return URLDecoder.decode(valores.get(0), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,25 @@
+package com.farias.sentinel.controller;
+
+import com.farias.sentinel.dto.ContainerStatusDTO;
+import com.farias.sentinel.service.StatusPublisher;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+
+@Controller
+public class ContainerStatusController {
+
+    private final StatusPublisher statusPublisher;
+
+    public ContainerStatusController(StatusPublisher statusPublisher) {
+        this.statusPublisher = statusPublisher;
+    }
+
+    // Al suscribirse a /app/containers el cliente recibe una sola vez el estado completo,
+    // despues solo le llegan los lotes con cambios por /topic/containers/batch
+    @SubscribeMapping("/containers")
+    public List<ContainerStatusDTO> snapshot() {
+        return statusPublisher.snapshot();
+    }
+}
@@ -0,0 +1,29 @@
+package com.farias.sentinel.controller;
+
+import com.farias.sentinel.service.StatusFeed;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/containers")
+public class ContainerStreamController {
+
+    private final StatusFeed statusFeed;
+
+    public ContainerStreamController(StatusFeed statusFeed) {
+        this.statusFeed = statusFeed;
+    }
+
+    // Alternativa SSE al WebSocket: primero un evento "snapshot" con el estado completo y después eventos
+    // "batch" con el mismo formato que /topic/containers/batch. host y container (id, prefijo o nombre) filtran.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> stream(@RequestParam(required = false) String host,
+                                                @RequestParam(required = false) String container) {
+        return statusFeed.suscribir(host, container);
+    }
+}
@@ -0,0 +1,50 @@
+package com.farias.sentinel.controller;
+
+import com.farias.sentinel.dto.MetricPointDTO;
+import com.farias.sentinel.model.TrackedContainer;
+import com.farias.sentinel.service.DockerHostRegistry;
+import com.farias.sentinel.service.MetricsHistoryService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final MetricsHistoryService metricsHistoryService;
+    private final DockerHostRegistry hostRegistry;
+
+    public MetricsController(MetricsHistoryService metricsHistoryService, DockerHostRegistry hostRegistry) {
+        this.metricsHistoryService = metricsHistoryService;
+        this.hostRegistry = hostRegistry;
+    }
+
+    // Serie histórica de un contenedor. from/to en epoch millis (por defecto los últimos 10 minutos),
+    // resolution: 1s, 1m o 1h (si no viene se elige según el rango), host: por defecto el primero configurado
+    @GetMapping("/{containerId}/history")
+    public List<MetricPointDTO> getHistory(@PathVariable String containerId,
+                                           @RequestParam(required = false) String host,
+                                           @RequestParam(required = false) Long from,
+                                           @RequestParam(required = false) Long to,
+                                           @RequestParam(required = false) String resolution) {
+        long hasta = to != null ? to : System.currentTimeMillis();
+        long desde = from != null ? from : hasta - 10 * MetricsHistoryService.MINUTO;
+        String clave = TrackedContainer.clave(host != null ? host : hostRegistry.getHostPorDefecto(), containerId);
+        return metricsHistoryService.consultar(clave, desde, hasta, parsearResolucion(resolution));
+    }
+
+    private long parsearResolucion(String resolution) {
+        if (resolution == null) return 0;
+        switch (resolution) {
+            case "1s": return MetricsHistoryService.SEGUNDO;
+            case "1m": return MetricsHistoryService.MINUTO;
+            case "1h": return MetricsHistoryService.HORA;
+            default: return 0;
+        }
+    }
+}
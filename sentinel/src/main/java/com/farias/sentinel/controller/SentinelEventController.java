@@ -1,31 +1,70 @@
 package com.farias.sentinel.controller;
 
-import com.farias.sentinel.model.ContainerEvent;
+import com.farias.sentinel.dto.EventDTO;
+import com.farias.sentinel.dto.EventFilter;
+import com.farias.sentinel.dto.EventPageDTO;
 import com.farias.sentinel.service.AnalyticsService;
-import com.farias.sentinel.service.SentinelEventService;
+import com.farias.sentinel.service.EventQueryService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/events")
 public class SentinelEventController {
 
     @Autowired
-    private SentinelEventService sentinelEventService;
+    private EventQueryService eventQueryService;
 
     @Autowired
     private AnalyticsService analyticsService;
 
+    // Historial paginado, del más nuevo al más viejo: la respuesta trae el cursor de la página siguiente
+    @GetMapping
+    public EventPageDTO getEvents(@RequestParam(required = false) String container,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(required = false) String host,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return eventQueryService.buscar(new EventFilter(container, type, from, to, host), cursor, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Un evento con su cola de logs (si se guardó)
+    @GetMapping("/{id}")
+    public ResponseEntity<EventDTO> getEvent(@PathVariable long id) {
+        EventDTO evento = eventQueryService.buscarPorId(id);
+        return evento == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(evento);
+    }
+
+    // Los últimos 10, para el panel del dashboard (sale de la misma caché que la primera página)
     @GetMapping("/recent")
-    public List<ContainerEvent> getRecentEvents() {
-        return sentinelEventService.getRecentEvents();
+    public List<EventDTO> getRecentEvents() {
+        return eventQueryService.buscar(new EventFilter(), null, 10).getEventos();
     }
 
     // Estadísticas globales para las tarjetas del Dashboard
@@ -40,11 +79,26 @@ public class SentinelEventController {
         return analyticsService.getTopOffenders();
     }
 
-    // Exportación a CSV
+    // Exportación a CSV (streaming), con filtros opcionales y salida gzip
     @GetMapping("/export")
-    public void exportToCSV(HttpServletResponse response) throws IOException {
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition", "attachment; filename=sentinel_history.csv");
-        analyticsService.exportEventsToCSV(response.getWriter());
+    public void exportToCSV(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                            @RequestParam(required = false) String container,
+                            @RequestParam(required = false) String type,
+                            @RequestParam(required = false) String host,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(gzip ? "application/gzip" : "text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=sentinel_history.csv" + (gzip ? ".gz" : ""));
+
+        OutputStream out = response.getOutputStream();
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 8192, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOut : out, StandardCharsets.UTF_8));
+
+        analyticsService.exportEventsToCSV(writer, new EventFilter(container, type, from, to, host));
+        writer.flush();
+        if (gzipOut != null) gzipOut.finish();
     }
 }
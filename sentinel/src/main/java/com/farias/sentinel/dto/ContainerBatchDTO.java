@@ -0,0 +1,16 @@
+package com.farias.sentinel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContainerBatchDTO {
+
+    private List<ContainerStatusDTO> cambios; // solo los contenedores que cambiaron desde el ultimo lote
+    private List<String> eliminados; // ids de contenedores que ya no existen
+}
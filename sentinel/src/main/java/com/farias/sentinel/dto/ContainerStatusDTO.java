@@ -1,5 +1,6 @@
 package com.farias.sentinel.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,8 +13,15 @@ public class ContainerStatusDTO {
     private String nombre;
     private String estado;
     private String id;
+    private String host;
     private boolean protegido;
     private boolean blocked;
     private String cpuUsage;
     private String memUsage;
+
+    // Las mismas métricas sin formatear, para el formato compacto del feed (el JSON sigue con los textos)
+    @JsonIgnore
+    private int cpuCentesimas;
+    @JsonIgnore
+    private long memoriaMb;
 }
@@ -0,0 +1,26 @@
+package com.farias.sentinel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Proyección de ContainerEvent para la API: mismos nombres que la entidad, sin la cola de logs en los listados
+// (hasLogTail avisa si la tiene; se pide por /api/events/{id})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventDTO {
+
+    private Long id;
+    private LocalDateTime timestamp;
+    private String host;
+    private String containerName;
+    private String containerId;
+    private String eventType;
+    private String details;
+    private Integer retryCount;
+    private boolean hasLogTail;
+    private String logTail; // solo en el detalle
+}
@@ -0,0 +1,20 @@
+package com.farias.sentinel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Filtros opcionales para consultar/exportar eventos (null = sin filtro)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventFilter {
+
+    private String container;
+    private String type;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String host;
+}
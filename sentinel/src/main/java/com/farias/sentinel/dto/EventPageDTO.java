@@ -0,0 +1,17 @@
+package com.farias.sentinel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Una página de /api/events, de la más nueva a la más vieja; siguiente es el cursor de la próxima (null si no hay)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventPageDTO {
+
+    private List<EventDTO> eventos;
+    private String siguiente;
+}
@@ -0,0 +1,21 @@
+package com.farias.sentinel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MetricPointDTO {
+
+    private long timestamp; // epoch millis del inicio del intervalo
+    private double cpuMin;
+    private double cpuMax;
+    private double cpuAvg;
+    private double cpuP95;
+    private long memMin;
+    private long memMax;
+    private long memAvg;
+    private long memP95;
+}
@@ -0,0 +1,30 @@
+package com.farias.sentinel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Definición ya parseada de una regla de alerta; el estado por contenedor vive en RuleEvaluator
+@Data
+@AllArgsConstructor
+public class AlertRule {
+
+    public enum Metrica { CPU, MEMORY, MEMORY_PCT }
+
+    public enum Tipo { THRESHOLD, RATE, SUSTAINED }
+
+    private final String nombre;
+    private final Metrica metrica;
+    private final Tipo tipo;
+    private final double umbral;
+    private final long ventanaMs;
+    private final double alpha;
+    private final long cooldownMs;
+
+    public String describir(double valor) {
+        String unidad = metrica == Metrica.MEMORY ? "MB" : "%";
+        String medida = tipo == Tipo.RATE ? unidad + "/s" : unidad;
+        String texto = String.format("%s: %s = %.2f%s (umbral %.2f%s)",
+                nombre, metrica.name().toLowerCase(), valor, medida, umbral, medida);
+        return tipo == Tipo.SUSTAINED ? texto + " durante " + ventanaMs / 1000 + "s" : texto;
+    }
+}
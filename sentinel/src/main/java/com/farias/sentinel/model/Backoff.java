@@ -0,0 +1,28 @@
+package com.farias.sentinel.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Backoff exponencial con "equal jitter": el primer intento es inmediato, después base, 2×base... hasta max.
+// Lo usan los reinicios (RecoveryPolicy) y los reintentos HTTP de Slack, cada uno con sus propios valores
+public class Backoff {
+
+    private final long baseMs;
+    private final long maxMs;
+
+    public Backoff(long baseMs, long maxMs) {
+        this.baseMs = baseMs;
+        this.maxMs = maxMs;
+    }
+
+    public long calcularEspera(int intento) {
+        return calcularEspera(intento, baseMs, maxMs);
+    }
+
+    public static long calcularEspera(int intento, long baseMs, long maxMs) {
+        if (intento <= 1) return 0;
+        long techo = baseMs << Math.min(intento - 2, 30);
+        if (techo <= 0 || techo > maxMs) techo = maxMs;
+        if (techo <= 0) return 0;
+        return techo / 2 + ThreadLocalRandom.current().nextLong(techo / 2 + 1);
+    }
+}
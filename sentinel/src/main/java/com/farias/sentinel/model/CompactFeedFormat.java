@@ -0,0 +1,85 @@
+package com.farias.sentinel.model;
+
+import com.farias.sentinel.dto.ContainerStatusDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Formato compacto del feed del dashboard (/ws/containers con el subprotocolo sentinel.bin.v1).
+// Cada contenedor se identifica con un índice chico que asigna StatusFeed la primera vez que lo ve: host, id y
+// nombre viajan una sola vez en una "definición" y cada cambio es índice + estado + métricas numéricas.
+//   mensaje:    versión, tipo (1 snapshot, 2 batch), definiciones, cambios, eliminados (cada lista con su largo)
+//   definición: índice, host, id, nombre
+//   cambio:     índice, banderas, cpu en centésimas de %, memoria en MB
+//   eliminado:  índice
+// Enteros sin signo como varint (7 bits por byte) y textos como largo + UTF-8.
+// Banderas: bits 0-3 el estado (orden de ContainerState), bit 4 protegido, bit 5 bloqueado.
+public final class CompactFeedFormat {
+
+    public static final int VERSION = 1;
+    public static final int SNAPSHOT = 1;
+    public static final int BATCH = 2;
+
+    private static final int PROTEGIDO = 1 << 4;
+    private static final int BLOQUEADO = 1 << 5;
+
+    private CompactFeedFormat() {
+    }
+
+    public static byte[] definicion(int indice, String host, String id, String nombre) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+        escribirVarInt(out, indice);
+        escribirTexto(out, host);
+        escribirTexto(out, id);
+        escribirTexto(out, nombre);
+        return out.toByteArray();
+    }
+
+    public static byte[] cambio(int indice, ContainerStatusDTO dto) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(12);
+        escribirVarInt(out, indice);
+        int banderas = ContainerState.de(dto.getEstado()).ordinal()
+                | (dto.isProtegido() ? PROTEGIDO : 0) | (dto.isBlocked() ? BLOQUEADO : 0);
+        out.write(banderas);
+        escribirVarInt(out, Math.max(0, dto.getCpuCentesimas()));
+        escribirVarLong(out, Math.max(0, dto.getMemoriaMb()));
+        return out.toByteArray();
+    }
+
+    // Concatena fragmentos ya codificados: con muchos clientes cada contenedor se codifica una vez por lote
+    public static byte[] mensaje(int tipo, List<byte[]> definiciones, List<byte[]> cambios, int[] eliminados) {
+        int largo = 16 + eliminados.length * 3;
+        for (byte[] definicion : definiciones) largo += definicion.length;
+        for (byte[] cambio : cambios) largo += cambio.length;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(largo);
+        out.write(VERSION);
+        out.write(tipo);
+        escribirVarInt(out, definiciones.size());
+        for (byte[] definicion : definiciones) out.writeBytes(definicion);
+        escribirVarInt(out, cambios.size());
+        for (byte[] cambio : cambios) out.writeBytes(cambio);
+        escribirVarInt(out, eliminados.length);
+        for (int indice : eliminados) escribirVarInt(out, indice);
+        return out.toByteArray();
+    }
+
+    private static void escribirTexto(ByteArrayOutputStream out, String texto) {
+        byte[] bytes = (texto != null ? texto : "").getBytes(StandardCharsets.UTF_8);
+        escribirVarInt(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void escribirVarInt(ByteArrayOutputStream out, int valor) {
+        escribirVarLong(out, valor & 0xFFFFFFFFL);
+    }
+
+    private static void escribirVarLong(ByteArrayOutputStream out, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            out.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        out.write((int) valor);
+    }
+}
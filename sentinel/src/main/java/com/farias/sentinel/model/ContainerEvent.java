@@ -1,25 +1,37 @@
 package com.farias.sentinel.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_event_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_event_type_timestamp", columnList = "eventType, timestamp"),
+        @Index(name = "idx_event_container_timestamp", columnList = "containerName, timestamp"),
+        @Index(name = "idx_event_host_timestamp", columnList = "host, timestamp")
+})
 public class ContainerEvent {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    private String host; // daemon de Docker donde vive el contenedor
     private String containerName;
     private String containerId;
     private String eventType; // FAILURE, RECOVERY, CRITICAL_STOP
     private LocalDateTime timestamp;
     private String details; // Ejemplo: reinicio automatico exitoso
     private Integer retryCount = 0;
+    @Column(length = 8192)
+    private String logTail; // últimas líneas de log antes de una caída (FAILURE), si se seguían sus logs
 }
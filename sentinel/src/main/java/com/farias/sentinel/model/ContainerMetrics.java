@@ -0,0 +1,19 @@
+package com.farias.sentinel.model;
+
+import lombok.Data;
+
+// Última muestra de métricas de un contenedor. Se actualiza en el lugar, sin crear objetos por muestra;
+// el formateo ("12.34%", "512MB") se hace solo al armar el DTO o la respuesta REST
+@Data
+public class ContainerMetrics {
+
+    private final String clave; // host:containerId
+    private volatile double cpuFraction; // 1.0 = un core completo
+    private volatile long memoryBytes;
+    private volatile long memoryLimit;
+    private volatile long netRxBytes;
+    private volatile long netTxBytes;
+    private volatile long blkReadBytes;
+    private volatile long blkWriteBytes;
+    private volatile long ultimaMuestra; // epoch millis
+}
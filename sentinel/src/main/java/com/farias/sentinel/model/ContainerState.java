@@ -0,0 +1,43 @@
+package com.farias.sentinel.model;
+
+// Estados de Docker como enum: se parsea una vez por listado y después se compara por identidad
+public enum ContainerState {
+    CREATED("created"),
+    RESTARTING("restarting"),
+    RUNNING("running"),
+    REMOVING("removing"),
+    PAUSED("paused"),
+    EXITED("exited"),
+    DEAD("dead"),
+    UNKNOWN("unknown");
+
+    private final String valor;
+
+    ContainerState(String valor) {
+        this.valor = valor;
+    }
+
+    // el texto que usa Docker, siempre la misma instancia (es lo que se manda al dashboard)
+    public String getValor() {
+        return valor;
+    }
+
+    public static ContainerState de(String estado) {
+        if (estado == null) return UNKNOWN;
+        switch (estado) {
+            case "running": return RUNNING;
+            case "exited": return EXITED;
+            case "restarting": return RESTARTING;
+            case "created": return CREATED;
+            case "paused": return PAUSED;
+            case "removing": return REMOVING;
+            case "dead": return DEAD;
+            default:
+                // daemons viejos o proxies que no respetan las minúsculas
+                for (ContainerState valor : values()) {
+                    if (valor.valor.equalsIgnoreCase(estado)) return valor;
+                }
+                return UNKNOWN;
+        }
+    }
+}
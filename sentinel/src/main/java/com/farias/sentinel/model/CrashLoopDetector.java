@@ -0,0 +1,54 @@
+package com.farias.sentinel.model;
+
+// Últimas N caídas de un contenedor en un ring de timestamps: si las N entran en la ventana, está en crash-loop
+public class CrashLoopDetector {
+
+    private final long[] caidas; // epoch millis
+    private int cantidad;
+    private int siguiente;
+    private long silenciadoHasta; // un solo aviso por ventana
+
+    public CrashLoopDetector(int caidas) {
+        if (caidas < 1) throw new IllegalArgumentException("Hace falta al menos una caída: " + caidas);
+        this.caidas = new long[caidas];
+    }
+
+    // Registra una caída; devuelve true si con esta se detecta (y hay que avisar) un crash-loop
+    public boolean registrar(long ahora, long ventanaMs) {
+        caidas[siguiente] = ahora;
+        siguiente = (siguiente + 1) % caidas.length;
+        if (cantidad < caidas.length) cantidad++;
+
+        // con el ring lleno, "siguiente" apunta a la caída más vieja
+        boolean enLoop = cantidad == caidas.length && ahora - caidas[siguiente] <= ventanaMs;
+        if (!enLoop || ahora < silenciadoHasta) return false;
+        silenciadoHasta = ahora + ventanaMs;
+        return true;
+    }
+
+    public int getCaidas() {
+        return caidas.length;
+    }
+
+    // Las caídas del ring de la más vieja a la más nueva (para el snapshot)
+    public long[] getRecientes() {
+        long[] recientes = new long[cantidad];
+        int primera = cantidad == caidas.length ? siguiente : 0;
+        for (int i = 0; i < cantidad; i++) recientes[i] = caidas[(primera + i) % caidas.length];
+        return recientes;
+    }
+
+    public long getSilenciadoHasta() {
+        return silenciadoHasta;
+    }
+
+    // Vuelve a cargar lo que devolvió getRecientes; si el ring ahora es más chico quedan las más nuevas
+    public void restaurar(long[] recientes, long silenciadoHasta) {
+        for (long caida : recientes) {
+            caidas[siguiente] = caida;
+            siguiente = (siguiente + 1) % caidas.length;
+            if (cantidad < caidas.length) cantidad++;
+        }
+        this.silenciadoHasta = silenciadoHasta;
+    }
+}
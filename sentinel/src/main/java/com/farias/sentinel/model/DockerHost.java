@@ -0,0 +1,20 @@
+package com.farias.sentinel.model;
+
+import com.github.dockerjava.api.DockerClient;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+// Un daemon de Docker supervisado, con su propio cliente (y su propio pool de conexiones)
+@Data
+@RequiredArgsConstructor
+public class DockerHost {
+
+    private final String nombre;
+    private final DockerClient client;
+    // pool aparte para los streams que quedan abiertos (logs en follow): no le sacan conexiones a los restarts
+    private DockerClient clienteStreams;
+
+    public DockerClient getClienteStreams() {
+        return clienteStreams != null ? clienteStreams : client;
+    }
+}
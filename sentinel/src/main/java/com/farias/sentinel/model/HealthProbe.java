@@ -0,0 +1,90 @@
+package com.farias.sentinel.model;
+
+import java.net.URI;
+
+// Sonda activa de un contenedor, configurada con labels (sentinel.probe y sentinel.probe.*): un GET HTTP que
+// tiene que responder 2xx o una conexión TCP que tiene que abrirse, cada intervaloMs y con su propio timeout.
+// La escribe un solo hilo a la vez (HealthCheckService no lanza otra mientras haya una en curso); el tick solo lee.
+public class HealthProbe {
+
+    private final URI destino; // http(s)://host:puerto/ruta o tcp://host:puerto
+    private final long intervaloMs;
+    private final long timeoutMs;
+    private final int umbral; // fallos seguidos para darla por caída
+
+    private volatile long proxima; // epoch millis del próximo intento
+    private volatile boolean enCurso;
+    private volatile int fallosSeguidos;
+    private volatile String ultimoError;
+
+    public HealthProbe(URI destino, long intervaloMs, long timeoutMs, int umbral) {
+        this.destino = destino;
+        this.intervaloMs = intervaloMs;
+        this.timeoutMs = timeoutMs;
+        this.umbral = Math.max(1, umbral);
+    }
+
+    public boolean isTcp() {
+        return "tcp".equalsIgnoreCase(destino.getScheme());
+    }
+
+    public boolean isFallando() {
+        return fallosSeguidos >= umbral;
+    }
+
+    public void registrarExito() {
+        fallosSeguidos = 0;
+        ultimoError = null;
+    }
+
+    public void registrarFallo(String error) {
+        fallosSeguidos++;
+        ultimoError = error;
+    }
+
+    // misma configuración: al releer los labels no se pierde la cuenta de fallos
+    public boolean mismaConfiguracion(HealthProbe otra) {
+        return otra != null && destino.equals(otra.destino) && intervaloMs == otra.intervaloMs
+                && timeoutMs == otra.timeoutMs && umbral == otra.umbral;
+    }
+
+    public URI getDestino() {
+        return destino;
+    }
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public int getUmbral() {
+        return umbral;
+    }
+
+    public long getProxima() {
+        return proxima;
+    }
+
+    public void setProxima(long proxima) {
+        this.proxima = proxima;
+    }
+
+    public boolean isEnCurso() {
+        return enCurso;
+    }
+
+    public void setEnCurso(boolean enCurso) {
+        this.enCurso = enCurso;
+    }
+
+    public int getFallosSeguidos() {
+        return fallosSeguidos;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+}
@@ -0,0 +1,133 @@
+package com.farias.sentinel.model;
+
+// Regresión lineal sobre una ventana deslizante de la memoria de un contenedor (un punto cada intervalo).
+// Se mantienen las sumas de la regresión al vuelo: agregar un punto es O(1) y el estado es de tamaño fijo.
+// Una vez por vuelta completa del ring se recalculan las sumas respecto del punto más viejo,
+// así los tiempos no crecen sin límite ni se acumula error de redondeo.
+public class LeakDetector {
+
+    private final long[] tiempos; // epoch millis
+    private final double[] valores; // bytes
+    private int cantidad;
+    private int siguiente;
+    private long base; // epoch millis al que se refieren las sumas
+    private double sumaT, sumaY, sumaTT, sumaTY, sumaYY;
+    private long ultimoAviso = Long.MIN_VALUE / 2;
+    private long ultimoReinicio = Long.MIN_VALUE / 2; // reinicio preventivo, con su propio cooldown
+
+    public LeakDetector(int capacidad) {
+        if (capacidad < 2) throw new IllegalArgumentException("La ventana necesita al menos 2 puntos: " + capacidad);
+        this.tiempos = new long[capacidad];
+        this.valores = new double[capacidad];
+    }
+
+    // Devuelve false si todavía no pasó el intervalo desde el último punto
+    public boolean agregar(long epochMillis, double bytes, long intervaloMs) {
+        if (cantidad > 0 && epochMillis - ultimo() < intervaloMs) return false;
+        if (cantidad == 0) base = epochMillis;
+
+        if (cantidad == tiempos.length) {
+            quitar(tiempos[siguiente], valores[siguiente]);
+        } else {
+            cantidad++;
+        }
+        tiempos[siguiente] = epochMillis;
+        valores[siguiente] = bytes;
+        sumar(epochMillis, bytes);
+        siguiente = (siguiente + 1) % tiempos.length;
+
+        if (siguiente == 0) rebasar();
+        return true;
+    }
+
+    // Descarta la ventana (el proceso se reinició, lo de antes ya no predice nada); los cooldowns se conservan
+    public void vaciar() {
+        cantidad = 0;
+        siguiente = 0;
+        sumaT = sumaY = sumaTT = sumaTY = sumaYY = 0;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    // Duración cubierta por la ventana
+    public long getSpanMs() {
+        return cantidad < 2 ? 0 : ultimo() - tiempos[cantidad == tiempos.length ? siguiente : 0];
+    }
+
+    // Bytes por segundo (NaN si no hay suficientes puntos)
+    public double pendiente() {
+        double denominador = cantidad * sumaTT - sumaT * sumaT;
+        if (cantidad < 2 || denominador <= 0) return Double.NaN;
+        return (cantidad * sumaTY - sumaT * sumaY) / denominador;
+    }
+
+    // Qué tan bien ajusta la recta (1 = perfecto); con ruido alrededor de un valor estable da cerca de 0
+    public double r2() {
+        double varT = cantidad * sumaTT - sumaT * sumaT;
+        double varY = cantidad * sumaYY - sumaY * sumaY;
+        if (cantidad < 2 || varT <= 0 || varY <= 0) return 0;
+        double cov = cantidad * sumaTY - sumaT * sumaY;
+        return cov * cov / (varT * varY);
+    }
+
+    // Segundos hasta que la recta alcance el límite, medidos desde el último punto (-1 si no crece)
+    public double segundosHastaLimite(double limite) {
+        double pendiente = pendiente();
+        if (Double.isNaN(pendiente) || pendiente <= 0) return -1;
+        double t = segundos(ultimo());
+        double estimado = (sumaY - pendiente * sumaT) / cantidad + pendiente * t;
+        return Math.max(0, (limite - estimado) / pendiente);
+    }
+
+    public long getUltimoAviso() {
+        return ultimoAviso;
+    }
+
+    public void setUltimoAviso(long ultimoAviso) {
+        this.ultimoAviso = ultimoAviso;
+    }
+
+    public long getUltimoReinicio() {
+        return ultimoReinicio;
+    }
+
+    public void setUltimoReinicio(long ultimoReinicio) {
+        this.ultimoReinicio = ultimoReinicio;
+    }
+
+    private long ultimo() {
+        return tiempos[(siguiente - 1 + tiempos.length) % tiempos.length];
+    }
+
+    private double segundos(long epochMillis) {
+        return (epochMillis - base) / 1000d;
+    }
+
+    private void sumar(long epochMillis, double y) {
+        double t = segundos(epochMillis);
+        sumaT += t;
+        sumaY += y;
+        sumaTT += t * t;
+        sumaTY += t * y;
+        sumaYY += y * y;
+    }
+
+    private void quitar(long epochMillis, double y) {
+        double t = segundos(epochMillis);
+        sumaT -= t;
+        sumaY -= y;
+        sumaTT -= t * t;
+        sumaTY -= t * y;
+        sumaYY -= y * y;
+    }
+
+    private void rebasar() {
+        base = tiempos[0];
+        sumaT = sumaY = sumaTT = sumaTY = sumaYY = 0;
+        for (int i = 0; i < cantidad; i++) {
+            sumar(tiempos[i], valores[i]);
+        }
+    }
+}
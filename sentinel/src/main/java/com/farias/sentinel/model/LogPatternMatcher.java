@@ -0,0 +1,99 @@
+package com.farias.sentinel.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Aho-Corasick sobre bytes, compilado a un autómata determinista: buscar todos los patrones a la vez cuesta
+// un acceso a la tabla por byte, sin importar cuántos patrones haya ni decodificar el log a String.
+// Es inmutable y se comparte entre todos los contenedores; cada LogTail solo guarda su estado actual (un int).
+// No distingue mayúsculas de minúsculas en ASCII.
+public class LogPatternMatcher {
+
+    private final String[] patrones;
+    private final int[] transiciones; // estado * 256 + byte -> estado siguiente
+    private final int[] salida; // patrón que termina en cada estado (el de menor índice), -1 si ninguno
+
+    public LogPatternMatcher(List<String> patrones) {
+        this.patrones = patrones.stream().map(String::trim).filter(p -> !p.isEmpty()).toArray(String[]::new);
+
+        // 1) trie con los patrones en minúscula
+        List<int[]> hijos = new ArrayList<>();
+        List<Integer> salidas = new ArrayList<>();
+        hijos.add(nuevoNodo());
+        salidas.add(-1);
+        for (int p = 0; p < this.patrones.length; p++) {
+            int estado = 0;
+            for (byte b : this.patrones[p].toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+                int c = b & 0xff;
+                if (hijos.get(estado)[c] < 0) {
+                    hijos.get(estado)[c] = hijos.size();
+                    hijos.add(nuevoNodo());
+                    salidas.add(-1);
+                }
+                estado = hijos.get(estado)[c];
+            }
+            if (salidas.get(estado) < 0) salidas.set(estado, p);
+        }
+
+        // 2) enlaces de falla por niveles, completando las transiciones que faltan (queda un DFA)
+        int estados = hijos.size();
+        transiciones = new int[estados << 8];
+        salida = new int[estados];
+        int[] falla = new int[estados];
+        for (int s = 0; s < estados; s++) salida[s] = salidas.get(s);
+
+        ArrayDeque<Integer> cola = new ArrayDeque<>();
+        for (int c = 0; c < 256; c++) {
+            int hijo = hijos.get(0)[c];
+            transiciones[c] = hijo < 0 ? 0 : hijo;
+            if (hijo > 0) cola.add(hijo);
+        }
+        while (!cola.isEmpty()) {
+            int s = cola.poll();
+            // si no termina ningún patrón acá, hereda el del sufijo más largo ("xpanic:" contiene "panic:")
+            if (salida[s] < 0) salida[s] = salida[falla[s]];
+            for (int c = 0; c < 256; c++) {
+                int hijo = hijos.get(s)[c];
+                if (hijo < 0) {
+                    transiciones[(s << 8) | c] = transiciones[(falla[s] << 8) | c];
+                } else {
+                    transiciones[(s << 8) | c] = hijo;
+                    falla[hijo] = transiciones[(falla[s] << 8) | c];
+                    cola.add(hijo);
+                }
+            }
+        }
+
+        // 3) mayúsculas ASCII: misma transición que la minúscula
+        for (int s = 0; s < estados; s++) {
+            System.arraycopy(transiciones, (s << 8) | 'a', transiciones, (s << 8) | 'A', 26);
+        }
+    }
+
+    public int siguiente(int estado, byte b) {
+        return transiciones[(estado << 8) | (b & 0xff)];
+    }
+
+    // índice del patrón que se completó al llegar a este estado, -1 si ninguno
+    public int patronEn(int estado) {
+        return salida[estado];
+    }
+
+    public String getPatron(int indice) {
+        return patrones[indice];
+    }
+
+    public boolean isVacio() {
+        return patrones.length == 0;
+    }
+
+    private static int[] nuevoNodo() {
+        int[] nodo = new int[256];
+        Arrays.fill(nodo, -1);
+        return nodo;
+    }
+}
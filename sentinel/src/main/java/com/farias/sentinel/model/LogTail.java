@@ -0,0 +1,116 @@
+package com.farias.sentinel.model;
+
+import java.nio.charset.StandardCharsets;
+
+// Cola de los logs de un contenedor: los últimos N bytes en un buffer circular de tamaño fijo.
+// Agregar es copiar bytes y pasarlos por el matcher, sin partir en líneas ni decodificar; las líneas recién
+// se arman cuando alguien las pide (una caída), que es lo raro. La memoria por contenedor no pasa de la capacidad.
+// Un solo hilo escribe (el stream del contenedor) y las lecturas son ocasionales: alcanza con synchronized.
+public class LogTail {
+
+    private final byte[] buffer;
+    private final LogPatternMatcher matcher;
+    private long escritos; // total de bytes que pasaron: la posición absoluta del próximo byte
+    private int estado; // estado del matcher, las coincidencias pueden cruzar de un frame al siguiente
+    private long coincidencia = -1; // posición absoluta donde terminó la última coincidencia
+    private volatile long seguidoHasta; // epoch millis en que se cerró el último stream, 0 si nunca
+    private volatile long ultimoAviso; // epoch millis del último WARNING por un patrón (cooldown)
+
+    public LogTail(int capacidad, LogPatternMatcher matcher) {
+        this.buffer = new byte[capacidad];
+        this.matcher = matcher;
+    }
+
+    // Devuelve el primer patrón que aparece en este bloque, -1 si ninguno
+    public synchronized int agregar(byte[] datos, int desde, int largo) {
+        int patron = -1;
+        int s = estado;
+        for (int i = desde, fin = desde + largo; i < fin; i++) {
+            s = matcher.siguiente(s, datos[i]);
+            if (patron < 0 && matcher.patronEn(s) >= 0) {
+                patron = matcher.patronEn(s);
+                coincidencia = escritos + (i - desde) + 1;
+            }
+        }
+        estado = s;
+        copiar(datos, desde, largo);
+        return patron;
+    }
+
+    private void copiar(byte[] datos, int desde, int largo) {
+        int capacidad = buffer.length;
+        if (largo >= capacidad) {
+            // más grande que el buffer: solo importa el final
+            desde += largo - capacidad;
+            escritos += largo - capacidad;
+            largo = capacidad;
+        }
+        int inicio = (int) (escritos % capacidad);
+        int primero = Math.min(largo, capacidad - inicio);
+        System.arraycopy(datos, desde, buffer, inicio, primero);
+        System.arraycopy(datos, desde + primero, buffer, 0, largo - primero);
+        escritos += largo;
+    }
+
+    // Las últimas n líneas que siguen en el buffer (la más vieja puede venir cortada)
+    public synchronized String ultimasLineas(int n) {
+        String texto = contenido();
+        int fin = texto.endsWith("\n") ? texto.length() - 1 : texto.length();
+        int inicio = fin;
+        for (int lineas = 0; lineas < n && inicio > 0; ) {
+            inicio--;
+            if (texto.charAt(inicio) == '\n') lineas++;
+        }
+        if (inicio > 0 || (inicio < fin && texto.charAt(inicio) == '\n')) inicio++;
+        return texto.substring(Math.min(inicio, fin), fin);
+    }
+
+    // La línea donde terminó la última coincidencia, si todavía está en el buffer
+    public synchronized String lineaDeLaCoincidencia() {
+        long primero = Math.max(0, escritos - buffer.length);
+        if (coincidencia < 0 || coincidencia <= primero) return null;
+
+        long desde = coincidencia - 1;
+        while (desde > primero && byteEn(desde - 1) != '\n') desde--;
+        long hasta = coincidencia;
+        while (hasta < escritos && byteEn(hasta) != '\n') hasta++;
+
+        byte[] linea = new byte[(int) (hasta - desde)];
+        for (int i = 0; i < linea.length; i++) linea[i] = byteEn(desde + i);
+        return new String(linea, StandardCharsets.UTF_8).strip();
+    }
+
+    public synchronized long getEscritos() {
+        return escritos;
+    }
+
+    public long getSeguidoHasta() {
+        return seguidoHasta;
+    }
+
+    public void setSeguidoHasta(long seguidoHasta) {
+        this.seguidoHasta = seguidoHasta;
+    }
+
+    public long getUltimoAviso() {
+        return ultimoAviso;
+    }
+
+    public void setUltimoAviso(long ultimoAviso) {
+        this.ultimoAviso = ultimoAviso;
+    }
+
+    private byte byteEn(long posicion) {
+        return buffer[(int) (posicion % buffer.length)];
+    }
+
+    private String contenido() {
+        int largo = (int) Math.min(escritos, buffer.length);
+        int inicio = (int) ((escritos - largo) % buffer.length);
+        byte[] copia = new byte[largo];
+        int primero = Math.min(largo, buffer.length - inicio);
+        System.arraycopy(buffer, inicio, copia, 0, primero);
+        System.arraycopy(buffer, 0, copia, primero, largo - primero);
+        return new String(copia, StandardCharsets.UTF_8);
+    }
+}
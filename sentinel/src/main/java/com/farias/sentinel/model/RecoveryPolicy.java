@@ -0,0 +1,20 @@
+package com.farias.sentinel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Política de auto-heal de un contenedor. Los valores por defecto salen de application.properties
+// y cada contenedor puede pisarlos con labels (sentinel.max-retries, sentinel.backoff-base-ms, sentinel.backoff-max-ms)
+@Data
+@AllArgsConstructor
+public class RecoveryPolicy {
+
+    private final int maxRetries;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    // El primer intento es inmediato; después backoff exponencial con "equal jitter"
+    public long calcularEspera(int intento) {
+        return Backoff.calcularEspera(intento, backoffBaseMs, backoffMaxMs);
+    }
+}
@@ -0,0 +1,115 @@
+package com.farias.sentinel.model;
+
+import java.util.Arrays;
+
+// Buffer circular de una serie a una resolución fija (1s, 1m, 1h). Cada slot guarda el rollup
+// (min/max/avg/p95) de su intervalo y se va actualizando a medida que llegan muestras.
+// Todo en arrays primitivos: no se crean objetos por muestra.
+public class RollupRing {
+
+    private final long resolucionMs;
+    private final int capacidad;
+    private final RollupRing fina; // ring de resolución menor para calcular el p95 al cerrar, null en el primero
+
+    private final long[] bucket; // número de intervalo (epoch / resolución) que ocupa el slot, -1 si está vacío
+    private final float[] min;
+    private final float[] max;
+    private final double[] suma;
+    private final int[] cantidad;
+    private final float[] p95;
+    private final float[] scratch;
+
+    private long abierto = -1; // intervalo que se está acumulando
+
+    public RollupRing(long resolucionMs, int capacidad, RollupRing fina) {
+        this.resolucionMs = resolucionMs;
+        this.capacidad = capacidad;
+        this.fina = fina;
+        this.bucket = new long[capacidad];
+        this.min = new float[capacidad];
+        this.max = new float[capacidad];
+        this.suma = new double[capacidad];
+        this.cantidad = new int[capacidad];
+        this.p95 = new float[capacidad];
+        this.scratch = fina == null ? null : new float[(int) Math.max(1, resolucionMs / fina.resolucionMs)];
+        Arrays.fill(bucket, -1);
+    }
+
+    public void agregar(long epochMillis, double valor) {
+        long b = epochMillis / resolucionMs;
+        if (b < abierto) return; // muestra vieja, fuera de orden
+
+        int slot = (int) (b % capacidad);
+        float v = (float) valor;
+        if (b != abierto) {
+            if (abierto >= 0) cerrar(abierto);
+            abierto = b;
+            bucket[slot] = b;
+            min[slot] = v;
+            max[slot] = v;
+            suma[slot] = valor;
+            cantidad[slot] = 1;
+            p95[slot] = v;
+            return;
+        }
+
+        if (v < min[slot]) min[slot] = v;
+        if (v > max[slot]) max[slot] = v;
+        suma[slot] += valor;
+        cantidad[slot]++;
+        if (fina == null) p95[slot] = max[slot]; // a resolución fina hay una o dos muestras: p95 ~ max
+    }
+
+    private void cerrar(long b) {
+        if (fina == null) return;
+        p95[(int) (b % capacidad)] = fina.percentil95(b * resolucionMs, (b + 1) * resolucionMs, scratch);
+    }
+
+    // p95 de los promedios de este ring entre [desde, hasta)
+    float percentil95(long desde, long hasta, float[] buffer) {
+        int n = 0;
+        for (long b = desde / resolucionMs; b < hasta / resolucionMs && n < buffer.length; b++) {
+            int slot = (int) (b % capacidad);
+            if (bucket[slot] == b) buffer[n++] = (float) (suma[slot] / cantidad[slot]);
+        }
+        if (n == 0) return 0;
+        Arrays.sort(buffer, 0, n);
+        return buffer[Math.min(n - 1, (int) Math.ceil(n * 0.95) - 1)];
+    }
+
+    public long getResolucionMs() {
+        return resolucionMs;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    // Cuánto hacia atrás cubre el ring
+    public long getCoberturaMs() {
+        return resolucionMs * capacidad;
+    }
+
+    public boolean tiene(long b) {
+        return bucket[(int) (b % capacidad)] == b;
+    }
+
+    public float getMin(long b) {
+        return min[(int) (b % capacidad)];
+    }
+
+    public float getMax(long b) {
+        return max[(int) (b % capacidad)];
+    }
+
+    public float getAvg(long b) {
+        int slot = (int) (b % capacidad);
+        return (float) (suma[slot] / cantidad[slot]);
+    }
+
+    public float getP95(long b) {
+        // el intervalo abierto todavía no se cerró: lo calculamos al vuelo
+        if (b == abierto && fina != null) return fina.percentil95(b * resolucionMs, (b + 1) * resolucionMs, scratch);
+        return p95[(int) (b % capacidad)];
+    }
+}
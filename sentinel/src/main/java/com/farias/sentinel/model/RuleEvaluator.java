@@ -0,0 +1,98 @@
+package com.farias.sentinel.model;
+
+// Estado de una regla para un contenedor: unos pocos primitivos (EWMA, valor anterior, inicio de la racha)
+// así que evaluar una muestra es O(1) y no crea objetos
+public class RuleEvaluator {
+
+    public static final int NADA = 0;
+    public static final int CERCA = 1; // por encima del 80% del umbral, conviene muestrear más seguido
+    public static final int DISPARO = 2;
+
+    private final AlertRule regla;
+    private double ewma = Double.NaN;
+    private double previo;
+    private long tPrevio;
+    private long desde; // epoch millis desde que está por encima del umbral (sustained)
+    private long ultimoDisparo = Long.MIN_VALUE / 2;
+    private double ultimoValor;
+
+    public RuleEvaluator(AlertRule regla) {
+        this.regla = regla;
+    }
+
+    public AlertRule getRegla() {
+        return regla;
+    }
+
+    public double getUltimoValor() {
+        return ultimoValor;
+    }
+
+    // epoch millis del último disparo, 0 si nunca disparó
+    public long getUltimoDisparo() {
+        return ultimoDisparo > 0 ? ultimoDisparo : 0;
+    }
+
+    public void setUltimoDisparo(long ultimoDisparo) {
+        this.ultimoDisparo = ultimoDisparo;
+    }
+
+    // Al recompilar por un cambio de labels: el cooldown sigue siempre; si la regla quedó igual,
+    // también el EWMA, la tasa y la racha sostenida
+    public void continuarDe(RuleEvaluator anterior) {
+        ultimoDisparo = anterior.ultimoDisparo;
+        if (!regla.equals(anterior.regla)) return;
+        ewma = anterior.ewma;
+        previo = anterior.previo;
+        tPrevio = anterior.tPrevio;
+        desde = anterior.desde;
+        ultimoValor = anterior.ultimoValor;
+    }
+
+    public int evaluar(double valor, long ahora) {
+        if (Double.isNaN(valor)) return NADA;
+
+        double x;
+        switch (regla.getTipo()) {
+            case RATE:
+                if (tPrevio == 0 || ahora <= tPrevio) {
+                    previo = valor;
+                    tPrevio = ahora;
+                    return NADA;
+                }
+                double tasa = (valor - previo) * 1000 / (ahora - tPrevio);
+                previo = valor;
+                tPrevio = ahora;
+                x = suavizar(tasa);
+                break;
+            case SUSTAINED:
+                x = suavizar(valor);
+                if (x <= regla.getUmbral()) {
+                    desde = 0;
+                } else {
+                    if (desde == 0) desde = ahora;
+                    // todavía no se sostuvo lo suficiente
+                    if (ahora - desde < regla.getVentanaMs()) {
+                        ultimoValor = x;
+                        return CERCA;
+                    }
+                }
+                break;
+            default:
+                x = suavizar(valor);
+        }
+
+        ultimoValor = x;
+        if (x <= regla.getUmbral()) {
+            return x > regla.getUmbral() * 0.8 ? CERCA : NADA;
+        }
+        if (ahora - ultimoDisparo < regla.getCooldownMs()) return CERCA;
+        ultimoDisparo = ahora;
+        return DISPARO;
+    }
+
+    private double suavizar(double valor) {
+        ewma = Double.isNaN(ewma) ? valor : ewma + regla.getAlpha() * (valor - ewma);
+        return ewma;
+    }
+}
@@ -0,0 +1,214 @@
+package com.farias.sentinel.model;
+
+import lombok.Data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Lo que Sentinel sabe y Docker no: reintentos por host:nombre (quién está bloqueado) y, por contenedor,
+// los cooldowns de los avisos y las caídas recientes del crash-loop. Todo lo demás se reconstruye listando.
+// Formato binario propio: enteros de largo variable, tiempos relativos al momento de la foto, contenedores
+// agrupados por host para no repetir el nombre y un CRC32 al final para descartar archivos cortados.
+public class RuntimeSnapshot {
+
+    private static final int MAGIA = 0x534E5453; // "SNTS"
+    private static final int VERSION = 1;
+
+    private static final int CON_CAIDAS = 1;
+    private static final int CON_FUGA = 2;
+    private static final int CON_LOGS = 4;
+    private static final int CON_REGLAS = 8;
+
+    private final long tomado; // epoch millis
+    private final Map<String, Integer> reintentos = new HashMap<>(); // host:nombre -> intentos
+    private final Map<String, Map<String, Contenedor>> porHost = new LinkedHashMap<>(); // host -> id -> estado
+
+    public RuntimeSnapshot(long tomado) {
+        this.tomado = tomado;
+    }
+
+    public long getTomado() {
+        return tomado;
+    }
+
+    public Map<String, Integer> getReintentos() {
+        return reintentos;
+    }
+
+    public Map<String, Map<String, Contenedor>> getPorHost() {
+        return porHost;
+    }
+
+    public void agregar(String host, String id, Contenedor contenedor) {
+        porHost.computeIfAbsent(host, h -> new LinkedHashMap<>()).put(id, contenedor);
+    }
+
+    // Estado guardado de un contenedor; 0 (o null) es "nada que recordar"
+    @Data
+    public static class Contenedor {
+        private long[] caidas; // de la más vieja a la más nueva
+        private long caidasSilenciadasHasta;
+        private long avisoFuga;
+        private long avisoLogs;
+        private Map<String, Long> disparos; // nombre de la regla -> último disparo
+
+        public boolean isVacio() {
+            return (caidas == null || caidas.length == 0) && caidasSilenciadasHasta == 0
+                    && avisoFuga == 0 && avisoLogs == 0 && (disparos == null || disparos.isEmpty());
+        }
+    }
+
+    public void escribir(OutputStream salida) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIA);
+        escribirVarLong(out, VERSION);
+        out.writeLong(tomado);
+
+        escribirVarLong(out, reintentos.size());
+        for (Map.Entry<String, Integer> entry : reintentos.entrySet()) {
+            out.writeUTF(entry.getKey());
+            escribirVarLong(out, entry.getValue());
+        }
+
+        escribirVarLong(out, porHost.size());
+        for (Map.Entry<String, Map<String, Contenedor>> host : porHost.entrySet()) {
+            out.writeUTF(host.getKey());
+            escribirVarLong(out, host.getValue().size());
+            for (Map.Entry<String, Contenedor> entry : host.getValue().entrySet()) {
+                out.writeUTF(entry.getKey());
+                escribirContenedor(out, entry.getValue());
+            }
+        }
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.toByteArray());
+        out.writeInt((int) crc.getValue());
+        buffer.writeTo(salida);
+    }
+
+    public static RuntimeSnapshot leer(InputStream entrada) throws IOException {
+        byte[] bytes = entrada.readAllBytes();
+        if (bytes.length < 4) throw new IOException("Snapshot vacío o cortado");
+        int largo = bytes.length - 4;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, largo);
+        int esperado = (bytes[largo] & 0xFF) << 24 | (bytes[largo + 1] & 0xFF) << 16
+                | (bytes[largo + 2] & 0xFF) << 8 | (bytes[largo + 3] & 0xFF);
+        if (esperado != (int) crc.getValue()) throw new IOException("Snapshot corrupto (CRC)");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, largo));
+        if (in.readInt() != MAGIA) throw new IOException("No es un snapshot de Sentinel");
+        long version = leerVarLong(in);
+        if (version != VERSION) throw new IOException("Versión de snapshot desconocida: " + version);
+        RuntimeSnapshot snapshot = new RuntimeSnapshot(in.readLong());
+
+        long reintentos = leerVarLong(in);
+        for (long i = 0; i < reintentos; i++) {
+            snapshot.reintentos.put(in.readUTF(), (int) leerVarLong(in));
+        }
+
+        long hosts = leerVarLong(in);
+        for (long h = 0; h < hosts; h++) {
+            String host = in.readUTF();
+            long contenedores = leerVarLong(in);
+            for (long c = 0; c < contenedores; c++) {
+                String id = in.readUTF();
+                snapshot.agregar(host, id, leerContenedor(in, snapshot.tomado));
+            }
+        }
+        return snapshot;
+    }
+
+    // Los tiempos van como distancia al momento de la foto: casi siempre entran en 2 o 3 bytes en vez de 8
+    private void escribirContenedor(DataOutputStream out, Contenedor contenedor) throws IOException {
+        boolean caidas = contenedor.caidas != null && contenedor.caidas.length > 0;
+        boolean reglas = contenedor.disparos != null && !contenedor.disparos.isEmpty();
+        int banderas = (caidas || contenedor.caidasSilenciadasHasta != 0 ? CON_CAIDAS : 0)
+                | (contenedor.avisoFuga != 0 ? CON_FUGA : 0)
+                | (contenedor.avisoLogs != 0 ? CON_LOGS : 0)
+                | (reglas ? CON_REGLAS : 0);
+        out.writeByte(banderas);
+        if ((banderas & CON_CAIDAS) != 0) {
+            long[] tiempos = caidas ? contenedor.caidas : new long[0];
+            escribirVarLong(out, tiempos.length);
+            for (long tiempo : tiempos) escribirTiempo(out, tiempo);
+            escribirTiempo(out, contenedor.caidasSilenciadasHasta);
+        }
+        if ((banderas & CON_FUGA) != 0) escribirTiempo(out, contenedor.avisoFuga);
+        if ((banderas & CON_LOGS) != 0) escribirTiempo(out, contenedor.avisoLogs);
+        if (reglas) {
+            escribirVarLong(out, contenedor.disparos.size());
+            for (Map.Entry<String, Long> entry : contenedor.disparos.entrySet()) {
+                out.writeUTF(entry.getKey());
+                escribirTiempo(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Contenedor leerContenedor(DataInputStream in, long tomado) throws IOException {
+        Contenedor contenedor = new Contenedor();
+        int banderas = in.readUnsignedByte();
+        if ((banderas & CON_CAIDAS) != 0) {
+            long[] caidas = new long[(int) leerVarLong(in)];
+            for (int i = 0; i < caidas.length; i++) caidas[i] = leerTiempo(in, tomado);
+            contenedor.caidas = caidas;
+            contenedor.caidasSilenciadasHasta = leerTiempo(in, tomado);
+        }
+        if ((banderas & CON_FUGA) != 0) contenedor.avisoFuga = leerTiempo(in, tomado);
+        if ((banderas & CON_LOGS) != 0) contenedor.avisoLogs = leerTiempo(in, tomado);
+        if ((banderas & CON_REGLAS) != 0) {
+            long cantidad = leerVarLong(in);
+            Map<String, Long> disparos = new HashMap<>();
+            for (long i = 0; i < cantidad; i++) disparos.put(in.readUTF(), leerTiempo(in, tomado));
+            contenedor.disparos = disparos;
+        }
+        return contenedor;
+    }
+
+    // 0 se guarda como 0; el resto como la diferencia con la foto en zigzag (puede estar en el futuro)
+    private void escribirTiempo(DataOutputStream out, long tiempo) throws IOException {
+        if (tiempo == 0) {
+            escribirVarLong(out, 0);
+            return;
+        }
+        long delta = tomado - tiempo;
+        escribirVarLong(out, ((delta << 1) ^ (delta >> 63)) + 1);
+    }
+
+    private static long leerTiempo(DataInputStream in, long tomado) throws IOException {
+        long valor = leerVarLong(in);
+        if (valor == 0) return 0;
+        valor--;
+        long delta = (valor >>> 1) ^ -(valor & 1);
+        return tomado - delta;
+    }
+
+    private static void escribirVarLong(DataOutputStream out, long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            out.writeByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        out.writeByte((int) valor);
+    }
+
+    private static long leerVarLong(DataInputStream in) throws IOException {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            int b = in.readUnsignedByte();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) return valor;
+        }
+        throw new IOException("Entero mal formado en el snapshot");
+    }
+}
@@ -0,0 +1,31 @@
+package com.farias.sentinel.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Notificación que no se pudo entregar a Slack; se reintenta periódicamente hasta que sale
+@Entity
+@Data
+@Table(name = "slack_outbox")
+public class SlackOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 40000)
+    private String texto;
+
+    private LocalDateTime creado;
+    private Integer intentos = 0;
+
+    @Column(length = 500)
+    private String ultimoError;
+}
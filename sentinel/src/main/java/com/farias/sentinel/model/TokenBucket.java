@@ -0,0 +1,36 @@
+package com.farias.sentinel.model;
+
+// Token bucket no bloqueante: se recarga a "porSegundo" tokens por segundo hasta "capacidad"
+public class TokenBucket {
+
+    private final double capacidad;
+    private final double porNano;
+    private double tokens;
+    private long ultimaRecarga; // System.nanoTime()
+
+    public TokenBucket(double porSegundo, int capacidad) {
+        this.capacidad = capacidad;
+        this.porNano = porSegundo / 1_000_000_000d;
+        this.tokens = capacidad;
+        this.ultimaRecarga = System.nanoTime();
+    }
+
+    public synchronized boolean intentarConsumir() {
+        recargar();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    // Cuánto falta para que haya un token disponible (0 si ya hay)
+    public synchronized long esperaNanos() {
+        recargar();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / porNano);
+    }
+
+    private void recargar() {
+        long ahora = System.nanoTime();
+        tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) * porNano);
+        ultimaRecarga = ahora;
+    }
+}
@@ -0,0 +1,65 @@
+package com.farias.sentinel.model;
+
+import com.farias.sentinel.dto.ContainerStatusDTO;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Estado en memoria de un contenedor conocido por Sentinel (tabla de estado).
+// Todo lo derivado (nombre limpio, política, reglas, reintentos, métricas) se calcula cuando cambia lo que
+// lista Docker, no en cada tick; se descarta entero cuando el contenedor desaparece.
+@Data
+public class TrackedContainer {
+
+    private final String id;
+    private final String host; // nombre del daemon en DockerHostRegistry
+    private final String clave; // host:id, el id de Docker solo es único dentro de su daemon
+    private volatile String nombre;
+    private volatile String nombreCrudo; // tal cual lo lista Docker ("/web"), para detectar cambios sin recalcular
+    private volatile ContainerState estado;
+    private volatile String health; // healthy, unhealthy, starting o null si no tiene healthcheck
+    private volatile HealthProbe sonda; // sonda activa propia, solo si tiene el label sentinel.probe
+    private volatile long enfermoDesde; // epoch millis desde que está unhealthy sin cortar, 0 si no lo está
+    private volatile Map<String, String> labels;
+    private volatile boolean protegido;
+    private volatile long runningSince; // epoch millis del ultimo start, 0 si no esta corriendo
+    private volatile long ultimaPasada; // número del último listado del host que lo incluyó
+    private volatile RecoveryPolicy politica; // parseada de los labels
+    private volatile RuleEvaluator[] reglas; // reglas de alerta compiladas para este contenedor
+    private volatile AtomicInteger reintentos; // compartido por host:nombre, ver ContainerService
+    private volatile ContainerMetrics metricas; // última muestra, la misma instancia que guarda MetricsStore
+    private volatile LeakDetector fuga; // tendencia de memoria, se crea con la primera muestra
+    private volatile CrashLoopDetector caidas;
+    private volatile LogTail logs; // últimos bytes de sus logs, solo si LogTailService lo sigue
+
+    // último DTO publicado y la muestra con la que se armó: si nada cambió se reutiliza tal cual
+    private volatile ContainerStatusDTO ultimoEstado;
+    private volatile long muestraPublicada;
+
+    public static String clave(String host, String id) {
+        return host + ":" + id;
+    }
+
+    public boolean estaCorriendo() {
+        return estado == ContainerState.RUNNING;
+    }
+
+    // healthcheck de Docker en unhealthy o la sonda propia fallando
+    public boolean estaEnfermo() {
+        HealthProbe probe = sonda;
+        return "unhealthy".equals(health) || (probe != null && probe.isFallando());
+    }
+
+    // Corriendo y sin ninguna señal en contra: "starting" todavía no cuenta como recuperado
+    public boolean estaSano() {
+        HealthProbe probe = sonda;
+        return estaCorriendo() && (health == null || "healthy".equals(health))
+                && (probe == null || probe.getFallosSeguidos() == 0);
+    }
+
+    public int getIntentos() {
+        AtomicInteger contador = reintentos;
+        return contador != null ? contador.get() : 0;
+    }
+}
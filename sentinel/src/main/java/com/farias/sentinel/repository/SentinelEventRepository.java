@@ -17,7 +17,7 @@ public interface SentinelEventRepository extends JpaRepository<ContainerEvent, L
     @Query("SELECT e.eventType, COUNT(e) FROM ContainerEvent e GROUP BY e.eventType")
     List<Object[]> countEventsByType();
 
-    // Ranking de los 5 contenedores con más fallas
-    @Query("SELECT e.containerName, COUNT(e) FROM ContainerEvent e WHERE e.eventType = 'FAILURE' OR e.eventType = 'CRITICAL_ERROR' GROUP BY e.containerName ORDER BY COUNT(e) DESC")
+    // Ranking de los contenedores con más fallas (el mismo nombre en dos hosts son dos contenedores)
+    @Query("SELECT e.host, e.containerName, COUNT(e) FROM ContainerEvent e WHERE e.eventType = 'FAILURE' OR e.eventType = 'CRITICAL_ERROR' GROUP BY e.host, e.containerName ORDER BY COUNT(e) DESC")
     List<Object[]> findTopContainerFailures();
 }
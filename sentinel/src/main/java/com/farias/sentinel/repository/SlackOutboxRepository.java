@@ -0,0 +1,14 @@
+package com.farias.sentinel.repository;
+
+import com.farias.sentinel.model.SlackOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SlackOutboxRepository extends JpaRepository<SlackOutboxMessage, Long> {
+
+    // los más viejos primero, de a poco para no gastar todo el rate limit en el outbox
+    List<SlackOutboxMessage> findTop10ByOrderByIdAsc();
+}
@@ -0,0 +1,166 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.config.AlertRulesProperties;
+import com.farias.sentinel.model.AlertRule;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.RuleEvaluator;
+import com.farias.sentinel.model.TrackedContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Reglas de alerta proactiva. Las definiciones (config + labels) se compilan una sola vez por contenedor,
+// cuando cambian sus labels; por muestra solo se recorre un array de evaluadores con estado primitivo.
+@Service
+public class AlertRuleEngine {
+
+    private static final String PREFIJO_LABEL = "sentinel.alert.";
+
+    private final Map<String, AlertRulesProperties.Regla> reglasBase = new LinkedHashMap<>();
+    private final RuleEvaluator[] sinLabels;
+
+    public AlertRuleEngine(AlertRulesProperties properties) {
+        if (properties.getRules().isEmpty()) {
+            // la regla de siempre: más de 500MB, un aviso cada 30 minutos
+            AlertRulesProperties.Regla memoriaAlta = new AlertRulesProperties.Regla();
+            memoriaAlta.setName("memoria-alta");
+            memoriaAlta.setThreshold(500);
+            reglasBase.put(memoriaAlta.getName(), memoriaAlta);
+        }
+        for (AlertRulesProperties.Regla regla : properties.getRules()) {
+            reglasBase.put(regla.getName(), regla);
+        }
+        sinLabels = compilar(null);
+    }
+
+    // Labels sentinel.alert.<nombre>.<propiedad> pisan la regla del mismo nombre o definen una nueva;
+    // sentinel.alert.<nombre>.enabled=false la apaga para ese contenedor
+    public RuleEvaluator[] compilar(Map<String, String> labels) {
+        if ((labels == null || !tieneLabelsDeAlerta(labels)) && sinLabels != null) {
+            return nuevosEvaluadores(sinLabels);
+        }
+
+        Map<String, Map<String, String>> propiedades = new LinkedHashMap<>();
+        for (AlertRulesProperties.Regla regla : reglasBase.values()) {
+            propiedades.put(regla.getName(), aMapa(regla));
+        }
+        if (labels != null) {
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                String clave = label.getKey();
+                int punto = clave.indexOf('.', PREFIJO_LABEL.length());
+                if (!clave.startsWith(PREFIJO_LABEL) || punto < 0) continue;
+                String nombre = clave.substring(PREFIJO_LABEL.length(), punto);
+                propiedades.computeIfAbsent(nombre, n -> new LinkedHashMap<>())
+                        .put(clave.substring(punto + 1), label.getValue());
+            }
+        }
+
+        List<RuleEvaluator> evaluadores = new ArrayList<>(propiedades.size());
+        for (Map.Entry<String, Map<String, String>> entry : propiedades.entrySet()) {
+            AlertRule regla = parsear(entry.getKey(), entry.getValue());
+            if (regla != null) evaluadores.add(new RuleEvaluator(regla));
+        }
+        return evaluadores.toArray(new RuleEvaluator[0]);
+    }
+
+    // Como compilar, pero las reglas con el mismo nombre heredan el estado de los evaluadores anteriores:
+    // un cambio de labels que no las toca no les reinicia el cooldown ni la ventana sostenida
+    public RuleEvaluator[] recompilar(Map<String, String> labels, RuleEvaluator[] anteriores) {
+        RuleEvaluator[] evaluadores = compilar(labels);
+        if (anteriores == null) return evaluadores;
+        synchronized (anteriores) {
+            for (RuleEvaluator evaluador : evaluadores) {
+                for (RuleEvaluator anterior : anteriores) {
+                    if (anterior.getRegla().getNombre().equals(evaluador.getRegla().getNombre())) {
+                        evaluador.continuarDe(anterior);
+                        break;
+                    }
+                }
+            }
+        }
+        return evaluadores;
+    }
+
+    // Devuelve true si alguna regla está cerca de su umbral; las que disparan se pasan a alDisparar
+    public boolean evaluar(TrackedContainer tracked, ContainerMetrics metrics,
+                           BiConsumer<TrackedContainer, RuleEvaluator> alDisparar) {
+        RuleEvaluator[] evaluadores = tracked.getReglas();
+        if (evaluadores == null || evaluadores.length == 0) return false;
+
+        // cada métrica se calcula una vez por muestra, no una vez por regla
+        double cpu = metrics.getCpuFraction() * 100;
+        double memoria = (double) metrics.getMemoryBytes() / MetricsStore.MB;
+        double memoriaPct = metrics.getMemoryLimit() > 0
+                ? metrics.getMemoryBytes() * 100d / metrics.getMemoryLimit() : Double.NaN;
+        long ahora = metrics.getUltimaMuestra();
+
+        boolean cerca = false;
+        // las muestras de un mismo contenedor no se solapan, pero el lock sin contención es casi gratis
+        synchronized (evaluadores) {
+            for (RuleEvaluator evaluador : evaluadores) {
+                double valor;
+                switch (evaluador.getRegla().getMetrica()) {
+                    case CPU: valor = cpu; break;
+                    case MEMORY_PCT: valor = memoriaPct; break;
+                    default: valor = memoria;
+                }
+                int resultado = evaluador.evaluar(valor, ahora);
+                if (resultado == RuleEvaluator.DISPARO) alDisparar.accept(tracked, evaluador);
+                cerca |= resultado != RuleEvaluator.NADA;
+            }
+        }
+        return cerca;
+    }
+
+    private static boolean tieneLabelsDeAlerta(Map<String, String> labels) {
+        for (String clave : labels.keySet()) {
+            if (clave.startsWith(PREFIJO_LABEL)) return true;
+        }
+        return false;
+    }
+
+    private static RuleEvaluator[] nuevosEvaluadores(RuleEvaluator[] plantilla) {
+        RuleEvaluator[] evaluadores = new RuleEvaluator[plantilla.length];
+        for (int i = 0; i < plantilla.length; i++) {
+            evaluadores[i] = new RuleEvaluator(plantilla[i].getRegla());
+        }
+        return evaluadores;
+    }
+
+    private static Map<String, String> aMapa(AlertRulesProperties.Regla regla) {
+        Map<String, String> mapa = new LinkedHashMap<>();
+        mapa.put("metric", regla.getMetric());
+        mapa.put("type", regla.getType());
+        mapa.put("threshold", String.valueOf(regla.getThreshold()));
+        mapa.put("window-seconds", String.valueOf(regla.getWindowSeconds()));
+        mapa.put("alpha", String.valueOf(regla.getAlpha()));
+        mapa.put("cooldown-seconds", String.valueOf(regla.getCooldownSeconds()));
+        return mapa;
+    }
+
+    private static AlertRule parsear(String nombre, Map<String, String> props) {
+        if ("false".equalsIgnoreCase(props.get("enabled"))) return null;
+        if (props.get("threshold") == null) {
+            System.err.println("Regla de alerta " + nombre + " sin threshold, se ignora");
+            return null;
+        }
+        try {
+            AlertRule.Metrica metrica = AlertRule.Metrica.valueOf(
+                    props.getOrDefault("metric", "memory").trim().toUpperCase().replace('-', '_'));
+            AlertRule.Tipo tipo = AlertRule.Tipo.valueOf(props.getOrDefault("type", "threshold").trim().toUpperCase());
+            double alpha = Double.parseDouble(props.getOrDefault("alpha", "1"));
+            return new AlertRule(nombre, metrica, tipo,
+                    Double.parseDouble(props.get("threshold")),
+                    Long.parseLong(props.getOrDefault("window-seconds", "0").trim()) * 1000,
+                    alpha > 0 && alpha <= 1 ? alpha : 1,
+                    Long.parseLong(props.getOrDefault("cooldown-seconds", "1800").trim()) * 1000);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Regla de alerta " + nombre + " inválida: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,49 +1,203 @@
 package com.farias.sentinel.service;
 
+import com.farias.sentinel.dto.EventFilter;
 import com.farias.sentinel.model.ContainerEvent;
 import com.farias.sentinel.repository.SentinelEventRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 @Service
 public class AnalyticsService {
 
+    private static final int TOP_K = 5;
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
     private final SentinelEventRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Contadores en memoria: se cargan de la DB al arrancar y despues se suman los eventos que se van guardando
+    private final Map<String, LongAdder> eventosPorTipo = new ConcurrentHashMap<>();
+    private final Map<Contenedor, LongAdder> fallasPorContenedor = new ConcurrentHashMap<>();
+    private final AtomicLong versionFallas = new AtomicLong();
+    private volatile List<Map<String, Object>> topCache = List.of();
+    private volatile long versionTop = -1; // versionFallas con la que se calculo topCache
 
-    public AnalyticsService(SentinelEventRepository repository) {
+    public AnalyticsService(SentinelEventRepository repository, JdbcTemplate jdbcTemplate) {
         this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public synchronized void reconstruir() {
+        eventosPorTipo.clear();
+        fallasPorContenedor.clear();
+
+        for (Object[] row : repository.countEventsByType()) {
+            eventosPorTipo.computeIfAbsent((String) row[0], k -> new LongAdder()).add((Long) row[1]);
+        }
+        for (Object[] row : repository.findTopContainerFailures()) {
+            if (row[1] == null) continue;
+            fallasPorContenedor.computeIfAbsent(new Contenedor((String) row[0], (String) row[1]), k -> new LongAdder())
+                    .add((Long) row[2]);
+        }
+        versionFallas.incrementAndGet();
+    }
+
+    // El escritor de SentinelEventService guarda un lote y se cuentan solo los eventos que llegaron a la DB.
+    // Comparte el lock con reconstruir: si no, un lote ya insertado pero todavía sin contar se contaría dos veces
+    public synchronized void contarGuardados(Supplier<List<ContainerEvent>> guardar) {
+        for (ContainerEvent evento : guardar.get()) {
+            registrar(evento.getEventType(), evento.getHost(), evento.getContainerName());
+        }
+    }
+
+    private void registrar(String tipo, String host, String nombre) {
+        if (tipo == null) return;
+        eventosPorTipo.computeIfAbsent(tipo, k -> new LongAdder()).increment();
+
+        if ((tipo.equals("FAILURE") || tipo.equals("CRITICAL_ERROR")) && nombre != null) {
+            fallasPorContenedor.computeIfAbsent(new Contenedor(host, nombre), k -> new LongAdder()).increment();
+            versionFallas.incrementAndGet();
+        }
     }
 
     public Map<String, Long> getGlobalStats() {
-        List<Object[]> results = repository.countEventsByType();
-        return results.stream().collect(Collectors.toMap(
-                row -> (String) row[0],
-                row -> (Long) row[1]
-        ));
+        // hay un contador por tipo de evento (un puñado), no hace falta ir a la DB
+        Map<String, Long> stats = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : eventosPorTipo.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().sum());
+        }
+        return stats;
     }
 
     public List<Map<String, Object>> getTopOffenders() {
-        return repository.findTopContainerFailures().stream().limit(5).map(row -> {
+        // solo se recalcula si hubo fallas nuevas desde la ultima consulta
+        long version = versionFallas.get();
+        if (version != versionTop) {
+            topCache = calcularTop();
+            versionTop = version;
+        }
+        return topCache;
+    }
+
+    // Heap de tamaño K: nunca ordenamos la lista completa de contenedores
+    private List<Map<String, Object>> calcularTop() {
+        PriorityQueue<Map.Entry<Contenedor, Long>> heap = new PriorityQueue<>(TOP_K + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Contenedor, LongAdder> entry : fallasPorContenedor.entrySet()) {
+            heap.offer(Map.entry(entry.getKey(), entry.getValue().sum()));
+            if (heap.size() > TOP_K) heap.poll();
+        }
+
+        List<Map<String, Object>> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<Contenedor, Long> entry = heap.poll();
             Map<String, Object> map = new HashMap<>();
-            map.put("name", row[0]);
-            map.put("count", row[1]);
-            return map;
-        }).collect(Collectors.toList());
-    }
-
-    public void exportEventsToCSV(java.io.PrintWriter writer) {
-        writer.println("Timestamp,Container,Event,Details");
-        List<ContainerEvent> events = repository.findAll(); // O usa un orden específico
-        for (ContainerEvent event : events) {
-            writer.printf("%s,%s,%s,%s%n",
-                    event.getTimestamp(),
-                    event.getContainerName(),
-                    event.getEventType(),
-                    event.getDetails());
+            map.put("name", entry.getKey().nombre());
+            map.put("host", entry.getKey().host());
+            map.put("count", entry.getValue());
+            top.add(0, map);
+        }
+        return Collections.unmodifiableList(top);
+    }
+
+    // Exporta con paginación por id (keyset): memoria constante y el primer byte sale enseguida
+    public void exportEventsToCSV(Writer writer, EventFilter filtro) throws IOException {
+        writer.write("Timestamp,Container,Event,Details,Host\n");
+        writer.flush();
+
+        StringBuilder where = new StringBuilder(" WHERE id > ?");
+        List<Object> params = new ArrayList<>();
+        params.add(0L);
+        if (filtro.getContainer() != null) {
+            where.append(" AND container_name = ?");
+            params.add(filtro.getContainer());
+        }
+        if (filtro.getType() != null) {
+            where.append(" AND event_type = ?");
+            params.add(filtro.getType());
+        }
+        if (filtro.getHost() != null) {
+            where.append(" AND host = ?");
+            params.add(filtro.getHost());
+        }
+        if (filtro.getFrom() != null) {
+            where.append(" AND timestamp >= ?");
+            params.add(Timestamp.valueOf(filtro.getFrom()));
         }
+        if (filtro.getTo() != null) {
+            where.append(" AND timestamp < ?");
+            params.add(Timestamp.valueOf(filtro.getTo()));
+        }
+        params.add(EXPORT_PAGE_SIZE);
+        String sql = "SELECT id, timestamp, container_name, event_type, details, host FROM container_event"
+                + where + " ORDER BY id LIMIT ?";
+
+        long[] ultimoId = {0};
+        int[] leidos = new int[1];
+        do {
+            params.set(0, ultimoId[0]);
+            leidos[0] = 0;
+            try {
+                jdbcTemplate.query(sql, rs -> {
+                    ultimoId[0] = rs.getLong(1);
+                    leidos[0]++;
+                    try {
+                        Timestamp timestamp = rs.getTimestamp(2);
+                        escribirCampo(writer, timestamp != null ? timestamp.toLocalDateTime().toString() : null);
+                        writer.write(',');
+                        escribirCampo(writer, rs.getString(3));
+                        writer.write(',');
+                        escribirCampo(writer, rs.getString(4));
+                        writer.write(',');
+                        escribirCampo(writer, rs.getString(5));
+                        writer.write(',');
+                        escribirCampo(writer, rs.getString(6));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, params.toArray());
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // el cliente cortó la descarga
+            }
+            writer.flush();
+        } while (leidos[0] == EXPORT_PAGE_SIZE);
+    }
+
+    // CSV (RFC 4180): comillas si el campo tiene coma, comillas o saltos de línea
+    private static void escribirCampo(Writer writer, String valor) throws IOException {
+        if (valor == null) return;
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            writer.write(valor);
+            return;
+        }
+        writer.write('"');
+        writer.write(valor.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // host + nombre: el mismo nombre en dos daemons son dos contenedores distintos
+    private record Contenedor(String host, String nombre) {
     }
 }
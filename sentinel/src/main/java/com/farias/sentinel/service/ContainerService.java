@@ -1,201 +1,615 @@
 package com.farias.sentinel.service;
 
 import com.farias.sentinel.dto.ContainerStatusDTO;
-import com.github.dockerjava.api.DockerClient;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.ContainerState;
+import com.farias.sentinel.model.DockerHost;
+import com.farias.sentinel.model.RecoveryPolicy;
+import com.farias.sentinel.model.RuleEvaluator;
+import com.farias.sentinel.model.TrackedContainer;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
 import com.github.dockerjava.api.model.Statistics;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 @Service
 public class ContainerService {
 
-    private final DockerClient dockerClient;
-    private final SimpMessagingTemplate messagingTemplate;
+    // Atributos de los eventos de contenedor que no son labels
+    private static final Set<String> ATRIBUTOS_DE_EVENTO = Set.of("name", "image", "exitCode", "signal",
+            "execDuration", "execID");
+
+    private final DockerHostRegistry hostRegistry;
+    private final StatusPublisher statusPublisher;
     private final SlackService slackService;
     private final SentinelEventService sentinelEventService;
-    private final Map<String, LocalDateTime> alertasEnviadas = new ConcurrentHashMap<>();
-
-    private final Map<String, Integer> retryTracker = new ConcurrentHashMap<>();
-    private final Map<String, String[]> metricsCache = new ConcurrentHashMap<>(); // Guarda [CPU, RAM]
+    private final MetricsStore metricsStore;
+    private final StatsCollector statsCollector;
+    private final MetricsHistoryService metricsHistoryService;
+    private final RecoveryExecutor recoveryExecutor;
+    private final AlertRuleEngine alertRuleEngine;
+    private final PredictionService predictionService;
+    private final LogTailService logTailService;
+    private final SnapshotService snapshotService;
+    private final StreamPacer streamPacer;
+    private final HealthCheckService healthCheckService;
+    private final BiConsumer<TrackedContainer, RuleEvaluator> alDispararRegla = this::dispararAlertaProactiva;
+
+    // Todas las tablas van por clave host:id, un id solo es único dentro de su daemon
     private final Map<String, Closeable> activeStreams = new ConcurrentHashMap<>(); // Guarda las conexiones de Stats
-    private static final int MAX_RETRIES = 3;
-
-    public ContainerService(DockerClient dockerClient,
-                            SimpMessagingTemplate messagingTemplate,
+    private final Map<String, TrackedContainer> containerTable = new ConcurrentHashMap<>(); // Estado conocido
+    // el mismo estado indexado host -> id, para que el listado de un host no arme claves ni recorra a los demás
+    private final Map<String, Map<String, TrackedContainer>> porHost = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> pasadas = new ConcurrentHashMap<>(); // listados por host
+    // Los reintentos van por host:nombre para sobrevivir a un contenedor recreado con otro id;
+    // cada TrackedContainer guarda la referencia a su contador, así el tick no arma la clave
+    private final Map<String, AtomicInteger> reintentosPorNombre = new ConcurrentHashMap<>();
+
+    // Un listado por host en paralelo: un daemon lento o caído no atrasa el tick de los demás
+    private final ExecutorService hostPool;
+    private final Set<String> hostsEnCurso = ConcurrentHashMap.newKeySet();
+
+    // Métricas propias (/actuator/prometheus)
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timersPasada = new ConcurrentHashMap<>();
+    private final Counter muestras;
+
+    // "polling" lista todos los contenedores en cada tick, "events" usa el stream de eventos de Docker
+    @Value("${sentinel.monitor.mode:polling}")
+    private String modo;
+
+    // Segundos que un contenedor debe seguir corriendo para considerar que se recupero
+    @Value("${sentinel.monitor.stable-seconds:30}")
+    private long stableSeconds;
+
+    public ContainerService(DockerHostRegistry hostRegistry,
+                            StatusPublisher statusPublisher,
                             SlackService slackService,
-                            SentinelEventService sentinelEventService) {
-        this.dockerClient = dockerClient;
-        this.messagingTemplate = messagingTemplate;
+                            SentinelEventService sentinelEventService,
+                            MetricsStore metricsStore,
+                            StatsCollector statsCollector,
+                            MetricsHistoryService metricsHistoryService,
+                            RecoveryExecutor recoveryExecutor,
+                            AlertRuleEngine alertRuleEngine,
+                            PredictionService predictionService,
+                            LogTailService logTailService,
+                            SnapshotService snapshotService,
+                            StreamPacer streamPacer,
+                            HealthCheckService healthCheckService,
+                            MeterRegistry meterRegistry,
+                            @Value("${sentinel.docker.host-threads:4}") int hostThreads) {
+        this.hostRegistry = hostRegistry;
+        this.statusPublisher = statusPublisher;
         this.slackService = slackService;
         this.sentinelEventService = sentinelEventService;
+        this.metricsStore = metricsStore;
+        this.statsCollector = statsCollector;
+        this.metricsHistoryService = metricsHistoryService;
+        this.recoveryExecutor = recoveryExecutor;
+        this.alertRuleEngine = alertRuleEngine;
+        this.predictionService = predictionService;
+        this.logTailService = logTailService;
+        this.snapshotService = snapshotService;
+        this.streamPacer = streamPacer;
+        this.healthCheckService = healthCheckService;
+        // los bloqueados siguen bloqueados después de un reinicio de Sentinel
+        snapshotService.getReintentos().forEach((clave, intentos) ->
+                reintentosPorNombre.put(clave, new AtomicInteger(intentos)));
+        this.meterRegistry = meterRegistry;
+        this.muestras = Counter.builder("sentinel.stats.samples")
+                .description("Muestras de stats procesadas").register(meterRegistry);
+        meterRegistry.gauge("sentinel.containers", containerTable, Map::size);
+        meterRegistry.gauge("sentinel.stats.streams", activeStreams, Map::size);
+        this.statsCollector.setProcesador(this::procesarMuestra);
+        AtomicInteger contador = new AtomicInteger();
+        this.hostPool = Executors.newFixedThreadPool(hostThreads, r -> {
+            Thread t = new Thread(r, "sentinel-host-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public boolean isModoEventos() {
+        return "events".equalsIgnoreCase(modo);
     }
 
     @Scheduled(fixedRate = 5000)
     public void monitorearContenedores() {
-        List<Container> containers = dockerClient.listContainersCmd().withShowAll(true).exec();
+        if (isModoEventos()) {
+            // el estado llega por el stream de eventos, aca solo refrescamos el dashboard sin tocar la API
+            publicarTabla();
+            return;
+        }
 
-        for (Container container : containers) {
-            String estado = container.getState();
-            String nombre = container.getNames()[0].replace("/", "");
-            String containerId = container.getId();
+        for (DockerHost host : hostRegistry.getHosts()) {
+            enPoolDeHosts(host, "polling", () -> monitorearHost(host));
+        }
+    }
 
-            // Iniciar streaming de estadísticas si está corriendo y no lo estamos escuchando ya
-            if (estado.equalsIgnoreCase("running") && !activeStreams.containsKey(containerId)) {
-                iniciarStreamingDeMetricas(containerId);
-            }
+    private void monitorearHost(DockerHost host) {
+        // la pasada se numera antes de listar: un contenedor que llega por evento mientras el daemon responde
+        // queda con esta pasada y no se olvida aunque el listado no lo incluya
+        long pasada = pasadas(host.getNombre()).incrementAndGet();
+        List<Container> containers = host.getClient().listContainersCmd().withShowAll(true).exec();
+        long ahora = System.currentTimeMillis();
+        long estable = ahora - stableSeconds * 1000;
 
-            Map<String, String> labels = container.getLabels();
-            boolean esProtegido = labels.containsKey("sentinel.auto-heal") &&
-                    labels.get("sentinel.auto-heal").equals("true");
+        for (Container container : containers) {
+            TrackedContainer tracked = actualizarTabla(host, container, pasada);
+
+            // Iniciar la recolección de estadísticas si está corriendo y no lo estamos escuchando ya
+            if (tracked.estaCorriendo()) {
+                iniciarMetricas(host, tracked);
+                darPorRecuperado(tracked, estable);
+            } else {
+                statsCollector.quitar(tracked.getClave());
+            }
 
-            int intentos = retryTracker.getOrDefault(nombre, 0);
-            boolean estaBloqueado = intentos > MAX_RETRIES;
+            publicarEstado(tracked);
 
-            if (estado.equalsIgnoreCase("running") && intentos > 0) {
-                retryTracker.remove(nombre);
-                estaBloqueado = false;
+            if (tracked.isProtegido() && tracked.getEstado() == ContainerState.EXITED && !estaBloqueado(tracked)) {
+                procesarFalla(tracked);
+            } else {
+                revisarSalud(tracked, ahora);
             }
+        }
+        olvidarAusentes(host, pasada);
+        snapshotService.descartarPendientes(host.getNombre());
+    }
 
-            // Obtener métricas del caché
-            String[] metrics = metricsCache.getOrDefault(containerId, new String[]{"0.00%", "0MB"});
+    // Pasada lenta de reconciliación para el modo eventos: corrige lo que el stream pudo haber perdido
+    @Scheduled(fixedDelayString = "${sentinel.monitor.reconcile-interval-ms:60000}",
+            initialDelayString = "${sentinel.monitor.reconcile-interval-ms:60000}")
+    public void reconciliar() {
+        if (!isModoEventos()) return;
+        for (DockerHost host : hostRegistry.getHosts()) {
+            reconciliar(host);
+        }
+    }
+
+    // También lo usa DockerEventService después de reconectarse al stream de un host
+    public void reconciliar(DockerHost host) {
+        enPoolDeHosts(host, "reconcile", () -> reconciliarHost(host));
+    }
+
+    private void reconciliarHost(DockerHost host) {
+        long pasada = pasadas(host.getNombre()).incrementAndGet();
+        List<Container> containers = host.getClient().listContainersCmd().withShowAll(true).exec();
 
-            messagingTemplate.convertAndSend("/topic/containers",
-                    new ContainerStatusDTO(nombre, estado, containerId, esProtegido, estaBloqueado, metrics[0], metrics[1]));
+        for (Container container : containers) {
+            TrackedContainer tracked = actualizarTabla(host, container, pasada);
 
-            if (esProtegido && estado.equalsIgnoreCase("exited") && !estaBloqueado) {
-                procesarFalla(containerId, nombre);
+            if (tracked.estaCorriendo()) {
+                iniciarMetricas(host, tracked);
+            }
+            if (tracked.getEstado() == ContainerState.EXITED && tracked.isProtegido() && !estaBloqueado(tracked)) {
+                procesarFalla(tracked);
             }
         }
-    }
 
-    private void iniciarStreamingDeMetricas(String containerId) {
-        Closeable stream = dockerClient.statsCmd(containerId).exec(new ResultCallback<Statistics>() {
-            @Override
-            public void onStart(Closeable closeable) {}
+        // contenedores que desaparecieron sin que llegara el evento destroy
+        olvidarAusentes(host, pasada);
+        snapshotService.descartarPendientes(host.getNombre());
+        for (TrackedContainer tracked : delHost(host.getNombre()).values()) {
+            publicarEstado(tracked);
+        }
+    }
 
-            @Override
-            public void onNext(Statistics stats) {
-                System.out.println("Datos recibidos para: " + containerId);
-                String cpu = calcularCpu(stats);
-                String mem = calcularMemoria(stats);
-                metricsCache.put(containerId, new String[]{cpu, mem});
-
-                // --- LÓGICA PROACTIVA ---
-                if (stats.getMemoryStats() != null) {
-                    long usageMB = stats.getMemoryStats().getUsage() / (1024 * 1024);
-
-                    // Si supera los 500MB (Ajusta este valor según tu necesidad)
-                    if (usageMB > 500) {
-                        dispararAlertaProactiva(containerId, usageMB);
-                    }
+    // Como mucho una pasada en curso por host: si la anterior sigue colgada de un daemon lento, se saltea el tick
+    private void enPoolDeHosts(DockerHost host, String tipo, Runnable pasada) {
+        if (!hostsEnCurso.add(host.getNombre())) return;
+        Timer timer = timersPasada.computeIfAbsent(host.getNombre() + "/" + tipo, k -> Timer.builder("sentinel.monitor.tick")
+                .description("Duración de una pasada de listado por host")
+                .tag("host", host.getNombre()).tag("type", tipo)
+                .register(meterRegistry));
+        try {
+            hostPool.execute(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    pasada.run();
+                } catch (Exception e) {
+                    System.err.println("Error consultando el host " + host.getNombre() + ": " + e.getMessage());
+                } finally {
+                    // el host queda libre antes de que la pasada cuente como terminada en el timer
+                    hostsEnCurso.remove(host.getNombre());
+                    timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
                 }
-            }
+            });
+        } catch (RuntimeException e) {
+            hostsEnCurso.remove(host.getNombre());
+            throw e;
+        }
+    }
 
-            @Override
-            public void onError(Throwable throwable) {
-                activeStreams.remove(containerId);
-            }
+    // Punto de entrada de DockerEventService: actualiza la tabla de forma incremental
+    public void procesarEventoDocker(DockerHost host, Event evento) {
+        if (evento.getActor() == null || evento.getAction() == null) return;
 
-            @Override
-            public void onComplete() {
-                activeStreams.remove(containerId);
+        String containerId = evento.getActor().getId();
+        String accion = evento.getAction();
+        Map<String, String> atributos = evento.getActor().getAttributes();
+
+        if (accion.equals("destroy")) {
+            TrackedContainer destruido = delHost(host.getNombre()).get(containerId);
+            if (destruido != null) olvidarContenedor(destruido);
+            return;
+        }
+
+        TrackedContainer tracked = rastrear(host, containerId);
+        if (atributos != null) {
+            // los atributos del actor traen el nombre y todos los labels del contenedor
+            String nombre = atributos.get("name");
+            if (nombre != null && !nombre.equals(tracked.getNombre())) asignarNombre(tracked, nombre);
+            actualizarLabels(tracked, labelsDelEvento(atributos));
+        }
+
+        if (accion.equals("start")) {
+            tracked.setEstado(ContainerState.RUNNING);
+            tracked.setRunningSince(System.currentTimeMillis());
+            predictionService.reiniciarTendencia(tracked);
+            // el healthcheck vuelve a empezar con cada arranque (Docker no manda un health_status para eso)
+            if (tracked.getHealth() != null) tracked.setHealth("starting");
+            iniciarMetricas(host, tracked);
+        } else if (accion.equals("die")) {
+            tracked.setEstado(ContainerState.EXITED);
+            tracked.setRunningSince(0);
+            statsCollector.quitar(tracked.getClave());
+            publicarEstado(tracked);
+            if (tracked.isProtegido() && !estaBloqueado(tracked)) {
+                procesarFalla(tracked);
             }
+            return;
+        } else if (accion.equals("oom")) {
+            sentinelEventService.registrarEvento(host.getNombre(), tracked.getNombre(), containerId, "WARNING",
+                    "El kernel mató el proceso por falta de memoria (OOM).");
+        } else if (accion.startsWith("health_status")) {
+            // la accion llega como "health_status: healthy"
+            tracked.setHealth(accion.substring(accion.indexOf(':') + 1).trim());
+        }
+        publicarEstado(tracked);
+    }
 
-            @Override
-            public void close() throws IOException {
-                activeStreams.remove(containerId);
+    // En el tick solo se comparan valores: lo derivado se recalcula cuando cambia lo que lista Docker
+    private TrackedContainer actualizarTabla(DockerHost host, Container container, long pasada) {
+        TrackedContainer tracked = rastrear(host, container.getId());
+        tracked.setUltimaPasada(pasada);
+
+        ContainerState estado = ContainerState.de(container.getState());
+        if (estado == ContainerState.RUNNING) {
+            if (tracked.getRunningSince() == 0) {
+                tracked.setRunningSince(System.currentTimeMillis());
+                predictionService.reiniciarTendencia(tracked);
             }
+        } else if (tracked.getRunningSince() != 0) {
+            tracked.setRunningSince(0);
+        }
+        tracked.setEstado(estado);
+        String salud = HealthCheckService.saludDeStatus(container.getStatus());
+        if (salud != tracked.getHealth()) tracked.setHealth(salud);
+
+        String nombreCrudo = container.getNames()[0];
+        if (!nombreCrudo.equals(tracked.getNombreCrudo())) {
+            tracked.setNombreCrudo(nombreCrudo);
+            asignarNombre(tracked, nombreCrudo.replace("/", ""));
+        }
+        actualizarLabels(tracked, container.getLabels());
+        return tracked;
+    }
+
+    private TrackedContainer rastrear(DockerHost host, String containerId) {
+        Map<String, TrackedContainer> delHost = delHost(host.getNombre());
+        TrackedContainer tracked = delHost.get(containerId);
+        if (tracked != null) return tracked;
+        return delHost.computeIfAbsent(containerId, id -> {
+            TrackedContainer nuevo = new TrackedContainer(id, host.getNombre(), TrackedContainer.clave(host.getNombre(), id));
+            // si llega por un evento durante un listado que no lo incluyó, no se borra hasta el listado siguiente
+            nuevo.setUltimaPasada(pasadas(host.getNombre()).get());
+            containerTable.put(nuevo.getClave(), nuevo);
+            return nuevo;
         });
-        activeStreams.put(containerId, stream);
     }
 
-    private void dispararAlertaProactiva(String containerId, long usageMB) {
-        // Solo avisar una vez cada 30 minutos por contenedor para no hacer spam
-        LocalDateTime ultimaAlerta = alertasEnviadas.get(containerId);
-        if (ultimaAlerta == null || ultimaAlerta.isBefore(LocalDateTime.now().minusMinutes(30))) {
+    private Map<String, TrackedContainer> delHost(String host) {
+        return porHost.computeIfAbsent(host, h -> new ConcurrentHashMap<>());
+    }
 
-            String nombre = "Contenedor " + containerId.substring(0, 8); // Simplificado
+    private AtomicLong pasadas(String host) {
+        return pasadas.computeIfAbsent(host, h -> new AtomicLong());
+    }
 
-            sentinelEventService.registrarEvento(
-                    nombre, containerId, "WARNING",
-                    "Consumo de RAM elevado: " + usageMB + "MB"
-            );
+    private void asignarNombre(TrackedContainer tracked, String nombre) {
+        String anterior = tracked.getNombre();
+        tracked.setNombre(nombre);
+        tracked.setReintentos(reintentosPorNombre.computeIfAbsent(tracked.getHost() + ":" + nombre,
+                k -> new AtomicInteger()));
+        if (anterior != null) soltarReintentos(tracked.getHost(), anterior);
+    }
 
-            slackService.enviarNotificacion("⚠️ *AVISO PREVENTIVO - SENTINEL*\n" +
-                    "El contenedor `" + nombre + "` está consumiendo mucha memoria: *" + usageMB + "MB*.\n" +
-                    "Por favor, revisa posibles fugas de memoria (Memory Leaks).");
+    // Un contador en cero no guarda nada que recordar: se borra para que los nombres viejos no se acumulen
+    private void soltarReintentos(String host, String nombre) {
+        reintentosPorNombre.computeIfPresent(host + ":" + nombre, (k, contador) -> contador.get() == 0 ? null : contador);
+    }
 
-            alertasEnviadas.put(containerId, LocalDateTime.now());
+    // Los atributos de un evento son los labels más algunos datos del evento (nombre, imagen, exitCode...):
+    // se sacan, si no los labels "cambiarían" con cada start/die y con la reconciliación siguiente
+    private static Map<String, String> labelsDelEvento(Map<String, String> atributos) {
+        boolean hayExtras = false;
+        for (String atributo : ATRIBUTOS_DE_EVENTO) {
+            if (atributos.containsKey(atributo)) {
+                hayExtras = true;
+                break;
+            }
         }
+        if (!hayExtras) return atributos;
+        Map<String, String> labels = new HashMap<>(atributos);
+        labels.keySet().removeAll(ATRIBUTOS_DE_EVENTO);
+        return labels;
     }
 
-    private String calcularCpu(Statistics stats) {
-        try {
-            if (stats.getCpuStats() == null || stats.getPreCpuStats() == null) return "0.00%";
+    private void actualizarLabels(TrackedContainer tracked, Map<String, String> labels) {
+        // la política, las reglas y la protección solo se vuelven a parsear si cambiaron los labels
+        if (tracked.getPolitica() == null || (labels != null && !labels.equals(tracked.getLabels()))) {
+            boolean nuevo = tracked.getPolitica() == null;
+            tracked.setPolitica(recoveryExecutor.politicaPara(labels));
+            tracked.setReglas(alertRuleEngine.recompilar(labels, tracked.getReglas()));
+            tracked.setProtegido(labels != null && "true".equals(labels.get("sentinel.auto-heal")));
+            tracked.setLabels(labels);
+            healthCheckService.configurar(tracked);
+            // cooldowns y caídas recientes que tenía antes de que Sentinel se reiniciara
+            if (nuevo) snapshotService.restaurar(tracked);
+        }
+    }
+
+    private void publicarTabla() {
+        long ahora = System.currentTimeMillis();
+        long estable = ahora - stableSeconds * 1000;
+        for (TrackedContainer tracked : containerTable.values()) {
+            darPorRecuperado(tracked, estable);
+            publicarEstado(tracked);
+            revisarSalud(tracked, ahora);
+        }
+    }
+
+    // Si lleva corriendo (y sano) stable-seconds desde el último reinicio, la recuperación se da por buena.
+    // Un unhealthy (o "starting" después de un reinicio por salud) no cuenta, y uno que se vuelve a caer antes
+    // tampoco: si no el backoff nunca crecería y el anti-loop nunca llegaría a bloquearlo
+    private static void darPorRecuperado(TrackedContainer tracked, long estable) {
+        AtomicInteger reintentos = tracked.getReintentos();
+        if (reintentos != null && reintentos.get() > 0 && tracked.estaSano() && tracked.getRunningSince() < estable) {
+            reintentos.set(0);
+        }
+    }
 
-            // Uso total de CPU del contenedor
-            long cpuDelta = stats.getCpuStats().getCpuUsage().getTotalUsage() -
-                    stats.getPreCpuStats().getCpuUsage().getTotalUsage();
+    // Corriendo pero unhealthy (healthcheck de Docker o sonda propia) durante sentinel.health.unhealthy-seconds:
+    // se trata como una caída, con los mismos reintentos, backoff y anti-loop
+    private void revisarSalud(TrackedContainer tracked, long ahora) {
+        if (!tracked.isProtegido() || estaBloqueado(tracked) || !healthCheckService.debeReiniciar(tracked, ahora)) return;
+        sentinelEventService.registrarEvento(tracked.getHost(), tracked.getNombre(), tracked.getId(), "WARNING",
+                "Unhealthy hace más de " + healthCheckService.getSegundosEnfermo() + "s: "
+                        + HealthCheckService.describir(tracked));
+        procesarFalla(tracked);
+    }
+
+    private void publicarEstado(TrackedContainer tracked) {
+        if (tracked.getNombre() == null || tracked.getEstado() == null) return;
+
+        // Las métricas se guardan numéricas; recién acá se formatean para el dashboard, y solo si algo cambió
+        // (nombre y estado se reemplazan por instancias nuevas solo cuando cambian: alcanza con comparar referencias)
+        ContainerMetrics metrics = tracked.getMetricas();
+        long muestra = metrics != null ? metrics.getUltimaMuestra() : 0;
+        boolean bloqueado = estaBloqueado(tracked);
+        ContainerStatusDTO dto = tracked.getUltimoEstado();
+        if (dto == null || dto.getNombre() != tracked.getNombre() || dto.getEstado() != tracked.getEstado().getValor()
+                || dto.isProtegido() != tracked.isProtegido() || dto.isBlocked() != bloqueado
+                || tracked.getMuestraPublicada() != muestra) {
+            dto = new ContainerStatusDTO(tracked.getNombre(), tracked.getEstado().getValor(),
+                    tracked.getId(), tracked.getHost(), tracked.isProtegido(), bloqueado,
+                    MetricsStore.formatearCpu(metrics), MetricsStore.formatearMemoria(metrics),
+                    MetricsStore.cpuCentesimas(metrics), MetricsStore.memoriaMb(metrics));
+            tracked.setUltimoEstado(dto);
+            tracked.setMuestraPublicada(muestra);
+        }
 
-            // Uso total del sistema
-            long systemDelta = stats.getCpuStats().getSystemCpuUsage() -
-                    stats.getPreCpuStats().getSystemCpuUsage();
+        // el publisher descarta lo que no cambio y lo manda en el proximo lote
+        statusPublisher.publicar(tracked.getClave(), dto);
+    }
 
-            // Número de núcleos (vital para el cálculo correcto)
-            Long onlineCpus = stats.getCpuStats().getOnlineCpus();
-            if (onlineCpus == null) onlineCpus = 1L;
+    private static boolean estaBloqueado(TrackedContainer tracked) {
+        return tracked.getPolitica() != null && tracked.getIntentos() > tracked.getPolitica().getMaxRetries();
+    }
 
-            if (systemDelta > 0 && cpuDelta > 0) {
-                double cpuPct = ((double) cpuDelta / systemDelta) * onlineCpus * 100.0;
-                return String.format("%.2f%%", cpuPct);
+    // Solo se olvidan contenedores del host que se acaba de listar; los de otros hosts no se tocan
+    private void olvidarAusentes(DockerHost host, long pasada) {
+        for (TrackedContainer tracked : delHost(host.getNombre()).values()) {
+            if (tracked.getUltimaPasada() < pasada) {
+                olvidarContenedor(tracked);
             }
-        } catch (Exception e) {
-            System.err.println("Error calculando CPU: " + e.getMessage());
         }
-        return "0.00%";
     }
 
-    private String calcularMemoria(Statistics stats) {
-        try {
-            if (stats.getMemoryStats() == null || stats.getMemoryStats().getUsage() == null) return "0MB";
-            long usage = stats.getMemoryStats().getUsage() / (1024 * 1024);
-            return usage + "MB";
-        } catch (Exception e) {
-            System.err.println("Error calculando Memoria: " + e.getMessage());
+    private void olvidarContenedor(TrackedContainer tracked) {
+        String clave = tracked.getClave();
+        delHost(tracked.getHost()).remove(tracked.getId(), tracked);
+        containerTable.remove(clave);
+        if (tracked.getNombre() != null) soltarReintentos(tracked.getHost(), tracked.getNombre());
+        statusPublisher.eliminar(clave);
+        metricsStore.eliminar(clave);
+        statsCollector.quitar(clave);
+        metricsHistoryService.eliminar(clave);
+        logTailService.dejar(clave);
+        healthCheckService.dejar(clave);
+        streamPacer.quitar(tracked.getHost(), clave);
+        Closeable stream = activeStreams.remove(clave);
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando stream de stats: " + e.getMessage());
+            }
         }
-        return "0MB";
     }
 
-    private void procesarFalla(String containerId, String nombre) {
-        int intentosActuales = retryTracker.getOrDefault(nombre, 0);
+    private void iniciarMetricas(DockerHost host, TrackedContainer tracked) {
+        String clave = tracked.getClave();
+        // en modo poll el collector ya reparte las primeras muestras a lo largo del intervalo
+        if (statsCollector.isActivo()) statsCollector.registrar(clave, host, tracked.getId());
 
-        if (intentosActuales < MAX_RETRIES) {
-            retryTracker.put(nombre, intentosActuales + 1);
+        // la cola de logs sigue el mismo ciclo que las métricas: se abre mientras el contenedor corre.
+        // Los streams se abren de a poco (StreamPacer): al arrancar Sentinel todos los contenedores llegan juntos
+        boolean faltaStats = !statsCollector.isActivo() && !activeStreams.containsKey(clave);
+        if (faltaStats || logTailService.faltaSeguir(host.getNombre(), tracked)) {
+            streamPacer.abrir(host.getNombre(), clave, () -> abrirStreams(host, tracked));
+        }
+    }
 
-            sentinelEventService.registrarEvento(
-                    nombre,
-                    containerId,
-                    "FAILURE",
-                    "Intento de recuperación #" + (intentosActuales + 1) + " de " + MAX_RETRIES
-            );
+    // Puede correr un rato después de encolarse: el contenedor pudo haberse caído u olvidado mientras tanto
+    private void abrirStreams(DockerHost host, TrackedContainer tracked) {
+        if (!tracked.estaCorriendo() || containerTable.get(tracked.getClave()) != tracked) return;
+        logTailService.seguir(host, tracked);
+        if (!statsCollector.isActivo() && !activeStreams.containsKey(tracked.getClave())) {
+            iniciarStreamingDeMetricas(host, tracked.getClave(), tracked.getId());
+        }
+    }
+
+    // Se llama por cada muestra, venga del stream o del StatsCollector
+    private int procesarMuestra(String clave, Statistics stats) {
+        // una muestra en vuelo (o un onNext tardío del stream) de un contenedor ya olvidado no vuelve a crear su estado
+        TrackedContainer tracked = containerTable.get(clave);
+        if (tracked == null) return StatsCollector.NORMAL;
+
+        ContainerMetrics metrics = metricsStore.actualizar(clave, stats);
+        metricsHistoryService.registrar(metrics);
+        if (containerTable.get(clave) != tracked) {
+            // se olvidó mientras guardábamos la muestra: lo que se acaba de crear queda huérfano
+            metricsStore.eliminar(clave);
+            metricsHistoryService.eliminar(clave);
+            return StatsCollector.NORMAL;
+        }
+        muestras.increment();
+        long memoria = metrics.getMemoryBytes();
+
+        // --- LÓGICA PROACTIVA ---
+        // Reglas configurables (umbral, tasa, sostenido, % del límite); las que disparan avisan por Slack
+        if (tracked.getMetricas() != metrics) tracked.setMetricas(metrics);
+        boolean cerca = alertRuleEngine.evaluar(tracked, metrics, alDispararRegla);
+
+        // Tendencia: si la memoria crece en línea recta hacia el límite avisamos (o reiniciamos) antes del OOM
+        if (predictionService.observarMuestra(tracked, metrics)) {
+            reinicioPreventivo(tracked, metrics);
+        }
+
+        // cerca de alguna regla o del límite de memoria: el collector lo muestrea más seguido
+        cerca |= metrics.getMemoryLimit() > 0 && memoria > metrics.getMemoryLimit() * 8 / 10;
+        return cerca ? StatsCollector.CERCA_DEL_UMBRAL : StatsCollector.NORMAL;
+    }
+
+    private void iniciarStreamingDeMetricas(DockerHost host, String clave, String containerId) {
+        ResultCallback.Adapter<Statistics> callback = new ResultCallback.Adapter<>() {
+            @Override
+            public void onNext(Statistics stats) {
+                procesarMuestra(clave, stats);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                activeStreams.remove(clave, this);
+                super.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                activeStreams.remove(clave, this);
+                super.onComplete();
+            }
+        };
+        // lo registramos antes del exec para que un onComplete inmediato no deje una entrada colgada;
+        // si otro hilo ya lo abrió (un listado y un evento a la vez) no se abre otro
+        if (activeStreams.putIfAbsent(clave, callback) != null) return;
+        host.getClient().statsCmd(containerId).exec(callback);
+    }
+
+    // El cooldown lo maneja cada regla (cooldown-seconds, por defecto 30 minutos) para no hacer spam
+    private void dispararAlertaProactiva(TrackedContainer tracked, RuleEvaluator evaluador) {
+        String nombre = tracked.getNombre() != null ? tracked.getNombre()
+                : "Contenedor " + tracked.getId().substring(0, 8);
+        String detalle = evaluador.getRegla().describir(evaluador.getUltimoValor());
+
+        sentinelEventService.registrarEvento(tracked.getHost(), nombre, tracked.getId(), "WARNING", detalle);
 
-            revivirContenedor(containerId, nombre);
+        slackService.enviarNotificacion("⚠️ *AVISO PREVENTIVO - SENTINEL*\n" +
+                "El contenedor `" + nombre + "` (host `" + tracked.getHost() + "`) superó una regla de alerta:\n" +
+                "*" + detalle + "*");
+    }
 
-        } else if (intentosActuales == MAX_RETRIES) {
+    private void procesarFalla(TrackedContainer tracked) {
+        // un solo reinicio en curso (o esperando su backoff) por contenedor
+        String clave = tracked.getClave();
+        if (!recoveryExecutor.reservar(clave)) return;
+        // si algo falla antes de programar el restart (o el pool lo rechaza al apagarse) la reserva se suelta,
+        // si no el contenedor no se volvería a curar nunca
+        boolean programado = false;
+        try {
+            programado = programarRecuperacion(tracked);
+        } finally {
+            if (!programado) recoveryExecutor.liberar(clave);
+        }
+    }
+
+    // Devuelve true si quedó un restart programado (la reserva la suelta RecoveryExecutor al terminar)
+    private boolean programarRecuperacion(TrackedContainer tracked) {
+        predictionService.registrarCaida(tracked);
+
+        String clave = tracked.getClave();
+        String host = tracked.getHost();
+        String containerId = tracked.getId();
+        String nombre = tracked.getNombre();
+        AtomicInteger reintentos = reintentosDe(tracked);
+        RecoveryPolicy politica = tracked.getPolitica() != null
+                ? tracked.getPolitica() : recoveryExecutor.politicaPara(null);
+        int maxRetries = politica.getMaxRetries();
+        int intentosActuales = reintentos.get();
+
+        if (intentosActuales < maxRetries) {
+            reintentos.set(intentosActuales + 1);
+            String detalle = "Intento de recuperación #" + (intentosActuales + 1) + " de " + maxRetries;
+
+            // la captura de logs y el restart corren en el pool de recuperación, nunca en el hilo del monitoreo
+            // ni en el callback de eventos: capturar puede esperar a que el stream de logs termine de entregar
+            long espera = politica.calcularEspera(intentosActuales + 1);
+            recoveryExecutor.ejecutar(clave, espera,
+                    () -> sentinelEventService.registrarEvento(host, nombre, containerId, "FAILURE", detalle,
+                            logTailService.capturar(tracked)),
+                    () -> revivirContenedor(tracked));
+            return true;
+        }
+
+        if (intentosActuales == maxRetries) {
             // Se alcanzó el límite: Marcamos como bloqueado y notificamos una única vez
-            retryTracker.put(nombre, MAX_RETRIES + 1);
+            reintentos.set(maxRetries + 1);
 
             sentinelEventService.registrarEvento(
+                    host,
                     nombre,
                     containerId,
                     "CRITICAL_ERROR",
@@ -203,16 +617,47 @@ public class ContainerService {
             );
 
             slackService.enviarNotificacion("🚨 *ALERTA CRÍTICA - ANTI-LOOP*\n" +
-                    "El contenedor `" + nombre + "` falló repetidamente y ha sido bloqueado.\n" +
+                    "El contenedor `" + nombre + "` (host `" + host + "`) falló repetidamente y ha sido bloqueado.\n" +
                     "Sentinel dejará de intentar reiniciarlo hasta que sea revisado manualmente.");
         }
+        return false;
+    }
+
+    private AtomicInteger reintentosDe(TrackedContainer tracked) {
+        AtomicInteger reintentos = tracked.getReintentos();
+        if (reintentos == null) {
+            // sin nombre todavía (un evento incompleto): se cuenta por id hasta que aparezca
+            String nombre = tracked.getNombre() != null ? tracked.getNombre() : tracked.getId();
+            reintentos = reintentosPorNombre.computeIfAbsent(tracked.getHost() + ":" + nombre, k -> new AtomicInteger());
+            tracked.setReintentos(reintentos);
+        }
+        return reintentos;
     }
 
-    private void revivirContenedor(String containerId, String nombre) {
+    private void reinicioPreventivo(TrackedContainer tracked, ContainerMetrics metrics) {
+        if (!recoveryExecutor.reservar(tracked.getClave())) return;
+
+        boolean programado = false;
         try {
-            dockerClient.restartContainerCmd(containerId).exec();
+            sentinelEventService.registrarEvento(tracked.getHost(), tracked.getNombre(), tracked.getId(), "WARNING",
+                    "Reinicio preventivo: la memoria (" + metrics.getMemoryBytes() / MetricsStore.MB + "MB) llega al límite en minutos");
+            recoveryExecutor.ejecutar(tracked.getClave(), 0, () -> revivirContenedor(tracked));
+            programado = true;
+            predictionService.reiniciarTendencia(tracked);
+        } finally {
+            if (!programado) recoveryExecutor.liberar(tracked.getClave());
+        }
+    }
+
+    private boolean revivirContenedor(TrackedContainer tracked) {
+        String host = tracked.getHost();
+        String containerId = tracked.getId();
+        String nombre = tracked.getNombre();
+        try {
+            hostRegistry.get(host).getClient().restartContainerCmd(containerId).exec();
 
             sentinelEventService.registrarEvento(
+                    host,
                     nombre,
                     containerId,
                     "RECOVERY",
@@ -220,17 +665,33 @@ public class ContainerService {
             );
 
             String alerta = "*Sentinel Self-Healing Report*\n" +
-                    "Contenedor restaurado: `" + nombre + "`\n" +
-                    "Estado: Recuperado. Reintentos realizados: " + retryTracker.get(nombre);
+                    "Contenedor restaurado: `" + nombre + "` (host `" + host + "`)\n" +
+                    "Estado: Recuperado. Reintentos realizados: " + tracked.getIntentos();
             slackService.enviarNotificacion(alerta);
+            return true;
 
         } catch (Exception e) {
             sentinelEventService.registrarEvento(
+                    host,
                     nombre,
                     containerId,
                     "CRITICAL_ERROR",
                     "Error al ejecutar restart: " + e.getMessage()
             );
+            return false;
         }
     }
+
+    @Scheduled(fixedDelayString = "${sentinel.snapshot.interval-ms:30000}",
+            initialDelayString = "${sentinel.snapshot.interval-ms:30000}")
+    public void guardarSnapshot() {
+        snapshotService.guardar(containerTable.values(), reintentosPorNombre);
+    }
+
+    @PreDestroy
+    public void detener() {
+        hostPool.shutdownNow();
+        // la última foto al apagarse: el próximo arranque sigue desde acá
+        guardarSnapshot();
+    }
 }
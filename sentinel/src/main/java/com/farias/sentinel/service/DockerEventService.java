@@ -0,0 +1,119 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.DockerHost;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Escucha el stream de eventos de cada host de Docker (modo "events") y se lo pasa a ContainerService.
+// Cada host tiene su propia suscripción: si un daemon se cae, solo ese se reconecta.
+@Service
+public class DockerEventService {
+
+    private static final String[] EVENTOS = {"start", "die", "oom", "health_status", "destroy"};
+    private static final long REINTENTO_SEGUNDOS = 5;
+
+    private final DockerHostRegistry hostRegistry;
+    private final ContainerService containerService;
+    private final ScheduledExecutorService reconexion = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sentinel-events-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, Suscripcion> suscripciones = new ConcurrentHashMap<>();
+    private volatile boolean detenido = false;
+
+    public DockerEventService(DockerHostRegistry hostRegistry, ContainerService containerService) {
+        this.hostRegistry = hostRegistry;
+        this.containerService = containerService;
+    }
+
+    public void suscribir() {
+        for (DockerHost host : hostRegistry.getHosts()) {
+            try {
+                suscribir(host);
+            } catch (Exception e) {
+                // un host caído al arrancar no impide escuchar a los demás
+                System.err.println("No se pudo suscribir a los eventos de " + host.getNombre() + ": " + e.getMessage());
+                reprogramar(host);
+            }
+        }
+    }
+
+    private void suscribir(DockerHost host) {
+        if (detenido) return;
+        Suscripcion suscripcion = suscripciones.computeIfAbsent(host.getNombre(), h -> new Suscripcion());
+
+        synchronized (suscripcion) {
+            if (suscripcion.ultimoEvento == 0) suscripcion.ultimoEvento = System.currentTimeMillis() / 1000;
+
+            // con "since" Docker nos reenvía lo que pasó mientras estábamos desconectados
+            suscripcion.stream = host.getClient().eventsCmd()
+                    .withEventTypeFilter(EventType.CONTAINER)
+                    .withEventFilter(EVENTOS)
+                    .withSince(String.valueOf(suscripcion.ultimoEvento))
+                    .exec(new ResultCallback.Adapter<Event>() {
+                        @Override
+                        public void onNext(Event evento) {
+                            if (evento.getTime() != null) suscripcion.ultimoEvento = evento.getTime();
+                            try {
+                                containerService.procesarEventoDocker(host, evento);
+                            } catch (Exception e) {
+                                System.err.println("Error procesando evento de " + host.getNombre() + ": " + e.getMessage());
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            System.err.println("Stream de eventos de " + host.getNombre() + " caído: " + throwable.getMessage());
+                            super.onError(throwable);
+                            reprogramar(host);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            super.onComplete();
+                            reprogramar(host);
+                        }
+                    });
+        }
+    }
+
+    private void reprogramar(DockerHost host) {
+        if (detenido) return;
+        reconexion.schedule(() -> {
+            try {
+                suscribir(host);
+                containerService.reconciliar(host);
+            } catch (Exception e) {
+                System.err.println("No se pudo reconectar al stream de eventos de " + host.getNombre() + ": " + e.getMessage());
+                reprogramar(host);
+            }
+        }, REINTENTO_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void detener() throws IOException {
+        detenido = true;
+        reconexion.shutdownNow();
+        for (Suscripcion suscripcion : suscripciones.values()) {
+            if (suscripcion.stream != null) suscripcion.stream.close();
+        }
+    }
+
+    private static class Suscripcion {
+        private volatile Closeable stream;
+        private volatile long ultimoEvento; // epoch segundos del ultimo evento recibido de este host
+    }
+}
@@ -0,0 +1,79 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.config.DockerConfig;
+import com.farias.sentinel.config.DockerHostsProperties;
+import com.farias.sentinel.model.DockerHost;
+import com.github.dockerjava.api.DockerClient;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class DockerHostRegistry {
+
+    public static final String HOST_LOCAL = "local";
+
+    private final Map<String, DockerHost> hosts = new LinkedHashMap<>();
+    private final String hostPorDefecto;
+
+    public DockerHostRegistry(DockerConfig dockerConfig, DockerHostsProperties properties,
+                              DockerClient dockerClient) {
+        if (properties.getHosts().isEmpty()) {
+            // modo de siempre: un solo daemon con el cliente por defecto
+            DockerHost local = new DockerHost(HOST_LOCAL, dockerClient);
+            local.setClienteStreams(dockerConfig.crearClienteDeStreams(null));
+            hosts.put(HOST_LOCAL, local);
+        } else {
+            // un nombre repetido pisaría al host anterior (y dejaría sus clientes abiertos): se valida antes de crearlos
+            Set<String> nombres = new HashSet<>();
+            for (DockerHostsProperties.Host host : properties.getHosts()) {
+                if (host.getName() == null || host.getName().isBlank()) {
+                    throw new IllegalStateException("sentinel.docker.hosts: falta el nombre del host " + host.getUrl());
+                }
+                if (!nombres.add(host.getName())) {
+                    throw new IllegalStateException("sentinel.docker.hosts: nombre de host repetido " + host.getName());
+                }
+            }
+            for (DockerHostsProperties.Host host : properties.getHosts()) {
+                DockerHost dockerHost = new DockerHost(host.getName(), dockerConfig.crearCliente(host.getUrl()));
+                dockerHost.setClienteStreams(dockerConfig.crearClienteDeStreams(host.getUrl()));
+                hosts.put(host.getName(), dockerHost);
+            }
+        }
+        hostPorDefecto = hosts.keySet().iterator().next();
+    }
+
+    public Collection<DockerHost> getHosts() {
+        return Collections.unmodifiableCollection(hosts.values());
+    }
+
+    // null devuelve el host por defecto (el primero configurado)
+    public DockerHost get(String nombre) {
+        DockerHost host = hosts.get(nombre != null ? nombre : hostPorDefecto);
+        if (host == null) throw new IllegalArgumentException("Host de Docker desconocido: " + nombre);
+        return host;
+    }
+
+    public String getHostPorDefecto() {
+        return hostPorDefecto;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        for (DockerHost host : hosts.values()) {
+            try {
+                host.getClient().close();
+                if (host.getClienteStreams() != host.getClient()) host.getClienteStreams().close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando cliente de " + host.getNombre() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.dto.EventDTO;
+import com.farias.sentinel.dto.EventFilter;
+import com.farias.sentinel.dto.EventPageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Consulta paginada del historial de eventos, de lo más nuevo a lo más viejo.
+// Paginación por keyset sobre (timestamp, id): el cursor es la última fila devuelta y la página siguiente arranca
+// ahí usando el índice, así que la página 1000 cuesta lo mismo que la primera (nada de OFFSET).
+// Las primeras páginas (sin cursor) se cachean por filtro y se invalidan cada vez que el escritor de eventos
+// guarda un lote: la DB recién cambia ahí, no en registrarEvento.
+@Service
+public class EventQueryService {
+
+    public static final int MAX_LIMITE = 500;
+
+    private static final String COLUMNAS = "SELECT id, timestamp, host, container_name, container_id, event_type, "
+            + "details, retry_count, log_tail IS NOT NULL FROM container_event";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong version = new AtomicLong(); // cambia con cada escritura o borrado
+    private final Map<Clave, Pagina> cache;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    public EventQueryService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                             @Value("${sentinel.events.query-cache-size:64}") int tamanoCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Pagina> eldest) {
+                return size() > tamanoCache;
+            }
+        });
+        this.aciertos = Counter.builder("sentinel.events.query.cache").tag("result", "hit").register(meterRegistry);
+        this.fallos = Counter.builder("sentinel.events.query.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    // Lo llaman el escritor de eventos después de cada lote y la retención después de borrar
+    public void invalidar() {
+        version.incrementAndGet();
+    }
+
+    public EventPageDTO buscar(EventFilter filtro, String cursor, int limite) {
+        limite = Math.max(1, Math.min(limite, MAX_LIMITE));
+        if (cursor != null) return consultar(filtro, Cursor.decodificar(cursor), limite);
+
+        // la versión se lee antes de consultar: si cambia mientras tanto, la entrada ya nace vieja
+        long actual = version.get();
+        Clave clave = new Clave(filtro, limite);
+        Pagina pagina = cache.get(clave);
+        if (pagina != null && pagina.version == actual) {
+            aciertos.increment();
+            return pagina.contenido;
+        }
+        fallos.increment();
+        EventPageDTO contenido = consultar(filtro, null, limite);
+        cache.put(clave, new Pagina(actual, contenido));
+        return contenido;
+    }
+
+    // Detalle de un evento, con la cola de logs; null si no existe
+    public EventDTO buscarPorId(long id) {
+        List<EventDTO> encontrados = jdbcTemplate.query(
+                "SELECT id, timestamp, host, container_name, container_id, event_type, details, retry_count, "
+                        + "log_tail IS NOT NULL, log_tail FROM container_event WHERE id = ?",
+                (rs, i) -> {
+                    EventDTO dto = mapear(rs);
+                    dto.setLogTail(rs.getString(10));
+                    return dto;
+                }, id);
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    private EventPageDTO consultar(EventFilter filtro, Cursor desde, int limite) {
+        StringBuilder sql = new StringBuilder(COLUMNAS).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        // la columna filtrada por igualdad encabeza el ORDER BY (es constante, no cambia el orden): así el motor
+        // reconoce que el índice (columna, timestamp) ya viene ordenado y corta en "limite" filas sin ordenar nada
+        String prefijo = "";
+        if (filtro.getContainer() != null) {
+            sql.append(" AND container_name = ?");
+            params.add(filtro.getContainer());
+            prefijo = "container_name DESC, ";
+        }
+        if (filtro.getType() != null) {
+            sql.append(" AND event_type = ?");
+            params.add(filtro.getType());
+            if (prefijo.isEmpty()) prefijo = "event_type DESC, ";
+        }
+        if (filtro.getHost() != null) {
+            sql.append(" AND host = ?");
+            params.add(filtro.getHost());
+            if (prefijo.isEmpty()) prefijo = "host DESC, ";
+        }
+        if (filtro.getFrom() != null) {
+            sql.append(" AND timestamp >= ?");
+            params.add(Timestamp.valueOf(filtro.getFrom()));
+        }
+        if (filtro.getTo() != null) {
+            sql.append(" AND timestamp < ?");
+            params.add(Timestamp.valueOf(filtro.getTo()));
+        }
+        if (desde != null) {
+            // (timestamp, id) < cursor; el "timestamp <= ?" suelto es el que deja arrancar el índice en el cursor
+            Timestamp timestamp = Timestamp.valueOf(desde.timestamp);
+            sql.append(" AND timestamp <= ? AND (timestamp < ? OR id < ?)");
+            params.add(timestamp);
+            params.add(timestamp);
+            params.add(desde.id);
+        }
+        // una fila de más para saber si hay página siguiente
+        sql.append(" ORDER BY ").append(prefijo).append("timestamp DESC, id DESC LIMIT ?");
+        params.add(limite + 1);
+
+        List<EventDTO> eventos = jdbcTemplate.query(sql.toString(), (rs, i) -> mapear(rs), params.toArray());
+        String siguiente = null;
+        if (eventos.size() > limite) {
+            eventos = eventos.subList(0, limite);
+            EventDTO ultimo = eventos.get(limite - 1);
+            siguiente = new Cursor(ultimo.getTimestamp(), ultimo.getId()).codificar();
+        }
+        return new EventPageDTO(List.copyOf(eventos), siguiente);
+    }
+
+    private static EventDTO mapear(ResultSet rs) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(2);
+        int retryCount = rs.getInt(8);
+        // wasNull mira la última columna leída: se consulta ya, antes de leer las demás
+        boolean sinReintentos = rs.wasNull();
+        return new EventDTO(rs.getLong(1), timestamp != null ? timestamp.toLocalDateTime() : null,
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7),
+                sinReintentos ? null : retryCount, rs.getBoolean(9), null);
+    }
+
+    private record Clave(EventFilter filtro, int limite) {
+    }
+
+    private record Pagina(long version, EventPageDTO contenido) {
+    }
+
+    // Opaco para el cliente: "timestamp|id" en base64 url-safe
+    private record Cursor(LocalDateTime timestamp, long id) {
+
+        private String codificar() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((timestamp + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decodificar(String cursor) {
+            try {
+                String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = texto.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(texto.substring(0, separador)),
+                        Long.parseLong(texto.substring(separador + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.farias.sentinel.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+// Retención por días completos: se borra por rango de timestamp (idx_event_timestamp) en tandas acotadas,
+// así ningún DELETE arma una transacción con todo lo vencido ni bloquea la tabla mientras el escritor inserta
+@Service
+public class EventRetentionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnalyticsService analyticsService;
+    private final EventQueryService eventQueryService;
+    private final int retentionDays; // 0 = guardar todo
+    private final int tanda;
+
+    public EventRetentionService(JdbcTemplate jdbcTemplate, AnalyticsService analyticsService,
+                                 EventQueryService eventQueryService,
+                                 @Value("${sentinel.events.retention-days:30}") int retentionDays,
+                                 @Value("${sentinel.events.retention-batch:5000}") int tanda) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.analyticsService = analyticsService;
+        this.eventQueryService = eventQueryService;
+        this.retentionDays = retentionDays;
+        this.tanda = Math.max(1, tanda);
+    }
+
+    // al arrancar sobre una DB en disco purgamos lo vencido mientras estuvimos apagados
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        purgar();
+    }
+
+    @Scheduled(cron = "${sentinel.events.retention-cron:0 15 3 * * *}")
+    public void purgar() {
+        if (retentionDays <= 0) return;
+
+        Timestamp limite = Timestamp.valueOf(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+        int borrados = 0;
+        int ultima;
+        do {
+            ultima = jdbcTemplate.update(
+                    "DELETE FROM container_event WHERE timestamp < ? FETCH FIRST ? ROWS ONLY", limite, tanda);
+            borrados += ultima;
+        } while (ultima == tanda);
+
+        if (borrados > 0) {
+            System.out.println("Retención: " + borrados + " eventos anteriores a " + limite.toLocalDateTime().toLocalDate()
+                    + " eliminados");
+            analyticsService.reconstruir();
+            eventQueryService.invalidar();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.HealthProbe;
+import com.farias.sentinel.model.TrackedContainer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.tcp.TcpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Salud de los contenedores que siguen corriendo pero no responden. Dos fuentes:
+//  - el healthcheck de Docker: sale del "(unhealthy)" del listado o del evento health_status, y queda en
+//    TrackedContainer.health; nunca se inspecciona el contenedor en el tick.
+//  - sondas propias (labels sentinel.probe=http://... o tcp://host:puerto): las lanza un solo hilo y corren sobre
+//    el event loop compartido de reactor-netty, sin un hilo por sonda; cada una con su timeout.
+// ContainerService pregunta en cada tick con debeReiniciar: unhealthy sostenido entra por procesarFalla.
+@Service
+public class HealthCheckService {
+
+    private static final long TICK_MS = 100;
+
+    private final WebClient webClient;
+    private final TcpClient tcpClient = TcpClient.newConnection();
+    private final Map<String, TrackedContainer> conSonda = new ConcurrentHashMap<>(); // por clave host:id
+    private final Timer sondasOk;
+    private final Timer sondasFallidas;
+    private ScheduledExecutorService planificador;
+
+    // Cuánto tiene que seguir enfermo un contenedor para reiniciarlo
+    @Value("${sentinel.health.unhealthy-seconds:30}")
+    private long segundosEnfermo = 30;
+
+    @Value("${sentinel.health.probe-interval-seconds:5}")
+    private long intervaloSegundos = 5;
+
+    @Value("${sentinel.health.probe-timeout-ms:2000}")
+    private long timeoutMs = 2000;
+
+    // Fallos seguidos para dar la sonda por caída
+    @Value("${sentinel.health.probe-failures:3}")
+    private int fallos = 3;
+
+    public HealthCheckService(WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.build();
+        this.sondasOk = Timer.builder("sentinel.health.probe").description("Duración de las sondas de salud")
+                .tag("outcome", "ok").register(meterRegistry);
+        this.sondasFallidas = Timer.builder("sentinel.health.probe").description("Duración de las sondas de salud")
+                .tag("outcome", "failed").register(meterRegistry);
+        meterRegistry.gauge("sentinel.health.probes", conSonda, Map::size);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sentinel-health-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        planificador.scheduleWithFixedDelay(this::lanzarVencidas, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // El texto del listado ("Up 5 minutes (unhealthy)") ya trae el healthcheck: no hace falta inspeccionar
+    public static String saludDeStatus(String status) {
+        if (status == null || !status.endsWith(")")) return null;
+        if (status.endsWith("(healthy)")) return "healthy";
+        if (status.endsWith("(unhealthy)")) return "unhealthy";
+        if (status.endsWith("(health: starting)")) return "starting";
+        return null;
+    }
+
+    // Se llama cuando cambian los labels del contenedor
+    public void configurar(TrackedContainer tracked) {
+        HealthProbe nueva = sondaPara(tracked.getLabels());
+        HealthProbe actual = tracked.getSonda();
+        if (nueva == null) {
+            tracked.setSonda(null);
+            conSonda.remove(tracked.getClave());
+            return;
+        }
+        if (nueva.mismaConfiguracion(actual)) return;
+        // la primera vuelta se reparte en el intervalo: mil contenedores no se sondean en el mismo tick
+        nueva.setProxima(System.currentTimeMillis() + ThreadLocalRandom.current().nextLong(nueva.getIntervaloMs()));
+        tracked.setSonda(nueva);
+        conSonda.put(tracked.getClave(), tracked);
+    }
+
+    public void dejar(String clave) {
+        conSonda.remove(clave);
+    }
+
+    public int getSondas() {
+        return conSonda.size();
+    }
+
+    // true si lleva enfermo (y corriendo) al menos sentinel.health.unhealthy-seconds; la cuenta vuelve a empezar,
+    // así el próximo reinicio por salud espera otra ventana completa
+    public boolean debeReiniciar(TrackedContainer tracked, long ahora) {
+        if (!tracked.estaCorriendo() || !tracked.estaEnfermo()) {
+            if (tracked.getEnfermoDesde() != 0) tracked.setEnfermoDesde(0);
+            return false;
+        }
+        long desde = tracked.getEnfermoDesde();
+        if (desde == 0) {
+            tracked.setEnfermoDesde(ahora);
+            return false;
+        }
+        if (ahora - desde < segundosEnfermo * 1000) return false;
+        tracked.setEnfermoDesde(ahora);
+        return true;
+    }
+
+    public long getSegundosEnfermo() {
+        return segundosEnfermo;
+    }
+
+    // Texto para el evento: qué fuente dice que está enfermo
+    public static String describir(TrackedContainer tracked) {
+        HealthProbe sonda = tracked.getSonda();
+        if (sonda != null && sonda.isFallando()) {
+            return "la sonda " + sonda.getDestino() + " falló " + sonda.getFallosSeguidos() + " veces seguidas ("
+                    + sonda.getUltimoError() + ")";
+        }
+        return "el healthcheck de Docker está unhealthy";
+    }
+
+    HealthProbe sondaPara(Map<String, String> labels) {
+        String destino = labels != null ? labels.get("sentinel.probe") : null;
+        if (destino == null || destino.isBlank()) return null;
+        try {
+            URI uri = URI.create(destino.trim());
+            String esquema = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "";
+            boolean valido = switch (esquema) {
+                case "http", "https" -> uri.getHost() != null;
+                case "tcp" -> uri.getHost() != null && uri.getPort() > 0;
+                default -> false;
+            };
+            if (!valido) throw new IllegalArgumentException("se espera http(s)://host[:puerto]/ruta o tcp://host:puerto");
+            return new HealthProbe(uri,
+                    Math.max(1, leerLabel(labels, "sentinel.probe.interval-seconds", intervaloSegundos)) * 1000,
+                    Math.max(1, leerLabel(labels, "sentinel.probe.timeout-ms", timeoutMs)),
+                    (int) leerLabel(labels, "sentinel.probe.failures", fallos));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Label sentinel.probe inválido: " + destino + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    private void lanzarVencidas() {
+        long ahora = System.currentTimeMillis();
+        for (TrackedContainer tracked : conSonda.values()) {
+            HealthProbe sonda = tracked.getSonda();
+            // un contenedor parado no se sondea: de eso ya se ocupa el auto-heal por exited
+            if (sonda == null || sonda.isEnCurso() || sonda.getProxima() > ahora || !tracked.estaCorriendo()) continue;
+            sonda.setEnCurso(true);
+            sonda.setProxima(ahora + sonda.getIntervaloMs());
+            sondear(sonda).subscribe();
+        }
+    }
+
+    // Completa cuando la sonda terminó y su estado ya está actualizado; nunca termina con error
+    Mono<Void> sondear(HealthProbe sonda) {
+        long inicio = System.nanoTime();
+        Mono<?> intento = sonda.isTcp() ? conectar(sonda) : webClient.get().uri(sonda.getDestino())
+                .retrieve().toBodilessEntity();
+        return intento.timeout(Duration.ofMillis(sonda.getTimeoutMs()))
+                .doOnSuccess(r -> {
+                    sonda.registrarExito();
+                    sondasOk.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                })
+                .onErrorResume(e -> {
+                    boolean yaFallaba = sonda.isFallando();
+                    sonda.registrarFallo(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    sondasFallidas.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                    if (!yaFallaba && sonda.isFallando()) {
+                        System.err.println("Sonda " + sonda.getDestino() + " caída: " + sonda.getUltimoError());
+                    }
+                    return Mono.empty();
+                })
+                .doFinally(s -> sonda.setEnCurso(false))
+                .then();
+    }
+
+    // Solo se abre y se cierra la conexión: alcanza para saber que algo escucha en el puerto
+    private Mono<? extends Connection> conectar(HealthProbe sonda) {
+        return tcpClient.host(sonda.getDestino().getHost()).port(sonda.getDestino().getPort())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) Math.min(Integer.MAX_VALUE, sonda.getTimeoutMs()))
+                .connect()
+                .doOnNext(Connection::dispose);
+    }
+
+    private static long leerLabel(Map<String, String> labels, String label, long defecto) {
+        String valor = labels.get(label);
+        if (valor == null) return defecto;
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Label " + label + " inválido: " + valor);
+            return defecto;
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (planificador != null) planificador.shutdownNow();
+    }
+}
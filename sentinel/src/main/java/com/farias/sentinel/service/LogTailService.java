@@ -0,0 +1,211 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.DockerHost;
+import com.farias.sentinel.model.LogPatternMatcher;
+import com.farias.sentinel.model.LogTail;
+import com.farias.sentinel.model.TrackedContainer;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cola de logs por contenedor para saber por qué se cayó: un stream "follow" de docker logs por contenedor
+// seguido, los últimos bytes en un LogTail de tamaño fijo y un matcher multi-patrón sobre lo que va llegando
+// (OutOfMemoryError, panic, segfault...). Las últimas líneas se adjuntan al evento FAILURE.
+// Por defecto solo se siguen los protegidos (sentinel.auto-heal=true), que son los únicos que se reinician.
+// Cada stream ocupa una conexión del cliente de streams del host (y un hilo de docker-java): por eso hay un tope
+// de contenedores seguidos por host; los que no entran siguen sin cola de logs hasta que se libere lugar.
+@Service
+public class LogTailService {
+
+    private final SentinelEventService sentinelEventService;
+    private final Map<String, Seguimiento> streams = new ConcurrentHashMap<>(); // por clave host:id
+    private final Map<String, AtomicInteger> streamsPorHost = new ConcurrentHashMap<>();
+    private final Counter bytesLeidos;
+    private final Counter coincidencias;
+    private LogPatternMatcher matcher;
+
+    // "protected" (solo los que tienen auto-heal), "all" u "off"
+    @Value("${sentinel.logs.mode:protected}")
+    private String modo = "protected";
+
+    // Memoria máxima por contenedor
+    @Value("${sentinel.logs.buffer-bytes:16384}")
+    private int bufferBytes = 16384;
+
+    // Líneas que se adjuntan al FAILURE
+    @Value("${sentinel.logs.tail-lines:50}")
+    private int lineas = 50;
+
+    @Value("${sentinel.logs.patterns:OutOfMemoryError,JavaScript heap out of memory,panic:,fatal error:,segmentation fault,SIGSEGV,core dumped,Traceback (most recent call last)}")
+    private List<String> patrones = List.of();
+
+    // Un patrón que aparece muchas veces genera un solo WARNING por contenedor en este lapso
+    @Value("${sentinel.logs.alert-cooldown-seconds:300}")
+    private long cooldownSegundos = 300;
+
+    // Cuánto se espera a que el stream termine de entregar lo último antes de leer la cola (ver capturar)
+    @Value("${sentinel.logs.flush-wait-ms:200}")
+    private long esperaMs = 200;
+
+    @Value("${sentinel.logs.max-streams-per-host:256}")
+    private int maxPorHost = 256;
+
+    public LogTailService(SentinelEventService sentinelEventService, MeterRegistry meterRegistry) {
+        this.sentinelEventService = sentinelEventService;
+        this.bytesLeidos = Counter.builder("sentinel.logs.bytes")
+                .description("Bytes de logs leídos de los contenedores").baseUnit("bytes").register(meterRegistry);
+        this.coincidencias = Counter.builder("sentinel.logs.matches")
+                .description("Patrones de crash encontrados en los logs").register(meterRegistry);
+        meterRegistry.gauge("sentinel.logs.streams", streams, Map::size);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        matcher = new LogPatternMatcher(patrones);
+    }
+
+    public boolean debeSeguir(TrackedContainer tracked) {
+        if ("all".equalsIgnoreCase(modo)) return true;
+        return "protected".equalsIgnoreCase(modo) && tracked.isProtegido();
+    }
+
+    // true si seguir() abriría un stream: lo debe seguir, no lo sigue todavía y hay lugar en el host
+    public boolean faltaSeguir(String host, TrackedContainer tracked) {
+        if (!debeSeguir(tracked) || streams.containsKey(tracked.getClave())) return false;
+        AtomicInteger delHost = streamsPorHost.get(host);
+        return delHost == null || delHost.get() < maxPorHost;
+    }
+
+    // Se llama con cada contenedor corriendo; abre el stream si no hay uno abierto
+    public void seguir(DockerHost host, TrackedContainer tracked) {
+        if (!debeSeguir(tracked) || streams.containsKey(tracked.getClave())) return;
+        AtomicInteger delHost = streamsPorHost.computeIfAbsent(host.getNombre(), h -> new AtomicInteger());
+        if (delHost.get() >= maxPorHost) return;
+
+        LogTail cola = colaDe(tracked);
+        Seguimiento seguimiento = new Seguimiento(tracked, cola, delHost);
+        if (streams.putIfAbsent(tracked.getClave(), seguimiento) != null) return;
+        delHost.incrementAndGet();
+        try {
+            var cmd = host.getClienteStreams().logContainerCmd(tracked.getId())
+                    .withStdOut(true).withStdErr(true).withFollowStream(true);
+            // la primera vez traemos las últimas líneas; al volver a seguirlo, lo que se escribió desde que se
+            // cerró el stream anterior (docker logs devuelve también las corridas viejas del contenedor)
+            if (cola.getSeguidoHasta() == 0) cmd.withTail(lineas);
+            else cmd.withSince((int) (cola.getSeguidoHasta() / 1000 + 1));
+            cmd.exec(seguimiento);
+        } catch (Exception e) {
+            seguimiento.soltar();
+            System.err.println("No se pudieron seguir los logs de " + tracked.getClave() + ": " + e.getMessage());
+        }
+    }
+
+    // La cola vive en el TrackedContainer y sobrevive a los reinicios: después de una caída se sigue viendo el final
+    // de la corrida anterior. SnapshotService también la crea al restaurar el cooldown de los avisos.
+    public LogTail colaDe(TrackedContainer tracked) {
+        LogTail cola = tracked.getLogs();
+        if (cola == null) {
+            cola = new LogTail(bufferBytes, matcher);
+            tracked.setLogs(cola);
+        }
+        return cola;
+    }
+
+    // Las últimas líneas para adjuntar al FAILURE, null si no lo seguimos.
+    // El "die" (o el listado) puede llegar antes que los últimos bytes del stream de logs, que es justo lo que
+    // explica la caída: si el stream sigue abierto se espera un poco a que Docker lo cierre.
+    public String capturar(TrackedContainer tracked) {
+        LogTail cola = tracked.getLogs();
+        if (cola == null) return null;
+        Seguimiento seguimiento = streams.get(tracked.getClave());
+        if (seguimiento != null && esperaMs > 0) {
+            try {
+                seguimiento.awaitCompletion(esperaMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String texto = cola.ultimasLineas(lineas);
+        return texto.isEmpty() ? null : texto;
+    }
+
+    public void dejar(String clave) {
+        Seguimiento seguimiento = streams.get(clave);
+        if (seguimiento == null) return;
+        seguimiento.soltar();
+        try {
+            seguimiento.close();
+        } catch (IOException e) {
+            System.err.println("Error cerrando stream de logs: " + e.getMessage());
+        }
+    }
+
+    public boolean estaSiguiendo(String clave) {
+        return streams.containsKey(clave);
+    }
+
+    private void avisar(TrackedContainer tracked, LogTail cola, int patron) {
+        coincidencias.increment();
+        long ahora = System.currentTimeMillis();
+        if (ahora - cola.getUltimoAviso() < cooldownSegundos * 1000) return;
+        cola.setUltimoAviso(ahora);
+
+        String linea = cola.lineaDeLaCoincidencia();
+        String detalle = "Patrón '" + matcher.getPatron(patron) + "' en los logs"
+                + (linea != null ? ": " + linea : "");
+        sentinelEventService.registrarEvento(tracked.getHost(), tracked.getNombre(), tracked.getId(), "WARNING",
+                detalle.length() > 255 ? detalle.substring(0, 252) + "..." : detalle);
+    }
+
+    private class Seguimiento extends ResultCallback.Adapter<Frame> {
+        private final TrackedContainer tracked;
+        private final LogTail cola;
+        private final AtomicInteger delHost;
+
+        private Seguimiento(TrackedContainer tracked, LogTail cola, AtomicInteger delHost) {
+            this.tracked = tracked;
+            this.cola = cola;
+            this.delHost = delHost;
+        }
+
+        // se descuenta una sola vez, aunque lleguen el close y el onComplete
+        private void soltar() {
+            if (streams.remove(tracked.getClave(), this)) delHost.decrementAndGet();
+        }
+
+        @Override
+        public void onNext(Frame frame) {
+            byte[] payload = frame.getPayload();
+            if (payload == null || payload.length == 0) return;
+            bytesLeidos.increment(payload.length);
+            int patron = cola.agregar(payload, 0, payload.length);
+            if (patron >= 0) avisar(tracked, cola, patron);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            cola.setSeguidoHasta(System.currentTimeMillis());
+            soltar();
+            super.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // el contenedor terminó: el stream se vuelve a abrir cuando arranque de nuevo
+            cola.setSeguidoHasta(System.currentTimeMillis());
+            soltar();
+            super.onComplete();
+        }
+    }
+}
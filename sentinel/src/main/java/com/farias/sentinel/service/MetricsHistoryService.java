@@ -0,0 +1,101 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.dto.MetricPointDTO;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.RollupRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Historial de métricas en memoria: por contenedor, rings de 1s, 1m y 1h con rollups incrementales.
+// Con los valores por defecto (10 min, 24 h, 30 días) son ~150KB por contenedor.
+@Service
+public class MetricsHistoryService {
+
+    public static final long SEGUNDO = 1000;
+    public static final long MINUTO = 60 * SEGUNDO;
+    public static final long HORA = 60 * MINUTO;
+
+    private final Map<String, ContainerHistory> historias = new ConcurrentHashMap<>();
+
+    private final int slotsSegundos;
+    private final int slotsMinutos;
+    private final int slotsHoras;
+
+    public MetricsHistoryService(@Value("${sentinel.history.seconds:600}") int slotsSegundos,
+                                 @Value("${sentinel.history.minutes:1440}") int slotsMinutos,
+                                 @Value("${sentinel.history.hours:720}") int slotsHoras) {
+        this.slotsSegundos = slotsSegundos;
+        this.slotsMinutos = slotsMinutos;
+        this.slotsHoras = slotsHoras;
+    }
+
+    public void registrar(ContainerMetrics metrics) {
+        ContainerHistory historia = historias.get(metrics.getClave());
+        if (historia == null) {
+            historia = historias.computeIfAbsent(metrics.getClave(), id -> new ContainerHistory());
+        }
+        historia.agregar(metrics.getUltimaMuestra(), metrics.getCpuFraction(), metrics.getMemoryBytes());
+    }
+
+    public void eliminar(String clave) {
+        historias.remove(clave);
+    }
+
+    // resolucionMs == 0 elige la resolución más fina que cubra el rango pedido
+    public List<MetricPointDTO> consultar(String clave, long desde, long hasta, long resolucionMs) {
+        ContainerHistory historia = historias.get(clave);
+        if (historia == null || hasta <= desde) return List.of();
+        return historia.consultar(desde, hasta, resolucionMs);
+    }
+
+    private class ContainerHistory {
+        private final RollupRing[] cpu = new RollupRing[3];
+        private final RollupRing[] mem = new RollupRing[3];
+
+        private ContainerHistory() {
+            cpu[0] = new RollupRing(SEGUNDO, slotsSegundos, null);
+            cpu[1] = new RollupRing(MINUTO, slotsMinutos, cpu[0]);
+            cpu[2] = new RollupRing(HORA, slotsHoras, cpu[1]);
+            mem[0] = new RollupRing(SEGUNDO, slotsSegundos, null);
+            mem[1] = new RollupRing(MINUTO, slotsMinutos, mem[0]);
+            mem[2] = new RollupRing(HORA, slotsHoras, mem[1]);
+        }
+
+        private synchronized void agregar(long epochMillis, double cpuFraction, long memoryBytes) {
+            for (int i = 0; i < cpu.length; i++) {
+                cpu[i].agregar(epochMillis, cpuFraction);
+                mem[i].agregar(epochMillis, memoryBytes);
+            }
+        }
+
+        private synchronized List<MetricPointDTO> consultar(long desde, long hasta, long resolucionMs) {
+            int nivel = cpu.length - 1;
+            for (int i = 0; i < cpu.length; i++) {
+                boolean cubre = System.currentTimeMillis() - desde <= cpu[i].getCoberturaMs();
+                if (resolucionMs > 0 ? cpu[i].getResolucionMs() == resolucionMs : cubre) {
+                    nivel = i;
+                    break;
+                }
+            }
+
+            RollupRing c = cpu[nivel];
+            RollupRing m = mem[nivel];
+            long res = c.getResolucionMs();
+            List<MetricPointDTO> puntos = new ArrayList<>();
+            // nunca recorremos más slots de los que tiene el ring
+            long primero = Math.max(desde / res, hasta / res - c.getCapacidad() + 1);
+            for (long b = primero; b <= hasta / res; b++) {
+                if (!c.tiene(b)) continue;
+                puntos.add(new MetricPointDTO(b * res,
+                        c.getMin(b), c.getMax(b), c.getAvg(b), c.getP95(b),
+                        (long) m.getMin(b), (long) m.getMax(b), (long) m.getAvg(b), (long) m.getP95(b)));
+            }
+            return puntos;
+        }
+    }
+}
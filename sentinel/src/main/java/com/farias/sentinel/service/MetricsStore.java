@@ -0,0 +1,130 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.ContainerMetrics;
+import com.github.dockerjava.api.model.BlkioStatEntry;
+import com.github.dockerjava.api.model.BlkioStatsConfig;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.MemoryStatsConfig;
+import com.github.dockerjava.api.model.StatisticNetworksConfig;
+import com.github.dockerjava.api.model.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Guarda la última muestra numérica de cada contenedor (reemplaza al viejo Map<String, String[]>)
+@Service
+public class MetricsStore {
+
+    public static final long MB = 1024 * 1024;
+
+    private final Map<String, ContainerMetrics> metrics = new ConcurrentHashMap<>(); // por clave host:containerId
+
+    public ContainerMetrics actualizar(String clave, Statistics stats) {
+        ContainerMetrics m = metrics.get(clave);
+        if (m == null) {
+            m = metrics.computeIfAbsent(clave, ContainerMetrics::new);
+        }
+
+        m.setCpuFraction(calcularCpu(stats));
+        m.setMemoryBytes(calcularMemoria(stats));
+
+        MemoryStatsConfig memoria = stats.getMemoryStats();
+        if (memoria != null && memoria.getLimit() != null) m.setMemoryLimit(memoria.getLimit());
+
+        Map<String, StatisticNetworksConfig> redes = stats.getNetworks();
+        if (redes != null) {
+            long rx = 0;
+            long tx = 0;
+            for (StatisticNetworksConfig red : redes.values()) {
+                if (red.getRxBytes() != null) rx += red.getRxBytes();
+                if (red.getTxBytes() != null) tx += red.getTxBytes();
+            }
+            m.setNetRxBytes(rx);
+            m.setNetTxBytes(tx);
+        }
+
+        BlkioStatsConfig blkio = stats.getBlkioStats();
+        if (blkio != null && blkio.getIoServiceBytesRecursive() != null) {
+            long leidos = 0;
+            long escritos = 0;
+            List<BlkioStatEntry> entradas = blkio.getIoServiceBytesRecursive();
+            for (int i = 0; i < entradas.size(); i++) {
+                BlkioStatEntry entrada = entradas.get(i);
+                if (entrada.getValue() == null || entrada.getOp() == null) continue;
+                if (entrada.getOp().equalsIgnoreCase("read")) leidos += entrada.getValue();
+                else if (entrada.getOp().equalsIgnoreCase("write")) escritos += entrada.getValue();
+            }
+            m.setBlkReadBytes(leidos);
+            m.setBlkWriteBytes(escritos);
+        }
+
+        m.setUltimaMuestra(System.currentTimeMillis());
+        return m;
+    }
+
+    public ContainerMetrics get(String clave) {
+        return metrics.get(clave);
+    }
+
+    public Collection<ContainerMetrics> todas() {
+        return metrics.values();
+    }
+
+    public void eliminar(String clave) {
+        metrics.remove(clave);
+    }
+
+    public int size() {
+        return metrics.size();
+    }
+
+    static double calcularCpu(Statistics stats) {
+        CpuStatsConfig cpu = stats.getCpuStats();
+        CpuStatsConfig preCpu = stats.getPreCpuStats();
+        if (cpu == null || preCpu == null || cpu.getCpuUsage() == null || preCpu.getCpuUsage() == null) return 0;
+
+        Long total = cpu.getCpuUsage().getTotalUsage();
+        Long preTotal = preCpu.getCpuUsage().getTotalUsage();
+        Long sistema = cpu.getSystemCpuUsage();
+        Long preSistema = preCpu.getSystemCpuUsage();
+        if (total == null || preTotal == null || sistema == null || preSistema == null) return 0;
+
+        // Uso total de CPU del contenedor y del sistema entre las dos lecturas
+        long cpuDelta = total - preTotal;
+        long systemDelta = sistema - preSistema;
+
+        // Número de núcleos (vital para el cálculo correcto)
+        long onlineCpus = cpu.getOnlineCpus() != null ? cpu.getOnlineCpus() : 1;
+
+        if (systemDelta > 0 && cpuDelta > 0) {
+            return ((double) cpuDelta / systemDelta) * onlineCpus;
+        }
+        return 0;
+    }
+
+    static long calcularMemoria(Statistics stats) {
+        MemoryStatsConfig memoria = stats.getMemoryStats();
+        if (memoria == null || memoria.getUsage() == null) return 0;
+        return memoria.getUsage();
+    }
+
+    // Formateo para el borde (DTO/REST)
+    public static String formatearCpu(ContainerMetrics m) {
+        return m == null ? "0.00%" : String.format("%.2f%%", m.getCpuFraction() * 100.0);
+    }
+
+    public static String formatearMemoria(ContainerMetrics m) {
+        return m == null ? "0MB" : (m.getMemoryBytes() / MB) + "MB";
+    }
+
+    public static int cpuCentesimas(ContainerMetrics m) {
+        return m == null ? 0 : (int) Math.round(m.getCpuFraction() * 10_000);
+    }
+
+    public static long memoriaMb(ContainerMetrics m) {
+        return m == null ? 0 : m.getMemoryBytes() / MB;
+    }
+}
@@ -0,0 +1,135 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.CrashLoopDetector;
+import com.farias.sentinel.model.LeakDetector;
+import com.farias.sentinel.model.TrackedContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Detección temprana: tendencia de memoria (tiempo estimado hasta el OOM) y crash-loops.
+// Avisa con eventos WARNING antes de que se cruce un umbral o el contenedor termine en exited.
+@Service
+public class PredictionService {
+
+    private final SentinelEventService sentinelEventService;
+    private final SlackService slackService;
+
+    // un punto cada sample-interval-ms, window-points puntos: 120 x 10s = 20 minutos de tendencia
+    @Value("${sentinel.prediction.window-points:120}")
+    private int puntosVentana;
+
+    @Value("${sentinel.prediction.sample-interval-ms:10000}")
+    private long intervaloMs;
+
+    // cuánta historia hace falta antes de estimar, y qué tan lineal tiene que ser el crecimiento
+    @Value("${sentinel.prediction.min-span-seconds:300}")
+    private long spanMinimoSegundos;
+
+    @Value("${sentinel.prediction.min-r2:0.8}")
+    private double r2Minimo;
+
+    // avisar si el OOM estimado está a menos de horizon-seconds
+    @Value("${sentinel.prediction.horizon-seconds:1800}")
+    private long horizonteSegundos;
+
+    @Value("${sentinel.prediction.cooldown-seconds:1800}")
+    private long cooldownSegundos;
+
+    // opcional: reiniciar contenedores protegidos si el OOM estimado está a menos de restart-seconds
+    @Value("${sentinel.prediction.restart-before-oom:false}")
+    private boolean reiniciarAntesDeOom;
+
+    @Value("${sentinel.prediction.restart-seconds:120}")
+    private long reinicioSegundos;
+
+    @Value("${sentinel.crash-loop.restarts:3}")
+    private int caidasCrashLoop;
+
+    @Value("${sentinel.crash-loop.window-seconds:600}")
+    private long ventanaCrashLoopSegundos;
+
+    public PredictionService(SentinelEventService sentinelEventService, SlackService slackService) {
+        this.sentinelEventService = sentinelEventService;
+        this.slackService = slackService;
+    }
+
+    // Se llama con cada muestra; devuelve true si conviene un reinicio preventivo
+    public boolean observarMuestra(TrackedContainer tracked, ContainerMetrics metrics) {
+        if (metrics.getMemoryLimit() <= 0) return false;
+
+        LeakDetector fuga = detectorDeFuga(tracked);
+        long ahora = metrics.getUltimaMuestra();
+        double segundos;
+        synchronized (fuga) {
+            // solo se recalcula cuando entra un punto nuevo a la ventana
+            if (!fuga.agregar(ahora, metrics.getMemoryBytes(), intervaloMs)) return false;
+            if (fuga.getSpanMs() < spanMinimoSegundos * 1000 || fuga.r2() < r2Minimo) return false;
+            segundos = fuga.segundosHastaLimite(metrics.getMemoryLimit());
+            if (segundos < 0 || segundos > horizonteSegundos) return false;
+
+            // avisos y reinicios tienen cada uno su cooldown: un aviso a 30 minutos no impide el reinicio a 2
+            if (reiniciarAntesDeOom && tracked.isProtegido() && segundos <= reinicioSegundos
+                    && ahora - fuga.getUltimoReinicio() >= cooldownSegundos * 1000) {
+                fuga.setUltimoReinicio(ahora);
+                return true;
+            }
+            if (ahora - fuga.getUltimoAviso() < cooldownSegundos * 1000) return false;
+            fuga.setUltimoAviso(ahora);
+        }
+
+        double mbPorMinuto = fuga.pendiente() * 60 / MetricsStore.MB;
+        String detalle = String.format("Posible fuga de memoria: crece %.1fMB/min, OOM estimado en %d min (límite %dMB)",
+                mbPorMinuto, (long) segundos / 60, metrics.getMemoryLimit() / MetricsStore.MB);
+        sentinelEventService.registrarEvento(tracked.getHost(), tracked.getNombre(), tracked.getId(), "WARNING", detalle);
+        slackService.enviarNotificacion("📈 *PREDICCIÓN - SENTINEL*\n" +
+                "El contenedor `" + tracked.getNombre() + "` (host `" + tracked.getHost() + "`): " + detalle);
+        return false;
+    }
+
+    // El contenedor arrancó de nuevo (o se lo reinicia preventivamente): los puntos de antes del reinicio
+    // siguen ajustando una recta que ya no existe y volverían a pedir otro reinicio enseguida
+    public void reiniciarTendencia(TrackedContainer tracked) {
+        LeakDetector fuga = tracked.getFuga();
+        if (fuga == null) return;
+        synchronized (fuga) {
+            fuga.vaciar();
+        }
+    }
+
+    // Se llama con cada caída que dispara un intento de recuperación
+    public void registrarCaida(TrackedContainer tracked) {
+        CrashLoopDetector caidas = detectorDeCaidas(tracked);
+        boolean enLoop;
+        synchronized (caidas) {
+            enLoop = caidas.registrar(System.currentTimeMillis(), ventanaCrashLoopSegundos * 1000);
+        }
+        if (!enLoop) return;
+
+        String detalle = "Crash-loop: " + caidas.getCaidas() + " caídas en menos de "
+                + ventanaCrashLoopSegundos / 60 + " min";
+        sentinelEventService.registrarEvento(tracked.getHost(), tracked.getNombre(), tracked.getId(), "WARNING", detalle);
+        slackService.enviarNotificacion("🔁 *CRASH-LOOP - SENTINEL*\n" +
+                "El contenedor `" + tracked.getNombre() + "` (host `" + tracked.getHost() + "`) se cae una y otra vez: "
+                + detalle + ". Reiniciarlo no parece estar arreglando el problema.");
+    }
+
+    // Los detectores se crean con la primera muestra o la primera caída; SnapshotService también los crea al restaurar
+    public LeakDetector detectorDeFuga(TrackedContainer tracked) {
+        LeakDetector fuga = tracked.getFuga();
+        if (fuga == null) {
+            fuga = new LeakDetector(Math.max(2, puntosVentana));
+            tracked.setFuga(fuga);
+        }
+        return fuga;
+    }
+
+    public CrashLoopDetector detectorDeCaidas(TrackedContainer tracked) {
+        CrashLoopDetector caidas = tracked.getCaidas();
+        if (caidas == null) {
+            caidas = new CrashLoopDetector(Math.max(1, caidasCrashLoop));
+            tracked.setCaidas(caidas);
+        }
+        return caidas;
+    }
+}
@@ -0,0 +1,162 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.RecoveryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.BooleanSupplier;
+
+// Ejecuta los reinicios fuera del loop de monitoreo: en paralelo entre contenedores,
+// pero como mucho uno en curso (o esperando su backoff) por contenedor
+@Service
+public class RecoveryExecutor {
+
+    private final ScheduledThreadPoolExecutor pool;
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    private final int maxRetries;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+
+    // Métricas de latencia de los reinicios
+    private final AtomicLong reinicios = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong latenciaTotalMs = new AtomicLong();
+    private final LongAccumulator latenciaMaxMs = new LongAccumulator(Math::max, 0);
+    private volatile long ultimaLatenciaMs;
+    private final Timer timerOk;
+    private final Timer timerFallido;
+
+    public RecoveryExecutor(@Value("${sentinel.recovery.threads:4}") int threads,
+                            @Value("${sentinel.recovery.max-retries:3}") int maxRetries,
+                            @Value("${sentinel.recovery.backoff-base-ms:2000}") long backoffBaseMs,
+                            @Value("${sentinel.recovery.backoff-max-ms:60000}") long backoffMaxMs,
+                            MeterRegistry meterRegistry) {
+        this.maxRetries = maxRetries;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        AtomicInteger contador = new AtomicInteger();
+        this.pool = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread t = new Thread(r, "sentinel-recovery-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.pool.setRemoveOnCancelPolicy(true);
+
+        this.timerOk = Timer.builder("sentinel.recovery.restart").description("Duración de los reinicios")
+                .tag("outcome", "success").register(meterRegistry);
+        this.timerFallido = Timer.builder("sentinel.recovery.restart").description("Duración de los reinicios")
+                .tag("outcome", "failure").register(meterRegistry);
+        meterRegistry.gauge("sentinel.recovery.in_flight", enCurso, Set::size);
+        meterRegistry.gauge("sentinel.recovery.queued", pool.getQueue(), Collection::size);
+    }
+
+    public RecoveryPolicy politicaPara(Map<String, String> labels) {
+        if (labels == null) return new RecoveryPolicy(maxRetries, backoffBaseMs, backoffMaxMs);
+        return new RecoveryPolicy(
+                (int) leerLabel(labels, "sentinel.max-retries", maxRetries, Integer.MAX_VALUE),
+                leerLabel(labels, "sentinel.backoff-base-ms", backoffBaseMs, Long.MAX_VALUE),
+                leerLabel(labels, "sentinel.backoff-max-ms", backoffMaxMs, Long.MAX_VALUE));
+    }
+
+    // Devuelve false si el contenedor ya tiene un reinicio en curso o programado
+    public boolean reservar(String containerId) {
+        return enCurso.add(containerId);
+    }
+
+    public void liberar(String containerId) {
+        enCurso.remove(containerId);
+    }
+
+    public boolean estaEnCurso(String containerId) {
+        return enCurso.contains(containerId);
+    }
+
+    // El contenedor tiene que estar reservado; se libera cuando termina el reinicio
+    public void ejecutar(String containerId, long esperaMs, BooleanSupplier reinicio) {
+        pool.schedule(() -> {
+            long inicio = System.nanoTime();
+            boolean ok = false;
+            try {
+                ok = reinicio.getAsBoolean();
+            } finally {
+                long duracion = System.nanoTime() - inicio;
+                (ok ? timerOk : timerFallido).record(duracion, TimeUnit.NANOSECONDS);
+                registrarLatencia(TimeUnit.NANOSECONDS.toMillis(duracion), ok);
+                liberar(containerId);
+            }
+        }, esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Igual, pero antes corre "previo" en el pool (lo que puede bloquear, como esperar los últimos logs)
+    // sin contarlo en la latencia del reinicio; el backoff corre desde que se programa, no desde que termina
+    public void ejecutar(String containerId, long esperaMs, Runnable previo, BooleanSupplier reinicio) {
+        long limite = System.currentTimeMillis() + esperaMs;
+        pool.execute(() -> {
+            try {
+                previo.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error preparando el reinicio de " + containerId + ": " + e.getMessage());
+            }
+            try {
+                ejecutar(containerId, Math.max(0, limite - System.currentTimeMillis()), reinicio);
+            } catch (RejectedExecutionException e) {
+                // el pool se está apagando: nadie va a soltar la reserva
+                liberar(containerId);
+            }
+        });
+    }
+
+    public Map<String, Object> getEstadisticas() {
+        long total = reinicios.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("restarts", total);
+        stats.put("failed", fallidos.get());
+        stats.put("inFlight", enCurso.size());
+        stats.put("avgLatencyMs", total == 0 ? 0 : latenciaTotalMs.get() / total);
+        stats.put("maxLatencyMs", latenciaMaxMs.get());
+        stats.put("lastLatencyMs", ultimaLatenciaMs);
+        return stats;
+    }
+
+    private void registrarLatencia(long ms, boolean ok) {
+        reinicios.incrementAndGet();
+        if (!ok) fallidos.incrementAndGet();
+        latenciaTotalMs.addAndGet(ms);
+        latenciaMaxMs.accumulate(ms);
+        ultimaLatenciaMs = ms;
+    }
+
+    // Un valor que no es número o está fuera de [0, maximo] se ignora: un backoff negativo rompería el jitter
+    private static long leerLabel(Map<String, String> labels, String label, long defecto, long maximo) {
+        String valor = labels.get(label);
+        if (valor == null) return defecto;
+        try {
+            long numero = Long.parseLong(valor.trim());
+            if (numero >= 0 && numero <= maximo) return numero;
+        } catch (NumberFormatException e) {
+            // se avisa abajo
+        }
+        System.err.println("Label " + label + " inválido: " + valor);
+        return defecto;
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdownNow();
+    }
+}
@@ -1,36 +1,261 @@
 package com.farias.sentinel.service;
 
 import com.farias.sentinel.model.ContainerEvent;
-import com.farias.sentinel.repository.SentinelEventRepository;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 @Service
 public class SentinelEventService {
 
-    @Autowired
-    private SentinelEventRepository sentinelEventRepository;
+    private static final String INSERT_SQL = "INSERT INTO container_event " +
+            "(host, container_name, container_id, event_type, timestamp, details, retry_count, log_tail) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_LOG_TAIL = 8192; // largo de la columna log_tail
+    private static final int MAX_DETAILS = 255; // largo de la columna details
 
-    public void registrarEvento(String nombre, String id, String tipo, String detalle) {
+    private final JdbcTemplate jdbcTemplate;
+    private final EventQueryService eventQueryService;
+    private final AnalyticsService analyticsService;
+
+    // Write-behind: registrarEvento solo encola, un único hilo escritor inserta en lotes.
+    // DROP_OLDEST descarta el evento más viejo si la cola está llena,
+    // BLOCK hace esperar al que registra hasta block-timeout-ms y después descarta
+    private final int capacidad;
+    private final int flushSize;
+    private final long flushIntervalMs;
+    private final String overflowPolicy;
+    private final long blockTimeoutMs;
+
+    private final Queue<ContainerEvent> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private volatile boolean detenido = false;
+    private final Timer timerRegistro;
+    private final Timer timerLote;
+    private Thread escritor;
+
+    public SentinelEventService(JdbcTemplate jdbcTemplate,
+                                EventQueryService eventQueryService,
+                                AnalyticsService analyticsService,
+                                MeterRegistry meterRegistry,
+                                @Value("${sentinel.events.queue-capacity:10000}") int capacidad,
+                                @Value("${sentinel.events.flush-size:200}") int flushSize,
+                                @Value("${sentinel.events.flush-interval-ms:1000}") long flushIntervalMs,
+                                @Value("${sentinel.events.overflow-policy:DROP_OLDEST}") String overflowPolicy,
+                                @Value("${sentinel.events.block-timeout-ms:500}") long blockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventQueryService = eventQueryService;
+        this.analyticsService = analyticsService;
+        this.capacidad = capacidad;
+        this.flushSize = flushSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+
+        timerRegistro = Timer.builder("sentinel.events.register")
+                .description("Costo de registrarEvento para quien llama (encolar)").register(meterRegistry);
+        timerLote = Timer.builder("sentinel.events.batch.insert")
+                .description("Duración de cada insert en lote").register(meterRegistry);
+        meterRegistry.gauge("sentinel.events.queue", pendientes);
+        FunctionCounter.builder("sentinel.events.dropped", descartados, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("sentinel.events.failed", fallidos, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        escritor = new Thread(this::escribir, "sentinel-event-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    public void registrarEvento(String host, String nombre, String id, String tipo, String detalle) {
+        registrarEvento(host, nombre, id, tipo, detalle, null);
+    }
+
+    // logTail: las últimas líneas de log del contenedor, se guardan como mucho los últimos MAX_LOG_TAIL caracteres
+    public void registrarEvento(String host, String nombre, String id, String tipo, String detalle, String logTail) {
+        long inicio = System.nanoTime();
         ContainerEvent evento = new ContainerEvent();
+        evento.setHost(host);
         evento.setContainerName(nombre);
         evento.setContainerId(id);
         evento.setEventType(tipo);
+        // un mensaje de error largo no puede hacer fallar el insert (y con él al lote entero)
+        if (detalle != null && detalle.length() > MAX_DETAILS) detalle = detalle.substring(0, MAX_DETAILS - 1) + "…";
         evento.setDetails(detalle);
+        if (logTail != null && logTail.length() > MAX_LOG_TAIL) logTail = logTail.substring(logTail.length() - MAX_LOG_TAIL);
+        evento.setLogTail(logTail);
         evento.setTimestamp(LocalDateTime.now());
 
-        sentinelEventRepository.save(evento);
+        // la DB y los contadores del dashboard se actualizan en el proximo lote
+        encolar(evento);
+        timerRegistro.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    private void encolar(ContainerEvent evento) {
+        if ("BLOCK".equalsIgnoreCase(overflowPolicy)) {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+            while (pendientes.get() >= capacidad && System.nanoTime() < limite) {
+                LockSupport.unpark(escritor);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        int enCola = reservarLugar();
+        cola.offer(evento);
+
+        // el escritor ya terminó (o está terminando): lo guarda quien lo registra
+        if (detenido) {
+            vaciar();
+        } else if (enCola >= flushSize) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    // Reserva un lugar en la cola con CAS, así dos productores no pasan juntos el límite.
+    // Si está llena (o sigue llena con BLOCK) el más viejo se descarta y su lugar pasa al nuevo
+    private int reservarLugar() {
+        while (true) {
+            int actuales = pendientes.get();
+            if (actuales < capacidad) {
+                if (pendientes.compareAndSet(actuales, actuales + 1)) return actuales + 1;
+            } else if (cola.poll() != null) {
+                descartados.incrementAndGet();
+                return actuales;
+            } else {
+                // lugares reservados por otros productores que todavía no encolaron
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void escribir() {
+        List<ContainerEvent> lote = new ArrayList<>(flushSize);
+        while (!detenido || pendientes.get() > 0) {
+            tomar(lote, flushSize);
+            if (!lote.isEmpty()) {
+                guardar(lote);
+                lote.clear();
+            }
+
+            // lote incompleto: esperamos al intervalo o a que un productor nos despierte
+            if (pendientes.get() < flushSize && !detenido) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            }
+        }
+    }
+
+    private void tomar(List<ContainerEvent> lote, int maximo) {
+        ContainerEvent evento;
+        while (lote.size() < maximo && (evento = cola.poll()) != null) {
+            pendientes.decrementAndGet();
+            lote.add(evento);
+        }
+    }
+
+    private void vaciar() {
+        List<ContainerEvent> lote = new ArrayList<>();
+        tomar(lote, Integer.MAX_VALUE);
+        if (!lote.isEmpty()) guardar(lote);
+    }
+
+    // Los contadores del dashboard cuentan solo lo que quedó en la DB: ni los descartados ni las filas que fallaron
+    private void guardar(List<ContainerEvent> lote) {
+        analyticsService.contarGuardados(() -> insertar(lote));
+    }
+
+    // Devuelve los eventos que se guardaron
+    private List<ContainerEvent> insertar(List<ContainerEvent> lote) {
+        long inicio = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, lote, lote.size(), SentinelEventService::asignar);
+            return lote;
+        } catch (Exception e) {
+            System.err.println("Error guardando lote de " + lote.size() + " eventos, se reintentan de a uno: "
+                    + e.getMessage());
+            return reintentarDeAUno(lote, e);
+        } finally {
+            // recién ahora la DB cambió: las páginas cacheadas de /api/events quedan viejas
+            eventQueryService.invalidar();
+            timerLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Una fila inválida no se lleva puesto al resto del lote. Las que el driver informa como guardadas
+    // (BatchUpdateException.getUpdateCounts) no se repiten; sin esa información se reintentan todas
+    private List<ContainerEvent> reintentarDeAUno(List<ContainerEvent> lote, Exception error) {
+        int[] resultados = new int[0];
+        for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+            if (causa instanceof BatchUpdateException batch && batch.getUpdateCounts() != null) {
+                resultados = batch.getUpdateCounts();
+                break;
+            }
+        }
+        List<ContainerEvent> guardados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            ContainerEvent evento = lote.get(i);
+            if (i < resultados.length && resultados[i] != Statement.EXECUTE_FAILED) {
+                guardados.add(evento);
+                continue;
+            }
+            try {
+                jdbcTemplate.update(INSERT_SQL, ps -> asignar(ps, evento));
+                guardados.add(evento);
+            } catch (Exception e) {
+                fallidos.incrementAndGet();
+                System.err.println("Error guardando evento " + evento.getEventType() + " de "
+                        + evento.getContainerName() + ": " + e.getMessage());
+            }
+        }
+        return guardados;
+    }
+
+    private static void asignar(PreparedStatement ps, ContainerEvent evento) throws SQLException {
+        ps.setString(1, evento.getHost());
+        ps.setString(2, evento.getContainerName());
+        ps.setString(3, evento.getContainerId());
+        ps.setString(4, evento.getEventType());
+        ps.setTimestamp(5, Timestamp.valueOf(evento.getTimestamp()));
+        ps.setString(6, evento.getDetails());
+        ps.setInt(7, evento.getRetryCount());
+        ps.setString(8, evento.getLogTail());
     }
 
-    public List<ContainerEvent> getRecentEvents() {
-        // obtengo los ultimos 10 eventos ordenados por fecha descendente
-        return sentinelEventRepository.findAll(
-                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "timestamp"))
-        ).getContent();
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // vaciamos lo que quede en la cola antes de que se cierre el DataSource
+        detenido = true;
+        LockSupport.unpark(escritor);
+        escritor.join(TimeUnit.SECONDS.toMillis(10));
     }
 }
@@ -1,32 +1,262 @@
 package com.farias.sentinel.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.farias.sentinel.config.SlackProperties;
+import com.farias.sentinel.model.Backoff;
+import com.farias.sentinel.model.SlackOutboxMessage;
+import com.farias.sentinel.model.TokenBucket;
+import com.farias.sentinel.repository.SlackOutboxRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+// enviarNotificacion solo encola: un único hilo junta lo que llegó en la ventana de agrupado y lo manda
+// como un solo mensaje, respetando el rate limit de Slack. Lo que no sale después de los reintentos
+// queda en la tabla slack_outbox y se vuelve a intentar más tarde.
 @Service
 public class SlackService {
 
+    private enum Resultado { OK, REINTENTAR, RECHAZADO }
+
     private final WebClient webClient;
-    @Value("${sentinel.slack.webhook}")
-    private String slackWebhookUrl;
+    private final SlackOutboxRepository outboxRepository;
+    private final SlackProperties properties;
+    private final TokenBucket rateLimit;
+    private final Backoff backoff;
+
+    private final Queue<String> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicLong descartados = new AtomicLong(); // por cola llena, se avisa en el próximo mensaje
+    private final AtomicLong descartadosTotal = new AtomicLong();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+    private volatile long pausaHasta; // System.nanoTime() hasta el que Slack pidió no mandar (Retry-After)
+    private volatile boolean detenido = false;
+    private Thread despachador;
 
-    public SlackService(WebClient.Builder webClientBuilder) {
+    public SlackService(WebClient.Builder webClientBuilder, SlackOutboxRepository outboxRepository,
+                        SlackProperties properties, MeterRegistry meterRegistry) {
         this.webClient = webClientBuilder.build();
+        this.outboxRepository = outboxRepository;
+        this.properties = properties;
+        this.rateLimit = new TokenBucket(properties.getRatePerSecond(), properties.getRateBurst());
+        this.backoff = new Backoff(properties.getBackoffBaseMs(), properties.getBackoffMaxMs());
+        this.pausaHasta = System.nanoTime();
+
+        meterRegistry.gauge("sentinel.slack.queue", pendientes);
+        FunctionCounter.builder("sentinel.slack.sent", enviados, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("sentinel.slack.rejected", rechazados, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("sentinel.slack.dropped", descartadosTotal, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        despachador = new Thread(this::despachar, "sentinel-slack-sender");
+        despachador.setDaemon(true);
+        despachador.start();
     }
 
     public void enviarNotificacion(String mensaje) {
-        // slack espera un JSON con la llave "text"
-        Map<String, String> body = Map.of("text", mensaje);
-
-        webClient.post()
-                .uri(slackWebhookUrl)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(String.class)
-                .subscribe(response -> System.out.println("Slack notificado: " + response),
-                        error -> System.err.println("Error notificando a Slack: " + error.getMessage()));
+        // nunca bloquea al que avisa: si la cola está llena se descarta el más viejo
+        while (pendientes.get() >= properties.getQueueCapacity() && cola.poll() != null) {
+            pendientes.decrementAndGet();
+            descartados.incrementAndGet();
+            descartadosTotal.incrementAndGet();
+        }
+        cola.offer(mensaje);
+        pendientes.incrementAndGet();
+    }
+
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    public long getEnviados() {
+        return enviados.get();
+    }
+
+    private void despachar() {
+        long proximoOutbox = System.nanoTime();
+        while (!detenido) {
+            // ventana de agrupado: todo lo que llegue mientras tanto sale en el mismo mensaje
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(properties.getCoalesceMs()));
+
+            try {
+                while (pendientes.get() > 0 && !detenido) {
+                    String texto = armarMensaje();
+                    if (texto == null) break;
+                    if (enviarConReintentos(texto) == Resultado.REINTENTAR) {
+                        guardarEnOutbox(texto, "reintentos agotados");
+                    }
+                }
+
+                if (System.nanoTime() - proximoOutbox >= 0 && !detenido) {
+                    reenviarOutbox();
+                    proximoOutbox = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getOutboxRetryMs());
+                }
+            } catch (Exception e) {
+                System.err.println("Error en el envío de notificaciones a Slack: " + e.getMessage());
+            }
+        }
+    }
+
+    // Un mensaje suelto sale tal cual; varios se juntan en un resumen hasta maxMessageChars
+    // (lo que no entra queda en la cola para el próximo mensaje). Devuelve null si la cola quedó vacía:
+    // el productor que descarta el más viejo puede haberla vaciado después de que leímos "pendientes"
+    private String armarMensaje() {
+        String primero = cola.poll();
+        if (primero == null) return null;
+        pendientes.decrementAndGet();
+        long perdidos = descartados.getAndSet(0);
+        if (cola.isEmpty() && perdidos == 0) return primero;
+
+        StringBuilder cuerpo = new StringBuilder(primero);
+        int incluidos = 1;
+        String siguiente;
+        while ((siguiente = cola.peek()) != null
+                && cuerpo.length() + siguiente.length() + 2 <= properties.getMaxMessageChars()) {
+            cola.poll();
+            pendientes.decrementAndGet();
+            cuerpo.append("\n\n").append(siguiente);
+            incluidos++;
+        }
+
+        StringBuilder texto = new StringBuilder(cuerpo.length() + 128);
+        texto.append("📣 *SENTINEL - ").append(incluidos).append(incluidos == 1 ? " notificación*" : " notificaciones*");
+        if (perdidos > 0) texto.append(" (").append(perdidos).append(" descartadas por exceso)");
+        texto.append("\n\n").append(cuerpo);
+        int restantes = pendientes.get();
+        if (restantes > 0) texto.append("\n\n_... y ").append(restantes).append(" más en el próximo mensaje_");
+        return texto.toString();
+    }
+
+    private Resultado enviarConReintentos(String texto) {
+        Resultado resultado = Resultado.REINTENTAR;
+        for (int intento = 1; intento <= properties.getMaxRetries() + 1 && !detenido; intento++) {
+            dormirNanos(TimeUnit.MILLISECONDS.toNanos(backoff.calcularEspera(intento)));
+            resultado = enviar(texto);
+            if (resultado != Resultado.REINTENTAR) break;
+        }
+        if (resultado == Resultado.OK) enviados.incrementAndGet();
+        return resultado;
+    }
+
+    private Resultado enviar(String texto) {
+        esperarTurno();
+        try {
+            // slack espera un JSON con la llave "text"
+            webClient.post()
+                    .uri(properties.getWebhook())
+                    .bodyValue(Map.of("text", texto))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(Duration.ofMillis(properties.getTimeoutMs()));
+            return Resultado.OK;
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().value() == 429) {
+                pausaHasta = System.nanoTime() + TimeUnit.SECONDS.toNanos(leerRetryAfter(e));
+                return Resultado.REINTENTAR;
+            }
+            if (e.getStatusCode().is4xxClientError()) {
+                // payload inválido o webhook revocado: reintentar no lo va a arreglar
+                rechazados.incrementAndGet();
+                System.err.println("Slack rechazó la notificación (" + e.getStatusCode().value() + "): "
+                        + e.getResponseBodyAsString());
+                return Resultado.RECHAZADO;
+            }
+            System.err.println("Error notificando a Slack: " + e.getStatusCode().value());
+            return Resultado.REINTENTAR;
+        } catch (Exception e) {
+            System.err.println("Error notificando a Slack: " + e.getMessage());
+            return Resultado.REINTENTAR;
+        }
+    }
+
+    // Espera el Retry-After pendiente y un token del rate limit
+    private void esperarTurno() {
+        dormirNanos(pausaHasta - System.nanoTime());
+        while (!detenido && !rateLimit.intentarConsumir()) {
+            dormirNanos(rateLimit.esperaNanos());
+        }
+    }
+
+    private void reenviarOutbox() {
+        List<SlackOutboxMessage> mensajes = outboxRepository.findTop10ByOrderByIdAsc();
+        for (SlackOutboxMessage mensaje : mensajes) {
+            if (detenido || pendientes.get() > 0) return; // lo nuevo tiene prioridad sobre lo viejo
+            Resultado resultado = enviar(mensaje.getTexto());
+            if (resultado == Resultado.REINTENTAR) {
+                mensaje.setIntentos(mensaje.getIntentos() + 1);
+                mensaje.setUltimoError("sin respuesta de Slack");
+                outboxRepository.save(mensaje);
+                return; // Slack sigue sin responder, probamos en el próximo ciclo
+            }
+            if (resultado == Resultado.OK) enviados.incrementAndGet();
+            outboxRepository.delete(mensaje);
+        }
+    }
+
+    private void guardarEnOutbox(String texto, String error) {
+        try {
+            SlackOutboxMessage mensaje = new SlackOutboxMessage();
+            mensaje.setTexto(texto);
+            mensaje.setCreado(LocalDateTime.now());
+            mensaje.setUltimoError(error);
+            outboxRepository.save(mensaje);
+
+            // el outbox tiene tope: si Slack está caído mucho tiempo se pierden los más viejos
+            long sobrantes = outboxRepository.count() - properties.getOutboxMax();
+            if (sobrantes > 0) {
+                List<SlackOutboxMessage> viejos = outboxRepository.findTop10ByOrderByIdAsc();
+                outboxRepository.deleteAll(viejos.subList(0, (int) Math.min(sobrantes, viejos.size())));
+            }
+        } catch (Exception e) {
+            System.err.println("No se pudo guardar la notificación en el outbox: " + e.getMessage());
+        }
+    }
+
+    private static long leerRetryAfter(WebClientResponseException e) {
+        String valor = e.getHeaders().getFirst("Retry-After");
+        if (valor == null) return 1;
+        try {
+            return Math.max(1, Long.parseLong(valor.trim()));
+        } catch (NumberFormatException ex) {
+            return 1;
+        }
+    }
+
+    private void dormirNanos(long nanos) {
+        long limite = System.nanoTime() + nanos;
+        long restante;
+        while (!detenido && (restante = limite - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        detenido = true;
+        LockSupport.unpark(despachador);
+        despachador.join(TimeUnit.SECONDS.toMillis(5));
+
+        // lo que no llegó a salir queda en el outbox para el próximo arranque (con el perfil persistent)
+        String texto;
+        while (pendientes.get() > 0 && (texto = armarMensaje()) != null) {
+            guardarEnOutbox(texto, "pendiente al apagar");
+        }
     }
 }
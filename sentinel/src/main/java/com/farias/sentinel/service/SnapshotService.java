@@ -0,0 +1,186 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.CrashLoopDetector;
+import com.farias.sentinel.model.LeakDetector;
+import com.farias.sentinel.model.LogTail;
+import com.farias.sentinel.model.RuleEvaluator;
+import com.farias.sentinel.model.RuntimeSnapshot;
+import com.farias.sentinel.model.TrackedContainer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reinicio en caliente: ContainerService guarda periódicamente (y al apagarse) lo que no se puede reconstruir
+// listando Docker, y al arrancar se restaura. Los reintentos se cargan de una; el estado de cada contenedor
+// queda pendiente hasta que el primer listado lo vuelve a encontrar. Lo pendiente de un host que todavía no se
+// pudo listar se vuelve a guardar tal cual, así un daemon caído durante el reinicio no pierde su estado.
+@Service
+public class SnapshotService {
+
+    private final PredictionService predictionService;
+    private final LogTailService logTailService;
+    private final Map<String, Map<String, RuntimeSnapshot.Contenedor>> pendientes = new ConcurrentHashMap<>();
+    private final Map<String, Integer> reintentos = new HashMap<>();
+    private final Timer escritura;
+    private final AtomicLong bytes = new AtomicLong();
+
+    // Vacío desactiva el snapshot
+    @Value("${sentinel.snapshot.path:}")
+    private String ruta = "";
+
+    public SnapshotService(PredictionService predictionService, LogTailService logTailService,
+                           MeterRegistry meterRegistry) {
+        this.predictionService = predictionService;
+        this.logTailService = logTailService;
+        this.escritura = Timer.builder("sentinel.snapshot.write")
+                .description("Duración de la escritura del snapshot").register(meterRegistry);
+        meterRegistry.gauge("sentinel.snapshot.bytes", bytes);
+    }
+
+    public boolean isActivo() {
+        return ruta != null && !ruta.isBlank();
+    }
+
+    @PostConstruct
+    public void cargar() {
+        if (!isActivo() || !Files.exists(Path.of(ruta))) return;
+        try (InputStream entrada = Files.newInputStream(Path.of(ruta))) {
+            RuntimeSnapshot snapshot = RuntimeSnapshot.leer(entrada);
+            reintentos.putAll(snapshot.getReintentos());
+            snapshot.getPorHost().forEach((host, contenedores) -> pendientes.put(host, new ConcurrentHashMap<>(contenedores)));
+            System.out.println("Snapshot restaurado (" + ruta + "): " + reintentos.size() + " contadores de reintentos, "
+                    + pendientes.values().stream().mapToInt(Map::size).sum() + " contenedores, de hace "
+                    + (System.currentTimeMillis() - snapshot.getTomado()) / 1000 + "s");
+        } catch (IOException | RuntimeException e) {
+            // un snapshot ilegible no impide arrancar: se arranca en frío como antes
+            System.err.println("No se pudo leer el snapshot " + ruta + ", se arranca sin estado: " + e.getMessage());
+        }
+    }
+
+    // Reintentos por host:nombre, los carga ContainerService al construirse
+    public Map<String, Integer> getReintentos() {
+        return reintentos;
+    }
+
+    // Se llama cuando un contenedor recién apareció y ya tiene sus reglas compiladas
+    public void restaurar(TrackedContainer tracked) {
+        Map<String, RuntimeSnapshot.Contenedor> delHost = pendientes.get(tracked.getHost());
+        RuntimeSnapshot.Contenedor guardado = delHost != null ? delHost.remove(tracked.getId()) : null;
+        if (guardado == null) return;
+
+        if (guardado.getCaidas() != null || guardado.getCaidasSilenciadasHasta() != 0) {
+            CrashLoopDetector caidas = predictionService.detectorDeCaidas(tracked);
+            synchronized (caidas) {
+                caidas.restaurar(guardado.getCaidas() != null ? guardado.getCaidas() : new long[0],
+                        guardado.getCaidasSilenciadasHasta());
+            }
+        }
+        if (guardado.getAvisoFuga() != 0) {
+            LeakDetector fuga = predictionService.detectorDeFuga(tracked);
+            synchronized (fuga) {
+                fuga.setUltimoAviso(guardado.getAvisoFuga());
+            }
+        }
+        if (guardado.getAvisoLogs() != 0) {
+            logTailService.colaDe(tracked).setUltimoAviso(guardado.getAvisoLogs());
+        }
+        RuleEvaluator[] reglas = tracked.getReglas();
+        if (guardado.getDisparos() != null && reglas != null) {
+            synchronized (reglas) {
+                for (RuleEvaluator regla : reglas) {
+                    Long disparo = guardado.getDisparos().get(regla.getRegla().getNombre());
+                    if (disparo != null) regla.setUltimoDisparo(disparo);
+                }
+            }
+        }
+    }
+
+    // Después de un listado completo del host: lo que no apareció ya no existe
+    public void descartarPendientes(String host) {
+        pendientes.remove(host);
+    }
+
+    public void guardar(Collection<TrackedContainer> contenedores, Map<String, AtomicInteger> reintentosPorNombre) {
+        if (!isActivo()) return;
+        long inicio = System.nanoTime();
+        RuntimeSnapshot snapshot = new RuntimeSnapshot(System.currentTimeMillis());
+
+        reintentosPorNombre.forEach((clave, contador) -> {
+            int intentos = contador.get();
+            if (intentos > 0) snapshot.getReintentos().put(clave, intentos);
+        });
+        pendientes.forEach((host, delHost) -> delHost.forEach((id, guardado) -> snapshot.agregar(host, id, guardado)));
+        for (TrackedContainer tracked : contenedores) {
+            RuntimeSnapshot.Contenedor guardado = exportar(tracked);
+            // la mayoría no tiene nada que recordar y no ocupa lugar
+            if (!guardado.isVacio()) snapshot.agregar(tracked.getHost(), tracked.getId(), guardado);
+        }
+
+        // se escribe al lado y se renombra: un corte a mitad de camino deja el snapshot anterior entero
+        Path destino = Path.of(ruta);
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try {
+            if (destino.getParent() != null) Files.createDirectories(destino.getParent());
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                snapshot.escribir(salida);
+            }
+            bytes.set(Files.size(temporal));
+            try {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo escribir el snapshot " + ruta + ": " + e.getMessage());
+        } finally {
+            escritura.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static RuntimeSnapshot.Contenedor exportar(TrackedContainer tracked) {
+        RuntimeSnapshot.Contenedor guardado = new RuntimeSnapshot.Contenedor();
+        CrashLoopDetector caidas = tracked.getCaidas();
+        if (caidas != null) {
+            synchronized (caidas) {
+                guardado.setCaidas(caidas.getRecientes());
+                guardado.setCaidasSilenciadasHasta(caidas.getSilenciadoHasta());
+            }
+        }
+        LeakDetector fuga = tracked.getFuga();
+        if (fuga != null) {
+            synchronized (fuga) {
+                guardado.setAvisoFuga(Math.max(0, fuga.getUltimoAviso()));
+            }
+        }
+        LogTail logs = tracked.getLogs();
+        if (logs != null) guardado.setAvisoLogs(logs.getUltimoAviso());
+        RuleEvaluator[] reglas = tracked.getReglas();
+        if (reglas != null && reglas.length > 0) {
+            Map<String, Long> disparos = new HashMap<>();
+            synchronized (reglas) {
+                for (RuleEvaluator regla : reglas) {
+                    if (regla.getUltimoDisparo() > 0) disparos.put(regla.getRegla().getNombre(), regla.getUltimoDisparo());
+                }
+            }
+            if (!disparos.isEmpty()) guardado.setDisparos(disparos);
+        }
+        return guardado;
+    }
+}
@@ -0,0 +1,239 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.DockerHost;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Statistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntBiFunction;
+
+// Modo "poll" de métricas: en vez de un stream HTTP abierto por contenedor, un pool acotado de hilos
+// pide una sola muestra (stream=false) a cada contenedor cuando le toca. Con varios hosts el pool es compartido,
+// pero cada host tiene un tope de muestras en vuelo para que uno lento no acapare todos los hilos.
+// docker-java no tiene one-shot: cada muestra tiene un hilo ocupado 1-2s mientras el daemon junta el precpu.
+// Por eso el pool crece con la demanda (contenedores / intervalo × duración de una muestra) entre threads y
+// max-threads; pasado max-threads el intervalo real se alarga (sentinel.stats.sample.interval lo muestra).
+@Service
+public class StatsCollector {
+
+    // Lo que devuelve el procesador de muestras para ajustar la frecuencia
+    public static final int NORMAL = 0;
+    public static final int CERCA_DEL_UMBRAL = 1;
+
+    private static final long TICK_MS = 250;
+
+    private final Map<String, Muestreo> contenedores = new ConcurrentHashMap<>(); // por clave host:containerId
+    private final Map<String, AtomicInteger> enVueloPorHost = new ConcurrentHashMap<>();
+
+    private final String modo;
+    private final int threads;
+    private final int maxThreads;
+    private final long intervaloMs;
+    private final long intervaloRapidoMs; // contenedores cerca de algún umbral se muestrean más seguido
+    private final long timeoutMs;
+    private final int maxPorHost; // 0 = el tamaño actual del pool
+
+    private ScheduledExecutorService planificador;
+    private ThreadPoolExecutor pool;
+    private volatile double duracionMediaMs = 1000; // EWMA de lo que tarda una muestra, arranca pesimista
+    private volatile ToIntBiFunction<String, Statistics> procesador = (id, stats) -> NORMAL;
+
+    private final Timer retraso;
+    private final Timer intervaloReal;
+    private final Timer duracion;
+    private final Counter timeouts;
+    private final Counter errores;
+
+    // max-per-host 0 = el total de hilos: con un solo host no tiene sentido dejar hilos sin usar
+    public StatsCollector(@Value("${sentinel.stats.mode:stream}") String modo,
+                          @Value("${sentinel.stats.threads:8}") int threads,
+                          @Value("${sentinel.stats.max-threads:64}") int maxThreads,
+                          @Value("${sentinel.stats.interval-ms:10000}") long intervaloMs,
+                          @Value("${sentinel.stats.fast-interval-ms:2000}") long intervaloRapidoMs,
+                          @Value("${sentinel.stats.timeout-ms:5000}") long timeoutMs,
+                          @Value("${sentinel.stats.max-per-host:0}") int maxPorHost,
+                          MeterRegistry meterRegistry) {
+        this.modo = modo;
+        this.threads = threads;
+        this.maxThreads = Math.max(threads, maxThreads);
+        this.intervaloMs = intervaloMs;
+        this.intervaloRapidoMs = intervaloRapidoMs;
+        this.timeoutMs = timeoutMs;
+        this.maxPorHost = Math.max(0, Math.min(maxPorHost, this.maxThreads));
+        this.retraso = Timer.builder("sentinel.stats.sample.lag")
+                .description("Cuánto después de lo planificado arranca cada muestra").register(meterRegistry);
+        this.intervaloReal = Timer.builder("sentinel.stats.sample.interval")
+                .description("Tiempo real entre dos muestras del mismo contenedor").register(meterRegistry);
+        this.duracion = Timer.builder("sentinel.stats.sample.duration")
+                .description("Cuánto tiene ocupado un hilo cada muestra").register(meterRegistry);
+        this.timeouts = Counter.builder("sentinel.stats.samples.dropped").tag("reason", "timeout").register(meterRegistry);
+        this.errores = Counter.builder("sentinel.stats.samples.dropped").tag("reason", "error").register(meterRegistry);
+        meterRegistry.gauge("sentinel.stats.registered", contenedores, Map::size);
+        meterRegistry.gauge("sentinel.stats.threads", this, c -> c.pool != null ? c.pool.getCorePoolSize() : 0);
+    }
+
+    public boolean isActivo() {
+        return "poll".equalsIgnoreCase(modo);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!isActivo()) return;
+        pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                hilos("sentinel-stats-"));
+        // los hilos que sobran cuando baja la demanda se van solos
+        pool.allowCoreThreadTimeOut(true);
+        planificador = Executors.newSingleThreadScheduledExecutor(hilos("sentinel-stats-scheduler-"));
+        planificador.scheduleWithFixedDelay(this::despachar, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void setProcesador(ToIntBiFunction<String, Statistics> procesador) {
+        this.procesador = procesador;
+    }
+
+    public void registrar(String clave, DockerHost host, String containerId) {
+        // se llama en cada tick por cada contenedor corriendo: el caso normal (ya registrado) no crea nada
+        if (contenedores.containsKey(clave)) return;
+        // repartimos la primera muestra a lo largo del intervalo para no pedir todo junto
+        long desfase = (long) (Math.random() * intervaloMs);
+        AtomicInteger enVuelo = enVueloPorHost.computeIfAbsent(host.getNombre(), h -> new AtomicInteger());
+        contenedores.putIfAbsent(clave,
+                new Muestreo(clave, host, containerId, enVuelo, System.currentTimeMillis() + desfase, intervaloMs));
+    }
+
+    public void quitar(String clave) {
+        contenedores.remove(clave);
+    }
+
+    public boolean estaRegistrado(String clave) {
+        return contenedores.containsKey(clave);
+    }
+
+    public int size() {
+        return contenedores.size();
+    }
+
+    private void despachar() {
+        long ahora = System.currentTimeMillis();
+        // muestras por milisegundo que pide la tabla; × la duración de una muestra = hilos ocupados (Little)
+        double demanda = 0;
+        for (Muestreo muestreo : contenedores.values()) {
+            demanda += 1.0 / muestreo.intervalo;
+        }
+        int tope = ajustarPool((int) Math.ceil(demanda * duracionMediaMs));
+        for (Muestreo muestreo : contenedores.values()) {
+            if (!muestreo.enCurso && muestreo.proximo <= ahora && muestreo.enVueloHost.get() < tope) {
+                // como mucho una muestra en vuelo por contenedor: la cola nunca crece más que la tabla
+                muestreo.enCurso = true;
+                muestreo.enVueloHost.incrementAndGet();
+                pool.execute(() -> muestrear(muestreo));
+            }
+        }
+    }
+
+    // Devuelve el tope de muestras en vuelo por host con el tamaño nuevo
+    private int ajustarPool(int necesarios) {
+        int objetivo = Math.max(threads, Math.min(maxThreads, necesarios));
+        int actual = pool.getCorePoolSize();
+        // el máximo nunca puede quedar por debajo del core: al crecer se sube primero, al achicar después
+        if (objetivo > actual) {
+            pool.setMaximumPoolSize(objetivo);
+            pool.setCorePoolSize(objetivo);
+        } else if (objetivo < actual) {
+            pool.setCorePoolSize(objetivo);
+            pool.setMaximumPoolSize(objetivo);
+        }
+        return maxPorHost > 0 ? maxPorHost : objetivo;
+    }
+
+    private void muestrear(Muestreo muestreo) {
+        long intervalo = intervaloMs;
+        long inicio = System.currentTimeMillis();
+        retraso.record(Math.max(0, inicio - muestreo.proximo), TimeUnit.MILLISECONDS);
+        if (muestreo.ultimoInicio > 0) intervaloReal.record(inicio - muestreo.ultimoInicio, TimeUnit.MILLISECONDS);
+        muestreo.ultimoInicio = inicio;
+        try {
+            UnaMuestra callback = muestreo.host.getClient().statsCmd(muestreo.containerId)
+                    .withNoStream(true).exec(new UnaMuestra());
+            if (!callback.awaitCompletion(timeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                callback.close();
+            } else if (callback.stats != null
+                    && procesador.applyAsInt(muestreo.clave, callback.stats) == CERCA_DEL_UMBRAL) {
+                intervalo = intervaloRapidoMs;
+            }
+        } catch (Exception e) {
+            errores.increment();
+            System.err.println("Error leyendo stats de " + muestreo.clave + ": " + e.getMessage());
+        } finally {
+            long fin = System.currentTimeMillis();
+            duracion.record(fin - inicio, TimeUnit.MILLISECONDS);
+            // sin lock: perder una actualización de vez en cuando no cambia el tamaño del pool
+            duracionMediaMs = duracionMediaMs * 0.9 + (fin - inicio) * 0.1;
+            muestreo.intervalo = intervalo;
+            muestreo.proximo = fin + intervalo;
+            muestreo.enVueloHost.decrementAndGet();
+            muestreo.enCurso = false;
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (planificador != null) planificador.shutdownNow();
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private static ThreadFactory hilos(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefijo + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static class Muestreo {
+        private final String clave;
+        private final DockerHost host;
+        private final String containerId;
+        private final AtomicInteger enVueloHost; // compartido por todos los contenedores del host
+        private volatile long proximo; // epoch millis de la próxima muestra
+        private volatile long intervalo; // normal o rápido, según la última muestra
+        private volatile long ultimoInicio;
+        private volatile boolean enCurso;
+
+        private Muestreo(String clave, DockerHost host, String containerId, AtomicInteger enVueloHost, long proximo,
+                         long intervalo) {
+            this.clave = clave;
+            this.host = host;
+            this.containerId = containerId;
+            this.enVueloHost = enVueloHost;
+            this.proximo = proximo;
+            this.intervalo = intervalo;
+        }
+    }
+
+    private static class UnaMuestra extends ResultCallback.Adapter<Statistics> {
+        private volatile Statistics stats;
+
+        @Override
+        public void onNext(Statistics stats) {
+            this.stats = stats;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.dto.ContainerStatusDTO;
+import com.farias.sentinel.model.CompactFeedFormat;
+import com.farias.sentinel.model.TrackedContainer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Feed SSE del estado de los contenedores: un Flux caliente con los mismos lotes que StatusPublisher manda por
+// STOMP. Cada DTO se serializa una sola vez por lote, sin importar cuántos clientes haya; un cliente filtrado
+// recibe el mismo JSON recortado (se concatenan los fragmentos ya serializados).
+// Un cliente lento no frena a nadie: se le guarda solo el último lote y, si se saltea alguno, recibe el
+// estado completo de nuevo en lugar de los lotes intermedios.
+// Los mismos lotes salen también en el formato compacto (CompactFeedFormat) para el WebSocket de /ws/containers;
+// cada contenedor se codifica una vez por lote en los dos formatos, y el binario recién cuando algún cliente lo pide.
+@Service
+public class StatusFeed {
+
+    private static final Lote KEEPALIVE = new Lote(-1, List.of(), List.of());
+    private static final Mensaje MENSAJE_KEEPALIVE = new Mensaje("keepalive", null, null);
+
+    private final ObjectMapper objectMapper;
+    private final Sinks.Many<Lote> sink = Sinks.many().multicast().directBestEffort();
+    private final Map<String, Item> estado = new ConcurrentHashMap<>(); // último JSON por clave host:id
+    private final AtomicInteger suscriptores = new AtomicInteger();
+    private final Counter resincronizaciones;
+    private volatile long secuencia;
+    private int ultimoIndice; // índices del formato compacto: nunca se reutilizan
+    // el completo sin filtro, armado a lo sumo una vez por lote en cada formato
+    private volatile Snapshot<String> snapshot;
+    private volatile Snapshot<byte[]> snapshotCompacto;
+
+    @Value("${sentinel.feed.keepalive-seconds:15}")
+    private long keepaliveSegundos = 15;
+
+    public StatusFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        meterRegistry.gauge("sentinel.feed.subscribers", suscriptores);
+        this.resincronizaciones = Counter.builder("sentinel.feed.resyncs")
+                .description("Estados completos reenviados a clientes que se atrasaron").register(meterRegistry);
+    }
+
+    // Lo llama StatusPublisher en cada flush, siempre desde el mismo hilo
+    public synchronized void publicar(List<ContainerStatusDTO> cambios, List<String> eliminados) {
+        if (cambios.isEmpty() && eliminados.isEmpty()) return;
+
+        List<Item> actualizados = new ArrayList<>(cambios.size());
+        for (ContainerStatusDTO dto : cambios) {
+            String clave = TrackedContainer.clave(dto.getHost(), dto.getId());
+            Item anterior = estado.get(clave);
+            // el índice y la definición se mantienen mientras el contenedor exista y no cambie de nombre
+            boolean definicionNueva = anterior == null || !Objects.equals(anterior.nombre, dto.getNombre());
+            Item item = new Item(clave, dto.getHost(), dto.getId(), dto.getNombre(), serializar(dto),
+                    anterior != null ? anterior.indice : ++ultimoIndice, dto, definicionNueva);
+            estado.put(item.clave, item);
+            actualizados.add(item);
+        }
+        List<Item> borrados = new ArrayList<>(eliminados.size());
+        for (String clave : eliminados) {
+            Item anterior = estado.remove(clave);
+            borrados.add(anterior != null ? anterior : Item.soloClave(clave));
+        }
+
+        Lote lote = new Lote(++secuencia, actualizados, borrados);
+        sink.tryEmitNext(lote);
+    }
+
+    public int getSuscriptores() {
+        return suscriptores.get();
+    }
+
+    // host y contenedor (id, prefijo del id o nombre) son opcionales
+    public Flux<ServerSentEvent<String>> suscribir(String host, String contenedor) {
+        return mensajes(host, contenedor, false).map(mensaje -> mensaje == MENSAJE_KEEPALIVE
+                ? ServerSentEvent.<String>builder().comment("keepalive").build()
+                : evento(mensaje.tipo(), mensaje.json()));
+    }
+
+    // Los mismos mensajes para el WebSocket: JSON o, con compacto, bytes de CompactFeedFormat
+    public Flux<Mensaje> mensajes(String host, String contenedor, boolean compacto) {
+        Filtro filtro = host == null && contenedor == null ? null : new Filtro(host, contenedor);
+        return Flux.defer(() -> {
+            long[] ultimo = {secuencia}; // se lee antes de armar el snapshot: a lo sumo se repite algún cambio
+            Mensaje inicial = snapshot(filtro, compacto);
+
+            Flux<Lote> keepalive = Flux.interval(Duration.ofSeconds(keepaliveSegundos)).map(i -> KEEPALIVE);
+            Flux<Mensaje> lotes = Flux.merge(sink.asFlux(), keepalive)
+                    // por cliente: si no consume, se queda solo con el último lote
+                    .onBackpressureLatest()
+                    // la escritura al socket es bloqueante: no puede correr en el hilo que publica
+                    .publishOn(Schedulers.boundedElastic(), 1)
+                    .handle((lote, salida) -> {
+                        if (lote == KEEPALIVE) {
+                            salida.next(MENSAJE_KEEPALIVE);
+                            return;
+                        }
+                        if (lote.secuencia <= ultimo[0]) return; // ya incluido en el snapshot
+                        if (lote.secuencia != ultimo[0] + 1) {
+                            // se perdió algún lote intermedio: el último no alcanza, va el estado completo
+                            ultimo[0] = secuencia;
+                            resincronizaciones.increment();
+                            salida.next(snapshot(filtro, compacto));
+                            return;
+                        }
+                        ultimo[0] = lote.secuencia;
+                        if (compacto) {
+                            byte[] binario = filtro == null ? lote.binario() : lote.filtrarBinario(filtro);
+                            if (binario != null) salida.next(new Mensaje("batch", null, binario));
+                        } else {
+                            String json = filtro == null ? lote.json() : lote.filtrar(filtro);
+                            if (json != null) salida.next(new Mensaje("batch", json, null));
+                        }
+                    });
+
+            return lotes.startWith(inicial);
+        }).doOnSubscribe(s -> suscriptores.incrementAndGet())
+                .doFinally(s -> suscriptores.decrementAndGet());
+    }
+
+    private Mensaje snapshot(Filtro filtro, boolean compacto) {
+        return compacto ? new Mensaje("snapshot", null, snapshotCompacto(filtro))
+                : new Mensaje("snapshot", snapshot(filtro), null);
+    }
+
+    private String snapshot(Filtro filtro) {
+        if (filtro != null) return armar(estado.values(), List.of(), filtro);
+        long actual = secuencia;
+        Snapshot<String> cache = snapshot;
+        if (cache == null || cache.secuencia != actual) {
+            cache = new Snapshot<>(actual, armar(estado.values(), List.of(), null));
+            snapshot = cache;
+        }
+        return cache.contenido;
+    }
+
+    private byte[] snapshotCompacto(Filtro filtro) {
+        if (filtro != null) return armarBinario(CompactFeedFormat.SNAPSHOT, estado.values(), List.of(), filtro);
+        long actual = secuencia;
+        Snapshot<byte[]> cache = snapshotCompacto;
+        if (cache == null || cache.secuencia != actual) {
+            cache = new Snapshot<>(actual, armarBinario(CompactFeedFormat.SNAPSHOT, estado.values(), List.of(), null));
+            snapshotCompacto = cache;
+        }
+        return cache.contenido;
+    }
+
+    private static ServerSentEvent<String> evento(String tipo, String json) {
+        return ServerSentEvent.builder(json).event(tipo).build();
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el estado para el feed", e);
+        }
+    }
+
+    // Misma forma que ContainerBatchDTO, armada con los fragmentos ya serializados
+    private static String armar(Collection<Item> cambios, Collection<Item> eliminados, Filtro filtro) {
+        StringBuilder json = new StringBuilder(64 + cambios.size() * 160);
+        json.append("{\"cambios\":[");
+        boolean primero = true;
+        for (Item item : cambios) {
+            if (filtro != null && !filtro.acepta(item)) continue;
+            if (!primero) json.append(',');
+            json.append(item.json);
+            primero = false;
+        }
+        json.append("],\"eliminados\":[");
+        primero = true;
+        for (Item item : eliminados) {
+            if (filtro != null && !filtro.acepta(item)) continue;
+            if (!primero) json.append(',');
+            json.append(item.claveJson);
+            primero = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    // Un snapshot lleva las definiciones de todos; un lote, solo las de los contenedores nuevos o renombrados
+    private static byte[] armarBinario(int tipo, Collection<Item> cambios, Collection<Item> eliminados, Filtro filtro) {
+        List<byte[]> definiciones = new ArrayList<>();
+        List<byte[]> codificados = new ArrayList<>(cambios.size());
+        for (Item item : cambios) {
+            if (filtro != null && !filtro.acepta(item)) continue;
+            if (tipo == CompactFeedFormat.SNAPSHOT || item.definicionNueva) definiciones.add(item.definicion());
+            codificados.add(item.binario());
+        }
+        int[] indices = new int[eliminados.size()];
+        int cantidad = 0;
+        for (Item item : eliminados) {
+            // uno que el feed nunca vio no tiene índice: ningún cliente lo conoce
+            if (item.indice <= 0 || (filtro != null && !filtro.acepta(item))) continue;
+            indices[cantidad++] = item.indice;
+        }
+        return CompactFeedFormat.mensaje(tipo, definiciones, codificados, Arrays.copyOf(indices, cantidad));
+    }
+
+    // Un mensaje del feed: JSON para SSE y el WebSocket de texto, binario para el compacto; keepalive no trae nada
+    public record Mensaje(String tipo, String json, byte[] binario) {
+    }
+
+    private static final class Item {
+        private final String clave;
+        private final String host;
+        private final String id;
+        private final String nombre;
+        private final String json;
+        private final String claveJson;
+        private final int indice;
+        private final ContainerStatusDTO dto;
+        private final boolean definicionNueva;
+        private volatile byte[] definicion;
+        private volatile byte[] binario;
+
+        private Item(String clave, String host, String id, String nombre, String json,
+                     int indice, ContainerStatusDTO dto, boolean definicionNueva) {
+            this.clave = clave;
+            this.host = host;
+            this.id = id;
+            this.nombre = nombre;
+            this.json = json;
+            this.claveJson = "\"" + clave.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            this.indice = indice;
+            this.dto = dto;
+            this.definicionNueva = definicionNueva;
+        }
+
+        // un eliminado que el feed nunca vio: solo conocemos su clave host:id
+        private static Item soloClave(String clave) {
+            int separador = clave.lastIndexOf(':');
+            return new Item(clave, separador > 0 ? clave.substring(0, separador) : null,
+                    clave.substring(separador + 1), null, null, 0, null, false);
+        }
+
+        // los fragmentos binarios se codifican con el primer cliente compacto que los necesita
+        private byte[] definicion() {
+            byte[] codificado = definicion;
+            if (codificado == null) {
+                codificado = CompactFeedFormat.definicion(indice, host, id, nombre);
+                definicion = codificado;
+            }
+            return codificado;
+        }
+
+        private byte[] binario() {
+            byte[] codificado = binario;
+            if (codificado == null) {
+                codificado = CompactFeedFormat.cambio(indice, dto);
+                binario = codificado;
+            }
+            return codificado;
+        }
+    }
+
+    private static final class Lote {
+        private final long secuencia;
+        private final List<Item> cambios;
+        private final List<Item> eliminados;
+        private volatile String json;
+        private volatile byte[] binario;
+
+        private Lote(long secuencia, List<Item> cambios, List<Item> eliminados) {
+            this.secuencia = secuencia;
+            this.cambios = cambios;
+            this.eliminados = eliminados;
+        }
+
+        // se arma con el primer cliente sin filtro que lo necesita y se comparte con el resto
+        private String json() {
+            String armado = json;
+            if (armado == null) {
+                armado = armar(cambios, eliminados, null);
+                json = armado;
+            }
+            return armado;
+        }
+
+        private byte[] binario() {
+            byte[] armado = binario;
+            if (armado == null) {
+                armado = armarBinario(CompactFeedFormat.BATCH, cambios, eliminados, null);
+                binario = armado;
+            }
+            return armado;
+        }
+
+        // null si no queda nada para este cliente
+        private String filtrar(Filtro filtro) {
+            return acepta(filtro) ? armar(cambios, eliminados, filtro) : null;
+        }
+
+        private byte[] filtrarBinario(Filtro filtro) {
+            return acepta(filtro) ? armarBinario(CompactFeedFormat.BATCH, cambios, eliminados, filtro) : null;
+        }
+
+        private boolean acepta(Filtro filtro) {
+            boolean alguno = false;
+            for (Item item : cambios) alguno |= filtro.acepta(item);
+            for (Item item : eliminados) alguno |= filtro.acepta(item);
+            return alguno;
+        }
+    }
+
+    private static final class Snapshot<T> {
+        private final long secuencia;
+        private final T contenido;
+
+        private Snapshot(long secuencia, T contenido) {
+            this.secuencia = secuencia;
+            this.contenido = contenido;
+        }
+    }
+
+    private static final class Filtro {
+        private final String host;
+        private final String contenedor;
+
+        private Filtro(String host, String contenedor) {
+            this.host = host;
+            this.contenedor = contenedor;
+        }
+
+        private boolean acepta(Item item) {
+            if (host != null && !host.equals(item.host)) return false;
+            return contenedor == null || contenedor.equals(item.nombre)
+                    || (item.id != null && item.id.startsWith(contenedor));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.dto.ContainerBatchDTO;
+import com.farias.sentinel.dto.ContainerStatusDTO;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Junta los cambios de estado y los manda al dashboard en un solo frame por intervalo
+@Service
+public class StatusPublisher {
+
+    public static final String TOPIC_BATCH = "/topic/containers/batch";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StatusFeed statusFeed;
+    private final Map<String, ContainerStatusDTO> ultimoEnviado = new ConcurrentHashMap<>();
+    private final Map<String, ContainerStatusDTO> pendientes = new ConcurrentHashMap<>();
+    private final Set<String> eliminados = ConcurrentHashMap.newKeySet();
+
+    public StatusPublisher(SimpMessagingTemplate messagingTemplate, StatusFeed statusFeed) {
+        this.messagingTemplate = messagingTemplate;
+        this.statusFeed = statusFeed;
+    }
+
+    // clave = host:id, la misma que usa el dashboard para identificar cada tarjeta
+    public void publicar(String clave, ContainerStatusDTO dto) {
+        if (dto.equals(ultimoEnviado.get(clave))) {
+            // volvio al ultimo estado enviado antes del flush: no hay nada que mandar
+            pendientes.remove(clave);
+            return;
+        }
+        pendientes.put(clave, dto);
+    }
+
+    public void eliminar(String clave) {
+        pendientes.remove(clave);
+        if (ultimoEnviado.remove(clave) != null) {
+            eliminados.add(clave);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${sentinel.publisher.interval-ms:1000}")
+    public void enviarLote() {
+        if (pendientes.isEmpty() && eliminados.isEmpty()) return;
+
+        List<ContainerStatusDTO> cambios = new ArrayList<>(pendientes.size());
+        for (Map.Entry<String, ContainerStatusDTO> entry : pendientes.entrySet()) {
+            // remove condicional: si llego una version mas nueva mientras tanto queda para el proximo lote
+            if (pendientes.remove(entry.getKey(), entry.getValue())) {
+                ultimoEnviado.put(entry.getKey(), entry.getValue());
+                cambios.add(entry.getValue());
+            }
+        }
+
+        List<String> borrados = new ArrayList<>(eliminados.size());
+        for (String clave : eliminados) {
+            if (eliminados.remove(clave)) borrados.add(clave);
+        }
+
+        messagingTemplate.convertAndSend(TOPIC_BATCH, new ContainerBatchDTO(cambios, borrados));
+        // el mismo lote para los clientes SSE (/api/containers/stream)
+        statusFeed.publicar(cambios, borrados);
+    }
+
+    // Estado completo para un dashboard que se acaba de suscribir
+    public List<ContainerStatusDTO> snapshot() {
+        Map<String, ContainerStatusDTO> actual = new ConcurrentHashMap<>(ultimoEnviado);
+        actual.putAll(pendientes);
+        return new ArrayList<>(actual.values());
+    }
+}
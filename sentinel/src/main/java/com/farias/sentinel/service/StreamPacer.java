@@ -0,0 +1,114 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Apertura escalonada de los streams largos (stats en modo stream y logs): cada host tiene un token bucket de
+// aperturas por segundo. En régimen normal sobran tokens y el stream se abre en el momento; al arrancar con mil
+// contenedores corriendo, los que no entran esperan en una cola por host y se abren a ese ritmo en lugar de
+// pedirle mil conexiones al daemon en el mismo segundo.
+@Service
+public class StreamPacer {
+
+    private static final long TICK_MS = 50;
+
+    private final Map<String, Cola> porHost = new ConcurrentHashMap<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private ScheduledExecutorService planificador;
+
+    @Value("${sentinel.streams.open-per-second:100}")
+    private double porSegundo = 100;
+
+    @Value("${sentinel.streams.open-burst:20}")
+    private int rafaga = 20;
+
+    public StreamPacer(MeterRegistry meterRegistry) {
+        meterRegistry.gauge("sentinel.streams.pending", pendientes);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sentinel-stream-pacer");
+            t.setDaemon(true);
+            return t;
+        });
+        planificador.scheduleWithFixedDelay(this::despachar, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Ejecuta la apertura ahora si hay token y nadie esperando, si no la encola (una sola vez por clave).
+    // La apertura puede correr un rato después y en otro hilo: tiene que volver a chequear que siga haciendo falta.
+    public void abrir(String host, String clave, Runnable apertura) {
+        Cola cola = porHost.computeIfAbsent(host, h -> new Cola(new TokenBucket(porSegundo, rafaga)));
+        synchronized (cola) {
+            if (!cola.esperando.isEmpty() || !cola.tokens.intentarConsumir()) {
+                if (cola.esperando.putIfAbsent(clave, apertura) == null) pendientes.incrementAndGet();
+                return;
+            }
+        }
+        ejecutar(clave, apertura);
+    }
+
+    public void quitar(String host, String clave) {
+        Cola cola = porHost.get(host);
+        if (cola == null) return;
+        synchronized (cola) {
+            if (cola.esperando.remove(clave) != null) pendientes.decrementAndGet();
+        }
+    }
+
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    private void despachar() {
+        for (Cola cola : porHost.values()) {
+            while (true) {
+                Map.Entry<String, Runnable> siguiente;
+                synchronized (cola) {
+                    if (cola.esperando.isEmpty() || !cola.tokens.intentarConsumir()) break;
+                    Iterator<Map.Entry<String, Runnable>> it = cola.esperando.entrySet().iterator();
+                    siguiente = it.next();
+                    it.remove();
+                    pendientes.decrementAndGet();
+                }
+                ejecutar(siguiente.getKey(), siguiente.getValue());
+            }
+        }
+    }
+
+    private static void ejecutar(String clave, Runnable apertura) {
+        try {
+            apertura.run();
+        } catch (Exception e) {
+            System.err.println("Error abriendo los streams de " + clave + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (planificador != null) planificador.shutdownNow();
+    }
+
+    private static class Cola {
+        private final TokenBucket tokens;
+        private final LinkedHashMap<String, Runnable> esperando = new LinkedHashMap<>(); // en orden de llegada
+
+        private Cola(TokenBucket tokens) {
+            this.tokens = tokens;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.farias.sentinel;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Para los tests de lo que pasa en otros hilos (escritores, despachadores, streams): espera a que se cumpla
+// la condición y falla si no llega en 10 segundos
+public final class Esperas {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private Esperas() {
+    }
+
+    public static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < limite, "timeout esperando la condición");
+            Thread.sleep(10);
+        }
+    }
+}
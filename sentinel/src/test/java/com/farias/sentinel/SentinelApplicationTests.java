@@ -1,13 +1,47 @@
 package com.farias.sentinel;
 
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 class SentinelApplicationTests {
 
+	private static final String COLUMNAS = "SELECT column_name, data_type, character_maximum_length"
+			+ " FROM information_schema.columns WHERE table_name = 'CONTAINER_EVENT' ORDER BY column_name";
+	private static final String INDICES = "SELECT DISTINCT index_name FROM information_schema.indexes"
+			+ " WHERE table_name = 'CONTAINER_EVENT' AND index_name LIKE 'IDX_%' ORDER BY index_name";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	@Test
 	void contextLoads() {
 	}
 
+	// El script que usan los tests y benchmarks sin JPA no puede quedar atrás de la entidad
+	@Test
+	void elEsquemaDePruebaCoincideConLaEntidad() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:esquema;DB_CLOSE_DELAY=-1");
+		new ResourceDatabasePopulator(new ClassPathResource("container_event.sql")).execute(dataSource);
+		JdbcTemplate script = new JdbcTemplate(dataSource);
+		try {
+			List<Map<String, Object>> columnas = script.queryForList(COLUMNAS);
+			assertEquals(jdbcTemplate.queryForList(COLUMNAS), columnas);
+			assertEquals(jdbcTemplate.queryForList(INDICES), script.queryForList(INDICES));
+		} finally {
+			script.execute("DROP ALL OBJECTS");
+		}
+	}
+
 }
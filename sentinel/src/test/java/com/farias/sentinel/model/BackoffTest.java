@@ -0,0 +1,32 @@
+package com.farias.sentinel.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackoffTest {
+
+    @Test
+    void elPrimerIntentoEsInmediatoYDespuesSeDuplicaHastaElTope() {
+        Backoff backoff = new Backoff(100, 1000);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(0, backoff.calcularEspera(1));
+            assertEntre(50, 100, backoff.calcularEspera(2));
+            assertEntre(100, 200, backoff.calcularEspera(3));
+            assertEntre(200, 400, backoff.calcularEspera(4));
+            assertEntre(500, 1000, backoff.calcularEspera(6));
+            assertEntre(500, 1000, backoff.calcularEspera(100));
+        }
+    }
+
+    @Test
+    void unDesbordeDelCorrimientoQuedaEnElTope() {
+        assertEntre(2500, 5000, Backoff.calcularEspera(40, 1L << 40, 5000));
+        assertEquals(0, Backoff.calcularEspera(5, 0, 0), "sin base ni tope no se espera");
+    }
+
+    private static void assertEntre(long minimo, long maximo, long espera) {
+        assertTrue(espera >= minimo && espera <= maximo, espera + " fuera de [" + minimo + ", " + maximo + "]");
+    }
+}
@@ -0,0 +1,58 @@
+package com.farias.sentinel.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrashLoopDetectorTest {
+
+    private static final long VENTANA = 600_000;
+
+    @Test
+    void avisaCuandoLasNCaidasEntranEnLaVentana() {
+        CrashLoopDetector detector = new CrashLoopDetector(3);
+
+        assertFalse(detector.registrar(0, VENTANA));
+        assertFalse(detector.registrar(100_000, VENTANA));
+        assertTrue(detector.registrar(200_000, VENTANA));
+    }
+
+    @Test
+    void caidasEspaciadasNoSonUnLoop() {
+        CrashLoopDetector detector = new CrashLoopDetector(3);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(detector.registrar(i * 400_000L, VENTANA), "caída " + i);
+        }
+    }
+
+    @Test
+    void unSoloAvisoPorVentana() {
+        CrashLoopDetector detector = new CrashLoopDetector(2);
+
+        detector.registrar(0, VENTANA);
+        assertTrue(detector.registrar(10_000, VENTANA));
+        assertFalse(detector.registrar(20_000, VENTANA), "silenciado hasta 610s");
+        assertFalse(detector.registrar(700_000, VENTANA), "la anterior quedó fuera de la ventana");
+        assertTrue(detector.registrar(710_000, VENTANA), "vencido el silencio vuelve a avisar");
+    }
+
+    @Test
+    void restaurarConUnRingMasChicoConservaLasMasNuevas() {
+        CrashLoopDetector original = new CrashLoopDetector(4);
+        for (int i = 1; i <= 4; i++) original.registrar(i * 1_000L, 100);
+
+        CrashLoopDetector restaurado = new CrashLoopDetector(2);
+        restaurado.restaurar(original.getRecientes(), original.getSilenciadoHasta());
+
+        assertArrayEquals(new long[]{3_000, 4_000}, restaurado.getRecientes());
+    }
+
+    @Test
+    void rechazaUnTamanoSinCaidas() {
+        assertThrows(IllegalArgumentException.class, () -> new CrashLoopDetector(0));
+    }
+}
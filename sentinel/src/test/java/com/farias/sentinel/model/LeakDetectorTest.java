@@ -0,0 +1,81 @@
+package com.farias.sentinel.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeakDetectorTest {
+
+    private static final long INTERVALO = 10_000;
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @Test
+    void rectaPerfecta() {
+        LeakDetector detector = new LeakDetector(10);
+        for (int i = 0; i < 10; i++) detector.agregar(INICIO + i * INTERVALO, 100 + i * 50, INTERVALO); // 5 bytes/s
+
+        assertEquals(5, detector.pendiente(), 1e-9);
+        assertEquals(1, detector.r2(), 1e-9);
+        assertEquals(90_000, detector.getSpanMs());
+        // último punto en 550: faltan 450 bytes a 5/s
+        assertEquals(90, detector.segundosHastaLimite(1000), 1e-6);
+    }
+
+    @Test
+    void ignoraPuntosAntesDelIntervalo() {
+        LeakDetector detector = new LeakDetector(10);
+
+        assertTrue(detector.agregar(INICIO, 100, INTERVALO));
+        assertFalse(detector.agregar(INICIO + INTERVALO - 1, 200, INTERVALO));
+        assertEquals(1, detector.getCantidad());
+    }
+
+    @Test
+    void laVentanaDeslizaYOlvidaLosPuntosViejos() {
+        LeakDetector detector = new LeakDetector(5);
+        // primero estable, después crece: con el ring lleno solo queda el crecimiento
+        for (int i = 0; i < 20; i++) detector.agregar(INICIO + i * INTERVALO, 1000, INTERVALO);
+        for (int i = 20; i < 25; i++) detector.agregar(INICIO + i * INTERVALO, 1000 + (i - 19) * 100, INTERVALO);
+
+        assertEquals(5, detector.getCantidad());
+        assertEquals(40_000, detector.getSpanMs());
+        assertEquals(10, detector.pendiente(), 1e-6);
+        assertEquals(1, detector.r2(), 1e-9);
+    }
+
+    @Test
+    void sinCrecimientoNoHayEstimacion() {
+        LeakDetector detector = new LeakDetector(10);
+        for (int i = 0; i < 10; i++) detector.agregar(INICIO + i * INTERVALO, 1000 - i, INTERVALO);
+
+        assertEquals(-1, detector.segundosHastaLimite(2000));
+    }
+
+    @Test
+    void vaciarDescartaLaVentanaPeroNoLosCooldowns() {
+        LeakDetector detector = new LeakDetector(10);
+        for (int i = 0; i < 10; i++) detector.agregar(INICIO + i * INTERVALO, 100 + i * 50, INTERVALO);
+        detector.setUltimoAviso(INICIO);
+        detector.setUltimoReinicio(INICIO + 1);
+
+        detector.vaciar();
+
+        assertEquals(0, detector.getCantidad());
+        assertEquals(0, detector.getSpanMs());
+        assertEquals(0, detector.r2());
+        assertEquals(INICIO, detector.getUltimoAviso());
+        assertEquals(INICIO + 1, detector.getUltimoReinicio());
+        // vuelve a empezar de cero: un punto recién llegado no arrastra la recta de antes
+        detector.agregar(INICIO + 100 * INTERVALO, 10, INTERVALO);
+        detector.agregar(INICIO + 101 * INTERVALO, 10, INTERVALO);
+        assertEquals(0, detector.pendiente(), 1e-9);
+    }
+
+    @Test
+    void rechazaVentanasDeMenosDeDosPuntos() {
+        assertThrows(IllegalArgumentException.class, () -> new LeakDetector(1));
+    }
+}
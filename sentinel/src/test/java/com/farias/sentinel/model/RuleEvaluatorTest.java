@@ -0,0 +1,88 @@
+package com.farias.sentinel.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RuleEvaluatorTest {
+
+    private static final long COOLDOWN = 60_000;
+
+    @Test
+    void umbralDisparaUnaVezPorCooldown() {
+        RuleEvaluator evaluador = new RuleEvaluator(regla(AlertRule.Tipo.THRESHOLD, 100, 0, 1));
+
+        assertEquals(RuleEvaluator.NADA, evaluador.evaluar(50, 1_000));
+        assertEquals(RuleEvaluator.CERCA, evaluador.evaluar(90, 2_000), "por encima del 80% del umbral");
+        assertEquals(RuleEvaluator.DISPARO, evaluador.evaluar(120, 3_000));
+        assertEquals(120, evaluador.getUltimoValor());
+        assertEquals(3_000, evaluador.getUltimoDisparo());
+        assertEquals(RuleEvaluator.CERCA, evaluador.evaluar(130, 3_000 + COOLDOWN - 1), "dentro del cooldown");
+        assertEquals(RuleEvaluator.DISPARO, evaluador.evaluar(130, 3_000 + COOLDOWN));
+    }
+
+    @Test
+    void unValorSinDatoNoCuenta() {
+        RuleEvaluator evaluador = new RuleEvaluator(regla(AlertRule.Tipo.THRESHOLD, 100, 0, 1));
+
+        assertEquals(RuleEvaluator.NADA, evaluador.evaluar(Double.NaN, 1_000));
+        assertEquals(0, evaluador.getUltimoDisparo());
+    }
+
+    @Test
+    void tasaPorSegundoEntreMuestras() {
+        RuleEvaluator evaluador = new RuleEvaluator(regla(AlertRule.Tipo.RATE, 10, 0, 1));
+
+        assertEquals(RuleEvaluator.NADA, evaluador.evaluar(100, 10_000), "la primera muestra solo fija la base");
+        assertEquals(RuleEvaluator.NADA, evaluador.evaluar(150, 20_000)); // 5/s
+        assertEquals(RuleEvaluator.DISPARO, evaluador.evaluar(400, 30_000)); // 25/s
+        assertEquals(25, evaluador.getUltimoValor(), 1e-9);
+    }
+
+    @Test
+    void sostenidoDisparaRecienDespuesDeLaVentana() {
+        RuleEvaluator evaluador = new RuleEvaluator(regla(AlertRule.Tipo.SUSTAINED, 100, 30_000, 1));
+
+        assertEquals(RuleEvaluator.CERCA, evaluador.evaluar(150, 1_000));
+        assertEquals(RuleEvaluator.CERCA, evaluador.evaluar(150, 20_000));
+        // bajó: la racha vuelve a empezar
+        assertEquals(RuleEvaluator.NADA, evaluador.evaluar(50, 25_000));
+        assertEquals(RuleEvaluator.CERCA, evaluador.evaluar(150, 40_000));
+        assertEquals(RuleEvaluator.CERCA, evaluador.evaluar(150, 69_999));
+        assertEquals(RuleEvaluator.DISPARO, evaluador.evaluar(150, 70_000));
+    }
+
+    @Test
+    void ewmaSuavizaUnPicoAislado() {
+        RuleEvaluator evaluador = new RuleEvaluator(regla(AlertRule.Tipo.THRESHOLD, 100, 0, 0.2));
+
+        evaluador.evaluar(50, 1_000);
+        assertEquals(RuleEvaluator.NADA, evaluador.evaluar(200, 2_000), "50 + 0.2 * (200 - 50) = 80");
+        assertEquals(80, evaluador.getUltimoValor(), 1e-9);
+        assertEquals(RuleEvaluator.DISPARO, evaluador.evaluar(200, 3_000), "sostenido, el promedio cruza: 80 + 0.2 * 120 = 104");
+    }
+
+    @Test
+    void continuarDeConservaElCooldownYSoloConLaMismaReglaElResto() {
+        RuleEvaluator anterior = new RuleEvaluator(regla(AlertRule.Tipo.SUSTAINED, 100, 30_000, 1));
+        anterior.evaluar(150, 1_000);
+        anterior.evaluar(150, 31_000);
+        assertEquals(31_000, anterior.getUltimoDisparo());
+
+        RuleEvaluator igual = new RuleEvaluator(regla(AlertRule.Tipo.SUSTAINED, 100, 30_000, 1));
+        igual.continuarDe(anterior);
+        assertEquals(31_000, igual.getUltimoDisparo());
+        assertEquals(RuleEvaluator.CERCA, igual.evaluar(150, 40_000), "en cooldown, no vuelve a disparar");
+
+        RuleEvaluator otroUmbral = new RuleEvaluator(regla(AlertRule.Tipo.SUSTAINED, 120, 30_000, 1));
+        otroUmbral.continuarDe(anterior);
+        assertEquals(31_000, otroUmbral.getUltimoDisparo());
+        // la racha no se hereda de una regla distinta: vuelve a necesitar la ventana completa
+        assertEquals(RuleEvaluator.CERCA, otroUmbral.evaluar(150, 200_000));
+        assertEquals(RuleEvaluator.DISPARO, otroUmbral.evaluar(150, 230_000));
+    }
+
+    private static AlertRule regla(AlertRule.Tipo tipo, double umbral, long ventanaMs, double alpha) {
+        return new AlertRule("prueba", AlertRule.Metrica.MEMORY, tipo, umbral, ventanaMs, alpha, COOLDOWN);
+    }
+}
@@ -0,0 +1,120 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.config.AlertRulesProperties;
+import com.farias.sentinel.model.AlertRule;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.RuleEvaluator;
+import com.farias.sentinel.model.TrackedContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertRuleEngineTest {
+
+    @Test
+    void sinReglasConfiguradasQuedaMemoriaAlta() {
+        RuleEvaluator[] evaluadores = new AlertRuleEngine(new AlertRulesProperties()).compilar(null);
+
+        assertEquals(1, evaluadores.length);
+        AlertRule regla = evaluadores[0].getRegla();
+        assertEquals("memoria-alta", regla.getNombre());
+        assertEquals(500, regla.getUmbral());
+        assertEquals(1_800_000, regla.getCooldownMs());
+    }
+
+    @Test
+    void cadaContenedorTieneSusPropiosEvaluadores() {
+        AlertRuleEngine engine = new AlertRuleEngine(new AlertRulesProperties());
+
+        assertNotSame(engine.compilar(null)[0], engine.compilar(Map.of("app", "web"))[0]);
+    }
+
+    @Test
+    void losLabelsPisanApaganYSumanReglas() {
+        AlertRuleEngine engine = new AlertRuleEngine(propiedades(regla("memoria-alta", "memory", 500),
+                regla("cpu-alta", "cpu", 90)));
+
+        RuleEvaluator[] evaluadores = engine.compilar(Map.of(
+                "sentinel.alert.memoria-alta.threshold", "800",
+                "sentinel.alert.cpu-alta.enabled", "false",
+                "sentinel.alert.crecimiento.metric", "memory",
+                "sentinel.alert.crecimiento.type", "rate",
+                "sentinel.alert.crecimiento.threshold", "5",
+                "sentinel.alert.rota.threshold", "no-es-un-numero"));
+
+        assertEquals(2, evaluadores.length, "cpu-alta apagada y la regla inválida ignorada");
+        assertEquals("memoria-alta", evaluadores[0].getRegla().getNombre());
+        assertEquals(800, evaluadores[0].getRegla().getUmbral());
+        assertEquals(AlertRule.Metrica.MEMORY, evaluadores[0].getRegla().getMetrica(), "lo que no se pisa queda igual");
+        assertEquals("crecimiento", evaluadores[1].getRegla().getNombre());
+        assertEquals(AlertRule.Tipo.RATE, evaluadores[1].getRegla().getTipo());
+    }
+
+    @Test
+    void evaluarUsaLaMetricaDeCadaRegla() {
+        AlertRuleEngine engine = new AlertRuleEngine(propiedades(regla("memoria-alta", "memory", 500),
+                regla("cpu-alta", "cpu", 90), regla("limite", "memory-pct", 75)));
+        TrackedContainer tracked = contenedor(engine.compilar(null));
+        List<String> disparadas = new ArrayList<>();
+
+        ContainerMetrics metrics = new ContainerMetrics("local:abc");
+        metrics.setCpuFraction(0.95);
+        metrics.setMemoryBytes(400 * MetricsStore.MB);
+        metrics.setMemoryLimit(1000 * MetricsStore.MB);
+        metrics.setUltimaMuestra(1_000_000);
+        boolean cerca = engine.evaluar(tracked, metrics, (t, evaluador) -> disparadas.add(evaluador.getRegla().getNombre()));
+
+        assertEquals(List.of("cpu-alta"), disparadas, "400MB es el 40% del límite y está por debajo de 500MB");
+        assertTrue(cerca);
+    }
+
+    @Test
+    void recompilarNoReiniciaElCooldown() {
+        AlertRuleEngine engine = new AlertRuleEngine(new AlertRulesProperties());
+        TrackedContainer tracked = contenedor(engine.compilar(Map.of("app", "web")));
+        List<String> disparadas = new ArrayList<>();
+
+        ContainerMetrics metrics = new ContainerMetrics("local:abc");
+        metrics.setMemoryBytes(600 * MetricsStore.MB);
+        metrics.setUltimaMuestra(1_000_000);
+        engine.evaluar(tracked, metrics, (t, evaluador) -> disparadas.add(evaluador.getRegla().getNombre()));
+        assertEquals(1, disparadas.size());
+
+        // cambió un label que no toca la regla: sigue en cooldown
+        tracked.setReglas(engine.recompilar(Map.of("app", "web", "version", "2"), tracked.getReglas()));
+        metrics.setUltimaMuestra(1_000_000 + 60_000);
+        engine.evaluar(tracked, metrics, (t, evaluador) -> disparadas.add(evaluador.getRegla().getNombre()));
+        assertEquals(1, disparadas.size());
+
+        metrics.setUltimaMuestra(1_000_000 + 1_800_000);
+        engine.evaluar(tracked, metrics, (t, evaluador) -> disparadas.add(evaluador.getRegla().getNombre()));
+        assertEquals(2, disparadas.size(), "vencido el cooldown vuelve a avisar");
+    }
+
+    private static TrackedContainer contenedor(RuleEvaluator[] reglas) {
+        TrackedContainer tracked = new TrackedContainer("abc", "local", TrackedContainer.clave("local", "abc"));
+        tracked.setNombre("web");
+        tracked.setReglas(reglas);
+        return tracked;
+    }
+
+    private static AlertRulesProperties propiedades(AlertRulesProperties.Regla... reglas) {
+        AlertRulesProperties properties = new AlertRulesProperties();
+        properties.setRules(List.of(reglas));
+        return properties;
+    }
+
+    private static AlertRulesProperties.Regla regla(String nombre, String metrica, double umbral) {
+        AlertRulesProperties.Regla regla = new AlertRulesProperties.Regla();
+        regla.setName(nombre);
+        regla.setMetric(metrica);
+        regla.setThreshold(umbral);
+        return regla;
+    }
+}
@@ -0,0 +1,176 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.config.AlertRulesProperties;
+import com.farias.sentinel.config.DockerConfig;
+import com.farias.sentinel.config.DockerHostsProperties;
+import com.farias.sentinel.model.DockerHost;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventActor;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.farias.sentinel.Esperas.esperar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContainerServiceTest {
+
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+    private final DockerClient client = mock(DockerClient.class, RETURNS_DEEP_STUBS);
+    private final StatusPublisher statusPublisher = mock(StatusPublisher.class);
+    private final SentinelEventService sentinelEventService = mock(SentinelEventService.class);
+    private final LogTailService logTailService = mock(LogTailService.class);
+    private final DockerHostRegistry hostRegistry = new DockerHostRegistry(new DockerConfig(), new DockerHostsProperties(), client);
+    // 3 reintentos con backoff de 100ms, 200ms...: la espera crece sin alargar mucho el test
+    private final RecoveryExecutor recoveryExecutor = spy(new RecoveryExecutor(1, 3, 100, 10_000, metricas));
+    private final ContainerService containerService = new ContainerService(
+            hostRegistry,
+            statusPublisher,
+            mock(SlackService.class),
+            sentinelEventService,
+            new MetricsStore(),
+            new StatsCollector("poll", 1, 1, 10000, 2000, 5000, 0, metricas),
+            new MetricsHistoryService(60, 60, 24),
+            recoveryExecutor,
+            new AlertRuleEngine(new AlertRulesProperties()),
+            mock(PredictionService.class),
+            logTailService,
+            new SnapshotService(mock(PredictionService.class), mock(LogTailService.class), metricas),
+            new StreamPacer(metricas),
+            new HealthCheckService(WebClient.builder(), metricas),
+            metricas,
+            1);
+
+    @AfterEach
+    void cerrar() {
+        containerService.detener();
+        recoveryExecutor.detener();
+    }
+
+    @Test
+    void unContenedorQueArrancaDuranteElListadoNoSeOlvidaHastaElListadoSiguiente() throws InterruptedException {
+        DockerHost local = hostRegistry.get(DockerHostRegistry.HOST_LOCAL);
+        AtomicInteger listados = new AtomicInteger();
+        when(client.listContainersCmd().withShowAll(true).exec()).thenAnswer(invocacion -> {
+            if (listados.incrementAndGet() == 1) {
+                // el evento start llega mientras el daemon todavía arma la respuesta, que ya no lo incluye
+                containerService.procesarEventoDocker(local, new Event()
+                        .withAction("start")
+                        .withEventActor(new EventActor().withId("nuevo").withAttributes(Map.of("name", "nuevo"))));
+            }
+            return List.of(contenedor("viejo", "running", Map.of()));
+        });
+
+        pasada();
+        verify(statusPublisher, never()).eliminar("local:nuevo");
+
+        // el listado siguiente tampoco lo trae: ahora sí desapareció
+        pasada();
+        verify(statusPublisher).eliminar("local:nuevo");
+        verify(statusPublisher, never()).eliminar("local:viejo");
+    }
+
+    @Test
+    void laCapturaDeLogsDeUnaCaidaNoFrenaElListado() throws InterruptedException {
+        CountDownLatch logs = new CountDownLatch(1);
+        when(logTailService.capturar(any())).thenAnswer(invocacion -> {
+            logs.await(10, TimeUnit.SECONDS);
+            return "panic: boom";
+        });
+        when(client.listContainersCmd().withShowAll(true).exec()).thenReturn(
+                List.of(contenedor("caido", "exited", Map.of("sentinel.auto-heal", "true"))));
+
+        // la pasada termina aunque los logs del contenedor caído sigan sin llegar
+        pasada();
+        verify(sentinelEventService, never()).registrarEvento(any(), any(), any(), eq("FAILURE"), any(), any());
+
+        logs.countDown();
+        verify(sentinelEventService, timeout(10_000)).registrarEvento(
+                eq("local"), eq("caido"), eq("caido"), eq("FAILURE"), any(), eq("panic: boom"));
+        verify(sentinelEventService, timeout(10_000)).registrarEvento(
+                eq("local"), eq("caido"), eq("caido"), eq("RECOVERY"), any());
+    }
+
+    @Test
+    void unContenedorQueSeCaeAntesDeEstabilizarseTerminaBloqueadoConEsperasCrecientes() throws InterruptedException {
+        // cada restart lo deja corriendo bastante menos que sentinel.monitor.stable-seconds (30s) antes de volver a caer
+        ReflectionTestUtils.setField(containerService, "stableSeconds", 30L);
+        Map<String, String> labels = Map.of("sentinel.auto-heal", "true");
+        AtomicReference<String> estado = new AtomicReference<>("exited");
+        when(client.listContainersCmd().withShowAll(true).exec())
+                .thenAnswer(invocacion -> List.of(contenedor("inestable", estado.get(), labels)));
+
+        for (int reinicios = 1; reinicios <= 3; reinicios++) {
+            estado.set("exited");
+            pasada();
+            verify(sentinelEventService, timeout(10_000).times(reinicios)).registrarEvento(
+                    eq("local"), eq("inestable"), eq("inestable"), eq("RECOVERY"), any());
+            esperar(() -> !recoveryExecutor.estaEnCurso("local:inestable"));
+            // vuelve a correr, sano: sin healthcheck alcanza con estar running para estaSano()
+            estado.set("running");
+            pasada();
+        }
+        estado.set("exited");
+        pasada();
+
+        verify(sentinelEventService).registrarEvento(eq("local"), eq("inestable"), eq("inestable"),
+                eq("CRITICAL_ERROR"), startsWith("ANTI-LOOP"));
+        ArgumentCaptor<Long> esperas = ArgumentCaptor.forClass(Long.class);
+        verify(recoveryExecutor, times(3)).ejecutar(eq("local:inestable"), esperas.capture(), any(), any());
+        List<Long> valores = esperas.getAllValues();
+        assertEquals(0, valores.get(0));
+        assertTrue(valores.get(1) >= 50 && valores.get(1) <= 100, "segundo intento: " + valores);
+        assertTrue(valores.get(2) >= 100 && valores.get(2) <= 200, "tercer intento: " + valores);
+
+        // bloqueado: las pasadas siguientes ya no lo reinician
+        pasada();
+        verify(recoveryExecutor, times(3)).ejecutar(eq("local:inestable"), anyLong(), any(), any());
+    }
+
+    private void pasada() throws InterruptedException {
+        Timer timer = metricas.find("sentinel.monitor.tick").tag("type", "polling").timer();
+        long anteriores = timer == null ? 0 : timer.count();
+        containerService.monitorearContenedores();
+        esperar(() -> {
+            Timer registrado = metricas.find("sentinel.monitor.tick").tag("type", "polling").timer();
+            return registrado != null && registrado.count() > anteriores;
+        });
+    }
+
+    private static Container contenedor(String id, String estado, Map<String, String> labels) {
+        return new ObjectMapper().convertValue(Map.of(
+                "Id", id,
+                "Names", List.of("/" + id),
+                "Image", "nginx:latest",
+                "State", estado,
+                "Status", "Up 3 minutes",
+                "Labels", labels), Container.class);
+    }
+}
@@ -0,0 +1,136 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.dto.EventDTO;
+import com.farias.sentinel.dto.EventFilter;
+import com.farias.sentinel.dto.EventPageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventQueryServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private EventQueryService service;
+
+    @BeforeEach
+    void iniciar() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:consultas;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("container_event.sql")).execute(dataSource);
+        // de a tres eventos por segundo: las páginas tienen que cortar en medio de timestamps repetidos
+        for (int i = 0; i < 250; i++) {
+            insertar("servicio-" + (i % 5), i % 2 == 0 ? "FAILURE" : "RECOVERY", INICIO.plusSeconds(i / 3),
+                    i == 7 ? "java.lang.OutOfMemoryError" : null);
+        }
+        service = new EventQueryService(jdbcTemplate, new SimpleMeterRegistry(), 8);
+    }
+
+    @AfterEach
+    void cerrar() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void recorreTodoElHistorialSinRepetirNiSaltearse() {
+        List<EventDTO> todos = recorrer(new EventFilter(), 40);
+
+        assertEquals(250, todos.size());
+        assertEquals(250, todos.stream().map(EventDTO::getId).distinct().count());
+        for (int i = 1; i < todos.size(); i++) {
+            EventDTO anterior = todos.get(i - 1);
+            EventDTO actual = todos.get(i);
+            assertTrue(anterior.getTimestamp().isAfter(actual.getTimestamp())
+                    || (anterior.getTimestamp().equals(actual.getTimestamp()) && anterior.getId() > actual.getId()));
+        }
+        assertNull(todos.get(0).getLogTail(), "los listados no traen la cola de logs");
+        EventDTO conLogs = todos.stream().filter(EventDTO::isHasLogTail).findFirst().orElseThrow();
+        assertEquals("java.lang.OutOfMemoryError", service.buscarPorId(conLogs.getId()).getLogTail());
+    }
+
+    @Test
+    void filtraPorContenedorTipoYRango() {
+        List<EventDTO> fallas = recorrer(new EventFilter("servicio-1", "FAILURE", null, null, null), 7);
+        assertEquals(25, fallas.size());
+        assertTrue(fallas.stream().allMatch(e -> e.getContainerName().equals("servicio-1") && e.getEventType().equals("FAILURE")));
+
+        List<EventDTO> rango = recorrer(new EventFilter(null, null, INICIO.plusSeconds(10), INICIO.plusSeconds(20), null), 4);
+        assertEquals(30, rango.size());
+    }
+
+    @Test
+    void laPrimeraPaginaSeCacheaHastaQueSeGuardaUnLote() {
+        EventFilter filtro = new EventFilter();
+        EventPageDTO primera = service.buscar(filtro, null, 10);
+        assertSame(primera, service.buscar(new EventFilter(), null, 10));
+
+        insertar("nuevo", "FAILURE", INICIO.plusDays(1), null);
+        assertSame(primera, service.buscar(filtro, null, 10), "hasta que el escritor avise, la DB no cambió");
+
+        service.invalidar();
+        EventPageDTO otra = service.buscar(filtro, null, 10);
+        assertNotSame(primera, otra);
+        assertEquals("nuevo", otra.getEventos().get(0).getContainerName());
+    }
+
+    @Test
+    void losReintentosNulosNoDependenDeLosDetalles() {
+        jdbcTemplate.update("INSERT INTO container_event (host, container_name, container_id, event_type, timestamp, "
+                + "details, retry_count) VALUES ('local', 'sin-detalle', 'id', 'FAILURE', ?, NULL, 2)",
+                Timestamp.valueOf(INICIO.plusDays(1)));
+        jdbcTemplate.update("INSERT INTO container_event (host, container_name, container_id, event_type, timestamp, "
+                + "details, retry_count) VALUES ('local', 'sin-reintentos', 'id', 'FAILURE', ?, 'detalle', NULL)",
+                Timestamp.valueOf(INICIO.plusDays(2)));
+
+        List<EventDTO> eventos = service.buscar(new EventFilter(), null, 2).getEventos();
+        assertEquals("sin-reintentos", eventos.get(0).getContainerName());
+        assertNull(eventos.get(0).getRetryCount());
+        assertEquals("sin-detalle", eventos.get(1).getContainerName());
+        assertEquals(2, eventos.get(1).getRetryCount());
+    }
+
+    @Test
+    void unCursorInvalidoEsUnErrorDelCliente() {
+        assertThrows(IllegalArgumentException.class, () -> service.buscar(new EventFilter(), "no-es-un-cursor", 10));
+    }
+
+    private List<EventDTO> recorrer(EventFilter filtro, int limite) {
+        List<EventDTO> todos = new ArrayList<>();
+        Set<String> cursores = new HashSet<>();
+        String cursor = null;
+        do {
+            EventPageDTO pagina = service.buscar(filtro, cursor, limite);
+            todos.addAll(pagina.getEventos());
+            cursor = pagina.getSiguiente();
+            assertTrue(cursor == null || cursores.add(cursor));
+        } while (cursor != null);
+        return todos;
+    }
+
+    private void insertar(String nombre, String tipo, LocalDateTime timestamp, String logTail) {
+        jdbcTemplate.update("INSERT INTO container_event (host, container_name, container_id, event_type, timestamp, "
+                        + "details, retry_count, log_tail) VALUES ('local', ?, 'id', ?, ?, 'detalle', 0, ?)",
+                nombre, tipo, Timestamp.valueOf(timestamp), logTail);
+    }
+}
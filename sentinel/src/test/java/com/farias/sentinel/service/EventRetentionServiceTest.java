@@ -0,0 +1,71 @@
+package com.farias.sentinel.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class EventRetentionServiceTest {
+
+    private final AnalyticsService analyticsService = mock(AnalyticsService.class);
+    private final EventQueryService eventQueryService = mock(EventQueryService.class);
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void iniciar() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:retencion;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("container_event.sql")).execute(dataSource);
+    }
+
+    @AfterEach
+    void cerrar() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void borraLoVencidoEnTandasYRespetaElDiaDelLimite() {
+        LocalDateTime limite = LocalDate.now().minusDays(30).atStartOfDay();
+        for (int i = 1; i <= 23; i++) insertar(limite.minusHours(i));
+        insertar(limite); // el primer día que se conserva
+        insertar(LocalDateTime.now());
+
+        // 23 vencidas de a 5: la última tanda viene incompleta y corta el loop
+        new EventRetentionService(jdbcTemplate, analyticsService, eventQueryService, 30, 5).purgar();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM container_event", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM container_event WHERE timestamp < ?", Integer.class, Timestamp.valueOf(limite)));
+        verify(analyticsService).reconstruir();
+        verify(eventQueryService).invalidar();
+    }
+
+    @Test
+    void sinRetencionNoSeBorraNada() {
+        insertar(LocalDateTime.now().minusYears(1));
+
+        new EventRetentionService(jdbcTemplate, analyticsService, eventQueryService, 0, 5).purgar();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM container_event", Integer.class));
+        verify(analyticsService, never()).reconstruir();
+    }
+
+    private void insertar(LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO container_event (host, container_name, container_id, event_type, timestamp, "
+                + "details, retry_count) VALUES ('local', 'web', 'id', 'FAILURE', ?, 'detalle', 0)",
+                Timestamp.valueOf(timestamp));
+    }
+}
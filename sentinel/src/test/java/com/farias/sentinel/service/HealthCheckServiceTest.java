@@ -0,0 +1,130 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.ContainerState;
+import com.farias.sentinel.model.HealthProbe;
+import com.farias.sentinel.model.TrackedContainer;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HealthCheckServiceTest {
+
+    private HealthCheckService servicio;
+    private HttpServer server;
+    private final AtomicInteger codigo = new AtomicInteger(200);
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        servicio = new HealthCheckService(WebClient.builder(), new SimpleMeterRegistry());
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(codigo.get(), -1);
+            exchange.close();
+        });
+        server.createContext("/lento", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void cerrar() {
+        server.stop(0);
+    }
+
+    @Test
+    void laSondaHttpSeDaPorCaidaRecienDespuesDeVariosFallos() {
+        HealthProbe sonda = servicio.sondaPara(Map.of("sentinel.probe", url("/health"), "sentinel.probe.failures", "2"));
+        sondear(sonda);
+        assertEquals(0, sonda.getFallosSeguidos());
+
+        codigo.set(503);
+        sondear(sonda);
+        assertFalse(sonda.isFallando(), "un fallo suelto no alcanza");
+        sondear(sonda);
+        assertTrue(sonda.isFallando());
+        assertTrue(sonda.getUltimoError().contains("503"));
+
+        codigo.set(200);
+        sondear(sonda);
+        assertFalse(sonda.isFallando());
+    }
+
+    @Test
+    void cadaSondaTieneSuTimeoutYLaTcpSoloAbreLaConexion() throws Exception {
+        HealthProbe lenta = servicio.sondaPara(Map.of("sentinel.probe", url("/lento"), "sentinel.probe.timeout-ms", "200",
+                "sentinel.probe.failures", "1"));
+        long inicio = System.nanoTime();
+        sondear(lenta);
+        assertTrue(lenta.isFallando());
+        assertTrue(System.nanoTime() - inicio < 1_500_000_000L, "no espera la respuesta completa");
+
+        int puerto;
+        try (ServerSocket abierto = new ServerSocket(0)) {
+            puerto = abierto.getLocalPort();
+            HealthProbe tcp = servicio.sondaPara(Map.of("sentinel.probe", "tcp://127.0.0.1:" + puerto,
+                    "sentinel.probe.failures", "1"));
+            sondear(tcp);
+            assertFalse(tcp.isFallando());
+        }
+        HealthProbe cerrado = servicio.sondaPara(Map.of("sentinel.probe", "tcp://127.0.0.1:" + puerto,
+                "sentinel.probe.failures", "1"));
+        sondear(cerrado);
+        assertTrue(cerrado.isFallando());
+
+        assertNull(servicio.sondaPara(Map.of("sentinel.probe", "ftp://127.0.0.1/")));
+    }
+
+    @Test
+    void soloSeReiniciaSiSigueUnhealthyTodaLaVentana() {
+        TrackedContainer web = new TrackedContainer("aaa111", "local", "local:aaa111");
+        web.setEstado(ContainerState.RUNNING);
+        web.setHealth(HealthCheckService.saludDeStatus("Up 3 minutes (unhealthy)"));
+        long ahora = 1_000_000;
+
+        assertFalse(servicio.debeReiniciar(web, ahora));
+        assertFalse(servicio.debeReiniciar(web, ahora + 29_000));
+        assertTrue(servicio.debeReiniciar(web, ahora + 30_000));
+        assertFalse(servicio.debeReiniciar(web, ahora + 35_000), "el siguiente espera otra ventana completa");
+
+        // se recuperó un momento: la cuenta vuelve a cero
+        web.setHealth(HealthCheckService.saludDeStatus("Up 1 second (health: starting)"));
+        assertFalse(servicio.debeReiniciar(web, ahora + 40_000));
+        assertFalse(web.estaSano(), "starting todavía no cuenta como recuperado");
+        web.setHealth("unhealthy");
+        assertFalse(servicio.debeReiniciar(web, ahora + 65_000));
+        assertTrue(servicio.debeReiniciar(web, ahora + 95_000));
+
+        web.setHealth(HealthCheckService.saludDeStatus("Up 2 hours (healthy)"));
+        assertTrue(web.estaSano());
+        assertNull(HealthCheckService.saludDeStatus("Up 2 hours"));
+    }
+
+    private void sondear(HealthProbe sonda) {
+        servicio.sondear(sonda).block(Duration.ofSeconds(5));
+    }
+
+    private String url(String ruta) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + ruta;
+    }
+}
@@ -0,0 +1,92 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.config.DockerConfig;
+import com.farias.sentinel.model.DockerHost;
+import com.farias.sentinel.model.LogPatternMatcher;
+import com.farias.sentinel.model.LogTail;
+import com.farias.sentinel.model.TrackedContainer;
+import com.farias.sentinel.simulator.DockerSimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class LogTailServiceTest {
+
+    private static final LogPatternMatcher MATCHER = new LogPatternMatcher(List.of("OutOfMemoryError", "panic:", "SIGSEGV"));
+
+    @Test
+    void lasCoincidenciasCruzanFramesYLaColaNoPasaDeSuCapacidad() {
+        LogTail cola = new LogTail(128, MATCHER);
+        assertEquals(-1, agregar(cola, "arrancando\nGET / 200\n"));
+        assertEquals(-1, agregar(cola, "Exception in thread \"main\" java.lang.OutOfMem"));
+        assertEquals(0, agregar(cola, "oryError: Java heap space\n"));
+        assertEquals("Exception in thread \"main\" java.lang.OutOfMemoryError: Java heap space",
+                cola.lineaDeLaCoincidencia());
+
+        for (int i = 0; i < 100; i++) agregar(cola, "linea " + i + "\n");
+        assertEquals(1, agregar(cola, "PANIC: boom\n"), "no distingue mayúsculas");
+        assertEquals("linea 98\nlinea 99\nPANIC: boom", cola.ultimasLineas(3));
+        assertTrue(cola.ultimasLineas(1000).length() <= 128);
+    }
+
+    @Test
+    void adjuntaElFinalDeLosLogsCuandoElContenedorSeCae() throws Exception {
+        DockerSimulator.Config config = new DockerSimulator.Config();
+        config.puerto = 0;
+        config.contenedores = 5;
+        config.crash = 0;
+        config.leak = 0;
+        config.flap = 0;
+        DockerSimulator simulador = new DockerSimulator(config);
+        simulador.iniciar();
+        DockerConfig dockerConfig = new DockerConfig();
+        ReflectionTestUtils.setField(dockerConfig, "maxConnections", 10);
+        DockerHost host = new DockerHost("sim", dockerConfig.crearCliente("tcp://127.0.0.1:" + simulador.getPuerto()));
+
+        SentinelEventService eventos = mock(SentinelEventService.class);
+        LogTailService service = new LogTailService(eventos, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "modo", "all");
+        ReflectionTestUtils.setField(service, "patrones", List.of("panic:"));
+        ReflectionTestUtils.setField(service, "esperaMs", 2000L);
+        service.iniciar();
+        try {
+            String id = simulador.getContenedores().iterator().next().getId();
+            TrackedContainer tracked = new TrackedContainer(id, "sim", TrackedContainer.clave("sim", id));
+            tracked.setNombre("web");
+            service.seguir(host, tracked);
+            assertTrue(service.estaSiguiendo(tracked.getClave()));
+
+            simulador.tumbar(id, 2);
+            String logs = service.capturar(tracked);
+            assertNotNull(logs);
+            assertTrue(logs.startsWith("Iniciando"), logs);
+            assertTrue(logs.endsWith("panic: runtime error: invalid memory address or nil pointer dereference"), logs);
+            assertFalse(service.estaSiguiendo(tracked.getClave()), "el stream se cierra con el contenedor");
+
+            ArgumentCaptor<String> detalle = ArgumentCaptor.forClass(String.class);
+            verify(eventos, timeout(2000)).registrarEvento(eq("sim"), eq("web"), eq(id), eq("WARNING"), detalle.capture());
+            assertTrue(detalle.getValue().startsWith("Patrón 'panic:' en los logs: panic: runtime error"));
+        } finally {
+            host.getClient().close();
+            simulador.detener();
+        }
+    }
+
+    private static int agregar(LogTail cola, String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        return cola.agregar(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,98 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.model.TrackedContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PredictionServiceTest {
+
+    private static final long INTERVALO = 10_000;
+    private static final long LIMITE = 1000 * MetricsStore.MB;
+
+    private final SentinelEventService eventos = mock(SentinelEventService.class);
+    private PredictionService servicio;
+    private TrackedContainer tracked;
+    private ContainerMetrics metrics;
+
+    @BeforeEach
+    void preparar() {
+        // mismos valores que application.properties, con el reinicio preventivo activado
+        servicio = new PredictionService(eventos, mock(SlackService.class));
+        ReflectionTestUtils.setField(servicio, "puntosVentana", 120);
+        ReflectionTestUtils.setField(servicio, "intervaloMs", INTERVALO);
+        ReflectionTestUtils.setField(servicio, "spanMinimoSegundos", 300L);
+        ReflectionTestUtils.setField(servicio, "r2Minimo", 0.8);
+        ReflectionTestUtils.setField(servicio, "horizonteSegundos", 1800L);
+        ReflectionTestUtils.setField(servicio, "cooldownSegundos", 1800L);
+        ReflectionTestUtils.setField(servicio, "reiniciarAntesDeOom", true);
+        ReflectionTestUtils.setField(servicio, "reinicioSegundos", 120L);
+        ReflectionTestUtils.setField(servicio, "caidasCrashLoop", 3);
+        ReflectionTestUtils.setField(servicio, "ventanaCrashLoopSegundos", 600L);
+
+        tracked = new TrackedContainer("abc", "local", TrackedContainer.clave("local", "abc"));
+        tracked.setNombre("web");
+        tracked.setProtegido(true);
+        metrics = new ContainerMetrics(tracked.getClave());
+        metrics.setMemoryLimit(LIMITE);
+    }
+
+    @Test
+    void avisaYDespuesReiniciaUnaSolaVez() {
+        // 400MB + 0.5MB/s: a los 108 puntos quedan menos de 120s hasta el límite
+        int reinicios = 0;
+        int primerReinicio = -1;
+        for (int i = 0; i < 120; i++) {
+            if (muestra(i, 400 + i * 5)) {
+                reinicios++;
+                if (primerReinicio < 0) primerReinicio = i;
+            }
+        }
+
+        assertEquals(1, reinicios, "el cooldown también vale para los reinicios");
+        assertEquals(108, primerReinicio);
+        verify(eventos, times(1)).registrarEvento(eq("local"), eq("web"), eq("abc"), eq("WARNING"), anyString());
+    }
+
+    @Test
+    void despuesDelReinicioLosPuntosViejosNoPidenOtro() {
+        int reinicios = 0;
+        for (int i = 0; i < 120; i++) {
+            if (muestra(i, 400 + i * 5)) {
+                reinicios++;
+                // lo que hace ContainerService al programar el reinicio (y de nuevo con el evento start)
+                servicio.reiniciarTendencia(tracked);
+            }
+        }
+        // el proceso nuevo arranca con poca memoria
+        for (int i = 120; i < 240; i++) {
+            if (muestra(i, 150 + (i % 3))) reinicios++;
+        }
+
+        assertEquals(1, reinicios);
+    }
+
+    @Test
+    void unaCaidaCadaTantoNoEsCrashLoop() {
+        servicio.registrarCaida(tracked);
+        servicio.registrarCaida(tracked);
+
+        verify(eventos, times(0)).registrarEvento(anyString(), anyString(), anyString(), anyString(), anyString());
+        servicio.registrarCaida(tracked);
+        verify(eventos, times(1)).registrarEvento(eq("local"), eq("web"), eq("abc"), eq("WARNING"), anyString());
+    }
+
+    private boolean muestra(int punto, long mb) {
+        metrics.setUltimaMuestra(1_700_000_000_000L + punto * INTERVALO);
+        metrics.setMemoryBytes(mb * MetricsStore.MB);
+        return servicio.observarMuestra(tracked, metrics);
+    }
+}
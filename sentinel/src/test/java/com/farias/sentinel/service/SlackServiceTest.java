@@ -0,0 +1,115 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.config.SlackProperties;
+import com.farias.sentinel.model.SlackOutboxMessage;
+import com.farias.sentinel.repository.SlackOutboxRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.farias.sentinel.Esperas.esperar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Contra un webhook falso en localhost: agrupado, Retry-After y outbox
+class SlackServiceTest {
+
+    private HttpServer stub;
+    private final List<String> recibidos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger pedidos = new AtomicInteger();
+    private volatile int[] respuestas = {200}; // status por pedido, el último se repite
+    private SlackOutboxRepository outbox;
+    private SlackService slackService;
+
+    @BeforeEach
+    void levantarStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/webhook", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            int n = pedidos.getAndIncrement();
+            int status = respuestas[Math.min(n, respuestas.length - 1)];
+            if (status == 200) recibidos.add(body);
+            if (status == 429) exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        stub.start();
+        outbox = mock(SlackOutboxRepository.class);
+    }
+
+    @AfterEach
+    void bajarStub() throws InterruptedException {
+        if (slackService != null) slackService.detener();
+        stub.stop(0);
+    }
+
+    private void iniciar() {
+        SlackProperties properties = new SlackProperties();
+        properties.setWebhook("http://localhost:" + stub.getAddress().getPort() + "/webhook");
+        properties.setCoalesceMs(200);
+        properties.setRatePerSecond(20);
+        properties.setMaxRetries(2);
+        properties.setBackoffBaseMs(50);
+        properties.setBackoffMaxMs(100);
+        properties.setOutboxRetryMs(60000);
+        slackService = new SlackService(WebClient.builder(), outbox, properties, new SimpleMeterRegistry());
+        slackService.iniciar();
+    }
+
+    @Test
+    void juntaLasAlertasDeLaVentanaEnUnSoloMensaje() throws InterruptedException {
+        iniciar();
+        for (int i = 0; i < 40; i++) {
+            slackService.enviarNotificacion("contenedor-" + i + " caído");
+        }
+        esperar(() -> slackService.getPendientes() == 0 && slackService.getEnviados() > 0);
+
+        assertTrue(pedidos.get() <= 2, "se esperaba un resumen, hubo " + pedidos.get() + " pedidos");
+        String todo = String.join("", recibidos);
+        for (int i = 0; i < 40; i++) {
+            assertTrue(todo.contains("contenedor-" + i + " caído"));
+        }
+    }
+
+    @Test
+    void respetaRetryAfterYReintenta() throws InterruptedException {
+        respuestas = new int[]{429, 200};
+        iniciar();
+        long inicio = System.nanoTime();
+        slackService.enviarNotificacion("reinicio de paciente-uno");
+        esperar(() -> slackService.getEnviados() == 1);
+
+        assertEquals(2, pedidos.get());
+        assertTrue(System.nanoTime() - inicio >= 1_000_000_000L, "no esperó el Retry-After");
+        verify(outbox, never()).save(any());
+    }
+
+    @Test
+    void loQueNoSaleQuedaEnElOutbox() throws InterruptedException {
+        respuestas = new int[]{500};
+        iniciar();
+        slackService.enviarNotificacion("anti-loop en app-corrupta");
+        esperar(() -> pedidos.get() >= 3);
+        Thread.sleep(200);
+
+        ArgumentCaptor<SlackOutboxMessage> guardado = ArgumentCaptor.forClass(SlackOutboxMessage.class);
+        verify(outbox, atLeastOnce()).save(guardado.capture());
+        assertEquals("anti-loop en app-corrupta", guardado.getValue().getTexto());
+    }
+}
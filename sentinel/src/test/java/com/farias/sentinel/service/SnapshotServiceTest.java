@@ -0,0 +1,121 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.AlertRule;
+import com.farias.sentinel.model.CrashLoopDetector;
+import com.farias.sentinel.model.RuleEvaluator;
+import com.farias.sentinel.model.TrackedContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class SnapshotServiceTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void losBloqueadosYLosCooldownsSobrevivenAlReinicio() {
+        Path ruta = directorio.resolve("estado/sentinel.bin");
+        long ahora = System.currentTimeMillis();
+
+        TrackedContainer web = contenedor("node-a", "aaa111", "web");
+        Servicios antes = servicio(ruta);
+        CrashLoopDetector caidas = antes.predictionService().detectorDeCaidas(web);
+        for (int i = 4; i >= 1; i--) caidas.registrar(ahora - i * 60_000, 600_000);
+        antes.predictionService().detectorDeFuga(web).setUltimoAviso(ahora - 5_000);
+        antes.logTailService().colaDe(web).setUltimoAviso(ahora - 7_000);
+        web.getReglas()[0].setUltimoDisparo(ahora - 9_000);
+        TrackedContainer tranquilo = contenedor("node-a", "bbb222", "db");
+
+        antes.servicio().guardar(List.of(web, tranquilo), Map.of(
+                "node-a:web", new AtomicInteger(4), "node-a:db", new AtomicInteger(0)));
+
+        // arranque nuevo: mismos contenedores, objetos nuevos
+        Servicios despues = servicio(ruta);
+        assertEquals(Map.of("node-a:web", 4), despues.servicio().getReintentos(), "los contadores en cero no se guardan");
+        TrackedContainer webDeNuevo = contenedor("node-a", "aaa111", "web");
+        despues.servicio().restaurar(webDeNuevo);
+
+        CrashLoopDetector restaurado = webDeNuevo.getCaidas();
+        assertArrayEquals(caidas.getRecientes(), restaurado.getRecientes());
+        assertEquals(caidas.getSilenciadoHasta(), restaurado.getSilenciadoHasta());
+        assertEquals(ahora - 5_000, webDeNuevo.getFuga().getUltimoAviso());
+        assertEquals(ahora - 7_000, webDeNuevo.getLogs().getUltimoAviso());
+        assertEquals(ahora - 9_000, webDeNuevo.getReglas()[0].getUltimoDisparo());
+
+        TrackedContainer dbDeNuevo = contenedor("node-a", "bbb222", "db");
+        despues.servicio().restaurar(dbDeNuevo);
+        assertNull(dbDeNuevo.getCaidas(), "sin estado guardado no se crea nada");
+    }
+
+    @Test
+    void loPendienteDeUnHostSinListarSeVuelveAGuardar() {
+        Path ruta = directorio.resolve("sentinel.bin");
+        TrackedContainer web = contenedor("node-b", "ccc333", "web");
+        Servicios primero = servicio(ruta);
+        primero.predictionService().detectorDeFuga(web).setUltimoAviso(System.currentTimeMillis());
+        primero.servicio().guardar(List.of(web), Map.of());
+
+        // node-b no respondió en este arranque: se guarda sin haber visto el contenedor
+        servicio(ruta).servicio().guardar(List.of(), Map.of());
+
+        Servicios tercero = servicio(ruta);
+        TrackedContainer webDeNuevo = contenedor("node-b", "ccc333", "web");
+        tercero.servicio().descartarPendientes("node-a");
+        tercero.servicio().restaurar(webDeNuevo);
+        assertTrue(webDeNuevo.getFuga().getUltimoAviso() > 0);
+
+        tercero.servicio().descartarPendientes("node-b");
+        TrackedContainer otro = contenedor("node-b", "ccc333", "web");
+        tercero.servicio().restaurar(otro);
+        assertNull(otro.getFuga());
+    }
+
+    @Test
+    void unArchivoCortadoSeIgnora() throws Exception {
+        Path ruta = directorio.resolve("sentinel.bin");
+        Servicios primero = servicio(ruta);
+        primero.servicio().guardar(List.of(), Map.of("node-a:web", new AtomicInteger(2)));
+        byte[] bytes = Files.readAllBytes(ruta);
+        Files.write(ruta, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertTrue(servicio(ruta).servicio().getReintentos().isEmpty());
+    }
+
+    private static TrackedContainer contenedor(String host, String id, String nombre) {
+        TrackedContainer tracked = new TrackedContainer(id, host, TrackedContainer.clave(host, id));
+        tracked.setNombre(nombre);
+        tracked.setReglas(new RuleEvaluator[]{new RuleEvaluator(new AlertRule("memoria-alta",
+                AlertRule.Metrica.MEMORY, AlertRule.Tipo.THRESHOLD, 500, 0, 1, 1_800_000))});
+        return tracked;
+    }
+
+    private static Servicios servicio(Path ruta) {
+        PredictionService prediccion = new PredictionService(mock(SentinelEventService.class), mock(SlackService.class));
+        ReflectionTestUtils.setField(prediccion, "caidasCrashLoop", 3);
+        ReflectionTestUtils.setField(prediccion, "puntosVentana", 120);
+        LogTailService logs = new LogTailService(mock(SentinelEventService.class), new SimpleMeterRegistry());
+        logs.iniciar();
+        SnapshotService servicio = new SnapshotService(prediccion, logs, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(servicio, "ruta", ruta.toString());
+        servicio.cargar();
+        return new Servicios(servicio, prediccion, logs);
+    }
+
+    private record Servicios(SnapshotService servicio, PredictionService predictionService, LogTailService logTailService) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.model.DockerHost;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Statistics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.farias.sentinel.Esperas.esperar;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatsCollectorTest {
+
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+    private final ScheduledExecutorService daemon = Executors.newSingleThreadScheduledExecutor();
+    private StatsCollector collector;
+
+    @AfterEach
+    void cerrar() {
+        if (collector != null) collector.detener();
+        daemon.shutdownNow();
+    }
+
+    @Test
+    void elPoolCreceConLaDemandaYElIntervaloRealSeMantiene() throws InterruptedException {
+        // como un daemon real con stream=false: cada muestra tarda en llegar y tiene el hilo ocupado
+        DockerClient client = mock(DockerClient.class, RETURNS_DEEP_STUBS);
+        when(client.statsCmd(anyString()).withNoStream(true).exec(any())).thenAnswer(invocacion -> {
+            ResultCallback<Statistics> callback = invocacion.getArgument(0);
+            daemon.schedule(() -> {
+                callback.onNext(new Statistics());
+                callback.onComplete();
+            }, 300, TimeUnit.MILLISECONDS);
+            return callback;
+        });
+        DockerHost host = new DockerHost("local", client);
+
+        // 200 contenedores cada 1s con muestras de 300ms piden ~60 hilos: con los 4 mínimos serían ~15s
+        collector = new StatsCollector("poll", 4, 100, 1000, 1000, 5000, 0, metricas);
+        collector.iniciar();
+        for (int i = 0; i < 200; i++) {
+            collector.registrar("local:c" + i, host, "c" + i);
+        }
+
+        esperar(() -> metricas.get("sentinel.stats.threads").gauge().value() >= 40);
+        Timer intervalo = metricas.get("sentinel.stats.sample.interval").timer();
+        esperar(() -> intervalo.count() >= 400);
+        assertTrue(intervalo.mean(TimeUnit.MILLISECONDS) < 3000,
+                "intervalo real " + intervalo.mean(TimeUnit.MILLISECONDS) + "ms");
+    }
+}
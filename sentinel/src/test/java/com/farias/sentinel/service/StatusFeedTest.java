@@ -0,0 +1,131 @@
+package com.farias.sentinel.service;
+
+import com.farias.sentinel.dto.ContainerStatusDTO;
+import com.farias.sentinel.model.CompactFeedFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.farias.sentinel.Esperas.esperar;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusFeedTest {
+
+    private StatusFeed feed;
+
+    @BeforeEach
+    void iniciar() {
+        feed = new StatusFeed(new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void todosLosClientesCompartenElMismoJson() throws InterruptedException {
+        List<ServerSentEvent<String>> a = new CopyOnWriteArrayList<>();
+        List<ServerSentEvent<String>> b = new CopyOnWriteArrayList<>();
+        Disposable sa = feed.suscribir(null, null).subscribe(a::add);
+        Disposable sb = feed.suscribir(null, null).subscribe(b::add);
+        esperar(() -> a.size() == 1 && b.size() == 1);
+        assertEquals("snapshot", a.get(0).event());
+
+        feed.publicar(List.of(dto("local", "aaa111", "web")), List.of());
+        esperar(() -> a.size() == 2 && b.size() == 2);
+
+        assertEquals("batch", a.get(1).event());
+        assertSame(a.get(1).data(), b.get(1).data()); // una sola serialización
+        assertTrue(a.get(1).data().contains("\"nombre\":\"web\""));
+        sa.dispose();
+        sb.dispose();
+        esperar(() -> feed.getSuscriptores() == 0);
+    }
+
+    @Test
+    void filtraPorHostYContenedor() throws InterruptedException {
+        feed.publicar(List.of(dto("node-a", "aaa111", "web"), dto("node-b", "bbb222", "db")), List.of());
+
+        List<ServerSentEvent<String>> eventos = new CopyOnWriteArrayList<>();
+        Disposable s = feed.suscribir("node-b", null).subscribe(eventos::add);
+        esperar(() -> eventos.size() == 1);
+        assertTrue(eventos.get(0).data().contains("bbb222"));
+        assertFalse(eventos.get(0).data().contains("aaa111"));
+
+        // un lote solo de node-a no le llega; el borrado de node-b sí
+        feed.publicar(List.of(dto("node-a", "aaa111", "web2")), List.of());
+        feed.publicar(List.of(), List.of("node-b:bbb222"));
+        esperar(() -> eventos.size() == 2);
+        assertEquals("{\"cambios\":[],\"eliminados\":[\"node-b:bbb222\"]}", eventos.get(1).data());
+        s.dispose();
+
+        List<ServerSentEvent<String>> porNombre = new CopyOnWriteArrayList<>();
+        s = feed.suscribir(null, "web2").subscribe(porNombre::add);
+        esperar(() -> porNombre.size() == 1);
+        assertTrue(porNombre.get(0).data().contains("aaa111"));
+        s.dispose();
+    }
+
+    @Test
+    void unClienteLentoRecibeElEstadoCompletoEnVezDeLosLotesPerdidos() throws InterruptedException {
+        List<ServerSentEvent<String>> eventos = new CopyOnWriteArrayList<>();
+        BaseSubscriber<ServerSentEvent<String>> lento = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1); // solo el snapshot inicial
+            }
+
+            @Override
+            protected void hookOnNext(ServerSentEvent<String> evento) {
+                eventos.add(evento);
+            }
+        };
+        feed.suscribir(null, null).subscribe(lento);
+        esperar(() -> eventos.size() == 1);
+
+        for (int i = 0; i < 5; i++) {
+            feed.publicar(List.of(dto("local", "id" + i, "c" + i)), List.of());
+        }
+        Thread.sleep(100);
+        lento.request(Long.MAX_VALUE);
+        esperar(() -> eventos.stream().skip(1).anyMatch(e -> "snapshot".equals(e.event())));
+
+        String ultimo = eventos.get(eventos.size() - 1).data();
+        for (int i = 0; i < 5; i++) assertTrue(ultimo.contains("\"id" + i + "\""));
+        assertTrue(eventos.size() <= 3, "como mucho un lote en cola antes del estado completo");
+        lento.dispose();
+    }
+
+    @Test
+    void elFormatoCompactoMandaLaDefinicionUnaSolaVez() throws InterruptedException {
+        feed.publicar(List.of(dto("local", "aaa111", "web")), List.of());
+        List<StatusFeed.Mensaje> mensajes = new CopyOnWriteArrayList<>();
+        Disposable s = feed.mensajes(null, null, true).subscribe(mensajes::add);
+        esperar(() -> mensajes.size() == 1);
+        byte[] snapshot = mensajes.get(0).binario();
+        assertEquals(CompactFeedFormat.SNAPSHOT, snapshot[1]);
+        assertEquals(1, snapshot[2], "el snapshot trae la definición de cada contenedor");
+
+        feed.publicar(List.of(dto("local", "aaa111", "web")), List.of());
+        esperar(() -> mensajes.size() == 2);
+        // versión, batch, 0 definiciones, 1 cambio: índice 1, running + protegido, 1.00% y 10MB, 0 eliminados
+        assertArrayEquals(new byte[]{1, 2, 0, 1, 1, 2 | 16, 100, 10, 0}, mensajes.get(1).binario());
+
+        feed.publicar(List.of(), List.of("local:aaa111"));
+        esperar(() -> mensajes.size() == 3);
+        assertArrayEquals(new byte[]{1, 2, 0, 0, 1, 1}, mensajes.get(2).binario());
+        s.dispose();
+    }
+
+    private static ContainerStatusDTO dto(String host, String id, String nombre) {
+        return new ContainerStatusDTO(nombre, "running", id, host, true, false, "1.00%", "10MB", 100, 10);
+    }
+}
@@ -0,0 +1,772 @@
+package com.farias.sentinel.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Daemon de Docker falso para probar Sentinel a escala: implementa la parte de la Engine API que usa Sentinel
+// (/containers/json, /containers/{id}/stats, /containers/{id}/json, /containers/{id}/logs, /events,
+// start/stop/restart) sobre miles de contenedores en memoria que se caen, pierden memoria o hacen crash-loop
+// según un guion con semilla fija.
+// Mide cuánto tarda Sentinel desde cada caída hasta el restart que la repara.
+//
+//   mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.farias.sentinel.simulator.DockerSimulator \
+//       -Dexec.args="--puerto=2375 --contenedores=2000 --latencia-ms=5"
+//   DOCKER_HOST=tcp://localhost:2375 mvn spring-boot:run
+public class DockerSimulator {
+
+    public enum Patron { ESTABLE, CRASH, LEAK, FLAP }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern RUTA = Pattern.compile("^(?:/v[0-9.]+)?/containers/([^/]+)/(json|stats|logs|start|stop|restart|kill)$");
+    private static final long MB = 1024 * 1024;
+    private static final int HISTORIA_EVENTOS = 10000;
+    private static final int HISTORIA_LOGS = 200; // líneas por contenedor
+
+    static {
+        // el HttpServer del JDK corta las conexiones ociosas a los 30s y docker-java no reintenta un POST sobre
+        // una conexión muerta: un restart fallaría por culpa del simulador. Docker no las corta.
+        System.setProperty("sun.net.httpserver.idleInterval",
+                System.getProperty("sun.net.httpserver.idleInterval", "3600"));
+        System.setProperty("sun.net.httpserver.maxIdleConnections",
+                System.getProperty("sun.net.httpserver.maxIdleConnections", "1000"));
+    }
+
+    private final Config config;
+    private final Map<String, Contenedor> contenedores = new ConcurrentHashMap<>();
+    private final List<Suscriptor> suscriptores = new CopyOnWriteArrayList<>();
+    private final Deque<Map<String, Object>> historia = new ArrayDeque<>();
+    private final Latencias latencias = new Latencias();
+    private final ScheduledExecutorService guion = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "simulador-guion");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService hilosHttp = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "simulador-http");
+        t.setDaemon(true);
+        return t;
+    });
+    private HttpServer server;
+
+    public DockerSimulator(Config config) {
+        this.config = config;
+        Random random = new Random(config.semilla);
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < config.contenedores; i++) {
+            Contenedor c = new Contenedor(String.format("%064x", config.semilla * 1_000_003L + i + 1),
+                    "sim-" + i, elegirPatron(random), random.nextLong());
+            c.labels.put("com.docker.compose.project", "simulador");
+            c.labels.put("com.docker.compose.service", c.nombre);
+            c.labels.put("sentinel.patron", c.patron.name().toLowerCase());
+            if (random.nextDouble() < config.protegidos) c.labels.put("sentinel.auto-heal", "true");
+            c.memoriaBase = (50 + random.nextInt(200)) * MB;
+            c.cpu = 0.02 + random.nextDouble() * 0.3;
+            c.fugaMbPorMinuto = config.leakMbPorMinuto;
+            c.arrancar(ahora, config);
+            contenedores.put(c.id, c);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        DockerSimulator simulador = new DockerSimulator(Config.desdeArgs(args));
+        simulador.iniciar();
+        System.out.println("Simulador de Docker escuchando en tcp://localhost:" + simulador.getPuerto()
+                + " con " + simulador.config.contenedores + " contenedores");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println(simulador.resumen());
+            simulador.detener();
+        }));
+        while (true) {
+            Thread.sleep(10000);
+            System.out.println(simulador.resumen());
+        }
+    }
+
+    public void iniciar() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(config.puerto), 512);
+        server.setExecutor(hilosHttp);
+        server.createContext("/", this::atender);
+        server.start();
+        guion.scheduleAtFixedRate(this::avanzarGuion, 250, 250, TimeUnit.MILLISECONDS);
+    }
+
+    public void detener() {
+        guion.shutdownNow();
+        if (server != null) server.stop(0);
+        for (Suscriptor suscriptor : suscriptores) suscriptor.cerrar();
+        hilosHttp.shutdownNow();
+    }
+
+    public int getPuerto() {
+        return server.getAddress().getPort();
+    }
+
+    public Collection<Contenedor> getContenedores() {
+        return contenedores.values();
+    }
+
+    public Latencias getLatencias() {
+        return latencias;
+    }
+
+    // Tira un contenedor a mano, fuera del guion (para tests)
+    public void tumbar(String id, int exitCode) {
+        Contenedor c = contenedores.get(id);
+        if (c != null) caer(c, exitCode, false, true);
+    }
+
+    public String resumen() {
+        long corriendo = contenedores.values().stream().filter(c -> c.running).count();
+        return "contenedores=" + contenedores.size() + " corriendo=" + corriendo
+                + " suscriptores=" + suscriptores.size() + " " + latencias;
+    }
+
+    // ---------------------------------------------------------------- guion
+
+    private Patron elegirPatron(Random random) {
+        double r = random.nextDouble();
+        if ((r -= config.crash) < 0) return Patron.CRASH;
+        if ((r -= config.leak) < 0) return Patron.LEAK;
+        if (r - config.flap < 0) return Patron.FLAP;
+        return Patron.ESTABLE;
+    }
+
+    private void avanzarGuion() {
+        try {
+            long ahora = System.currentTimeMillis();
+            for (Contenedor c : contenedores.values()) {
+                boolean oom;
+                synchronized (c) {
+                    if (!c.running || c.detenido) continue;
+                    oom = c.patron == Patron.LEAK && c.memoria(ahora) >= c.limite;
+                    if (!oom && (c.proximaCaida == 0 || ahora < c.proximaCaida)) continue;
+                }
+                caer(c, oom ? 137 : 1, oom, true);
+            }
+        } catch (Exception e) {
+            System.err.println("Error en el guion del simulador: " + e.getMessage());
+        }
+    }
+
+    // Solo las caídas espontáneas (guion o tumbar) cuentan para la latencia de recuperación;
+    // un stop o restart pedido por el cliente no
+    private void caer(Contenedor c, int exitCode, boolean oom, boolean espontanea) {
+        synchronized (c) {
+            if (!c.running) return;
+            c.running = false;
+            c.exitCode = exitCode;
+            c.finalizado = System.currentTimeMillis();
+            c.caidaNanos = espontanea ? System.nanoTime() : 0;
+            // lo último que escribe el proceso antes de morir, para que Sentinel tenga algo que adjuntar
+            if (oom) c.log("Exception in thread \"main\" java.lang.OutOfMemoryError: Java heap space", true);
+            else if (!espontanea) c.log("Recibida señal SIGTERM, cerrando", false);
+            else if (c.patron == Patron.FLAP) c.log("fatal error: unexpected signal during runtime execution", true);
+            else c.log("panic: runtime error: invalid memory address or nil pointer dereference", true);
+            c.notifyAll(); // los streams de logs en follow terminan cuando el contenedor para
+        }
+        if (espontanea) latencias.caida();
+        if (oom) emitir(c, "oom", null);
+        emitir(c, "die", Map.of("exitCode", String.valueOf(exitCode)));
+    }
+
+    // ---------------------------------------------------------------- HTTP
+
+    private void atender(HttpExchange exchange) throws IOException {
+        try {
+            simularLatencia();
+            // el body de los POST no se usa, pero si no se lee el HttpServer descarta la conexión keep-alive
+            exchange.getRequestBody().readAllBytes();
+            String ruta = exchange.getRequestURI().getPath();
+            Map<String, String> query = parsearQuery(exchange.getRequestURI().getRawQuery());
+            String metodo = exchange.getRequestMethod();
+
+            if (ruta.matches("^(?:/v[0-9.]+)?/_ping$")) {
+                responder(exchange, 200, "text/plain", "OK".getBytes(StandardCharsets.UTF_8));
+            } else if (ruta.matches("^(?:/v[0-9.]+)?/version$")) {
+                responderJson(exchange, 200, Map.of("Version", "24.0.0-sim", "ApiVersion", "1.43", "Os", "linux"));
+            } else if (ruta.matches("^(?:/v[0-9.]+)?/containers/json$")) {
+                listar(exchange, esVerdadero(query.get("all")));
+            } else if (ruta.matches("^(?:/v[0-9.]+)?/events$")) {
+                eventos(exchange, query);
+            } else {
+                Matcher m = RUTA.matcher(ruta);
+                Contenedor c = m.matches() ? contenedores.get(m.group(1)) : null;
+                if (c == null) {
+                    responderJson(exchange, 404, Map.of("message", "No such container: " + (m.matches() ? m.group(1) : ruta)));
+                } else if (m.group(2).equals("json") && metodo.equals("GET")) {
+                    responderJson(exchange, 200, inspeccionar(c));
+                } else if (m.group(2).equals("stats") && metodo.equals("GET")) {
+                    stats(exchange, c, query);
+                } else if (m.group(2).equals("logs") && metodo.equals("GET")) {
+                    logs(exchange, c, query);
+                } else if (metodo.equals("POST")) {
+                    accion(exchange, c, m.group(2));
+                } else {
+                    responderJson(exchange, 405, Map.of("message", "método no soportado"));
+                }
+            }
+        } catch (IOException e) {
+            // el cliente cerró la conexión (stream de stats o de eventos)
+        } catch (Exception e) {
+            System.err.println("Error atendiendo " + exchange.getRequestURI() + ": " + e.getMessage());
+            try {
+                responderJson(exchange, 500, Map.of("message", String.valueOf(e.getMessage())));
+            } catch (IOException ignored) {
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void listar(HttpExchange exchange, boolean todos) throws IOException {
+        List<Map<String, Object>> lista = new ArrayList<>(contenedores.size());
+        long ahora = System.currentTimeMillis();
+        for (Contenedor c : contenedores.values()) {
+            synchronized (c) {
+                if (!todos && !c.running) continue;
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("Id", c.id);
+                json.put("Names", List.of("/" + c.nombre));
+                json.put("Image", "simulador/" + c.patron.name().toLowerCase() + ":latest");
+                json.put("Created", c.creado / 1000);
+                json.put("State", c.running ? "running" : "exited");
+                json.put("Status", c.running
+                        ? "Up " + (ahora - c.iniciado) / 1000 + " seconds"
+                        : "Exited (" + c.exitCode + ") " + (ahora - c.finalizado) / 1000 + " seconds ago");
+                json.put("Labels", c.labels);
+                lista.add(json);
+            }
+        }
+        responderJson(exchange, 200, lista);
+    }
+
+    private Map<String, Object> inspeccionar(Contenedor c) {
+        synchronized (c) {
+            Map<String, Object> estado = new LinkedHashMap<>();
+            estado.put("Status", c.running ? "running" : "exited");
+            estado.put("Running", c.running);
+            estado.put("OOMKilled", !c.running && c.exitCode == 137);
+            estado.put("ExitCode", c.exitCode);
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Id", c.id);
+            json.put("Name", "/" + c.nombre);
+            json.put("RestartCount", c.reinicios);
+            json.put("State", estado);
+            json.put("Config", Map.of("Labels", c.labels, "Image", "simulador/" + c.patron.name().toLowerCase()));
+            return json;
+        }
+    }
+
+    // stream=false devuelve una muestra; si no, una por segundo hasta que el cliente corte o el contenedor muera
+    private void stats(HttpExchange exchange, Contenedor c, Map<String, String> query) throws IOException {
+        String stream = query.get("stream");
+        if (stream != null && !esVerdadero(stream)) {
+            responderJson(exchange, 200, c.muestra(System.currentTimeMillis()));
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        while (!hilosHttp.isShutdown()) {
+            out.write(MAPPER.writeValueAsBytes(c.muestra(System.currentTimeMillis())));
+            out.write('\n');
+            out.flush();
+            synchronized (c) {
+                if (!c.running) return;
+            }
+            dormir(1000);
+        }
+    }
+
+    // Stream multiplexado como el de Docker: cada línea es un frame con header de 8 bytes (1 stdout, 2 stderr)
+    private void logs(HttpExchange exchange, Contenedor c, Map<String, String> query) throws IOException {
+        String tail = query.get("tail");
+        int cola = tail == null || tail.equals("all") ? Integer.MAX_VALUE : Integer.parseInt(tail);
+        long since = parsearSegundos(query.get("since")) * 1000;
+        boolean follow = esVerdadero(query.get("follow"));
+
+        exchange.getResponseHeaders().set("Content-Type", "application/vnd.docker.multiplexed-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        long visto;
+        List<LineaLog> pendientes = new ArrayList<>();
+        synchronized (c) {
+            for (LineaLog linea : c.logs) if (linea.epochMillis >= since) pendientes.add(linea);
+            if (pendientes.size() > cola) pendientes = new ArrayList<>(pendientes.subList(pendientes.size() - cola, pendientes.size()));
+            visto = c.lineas;
+        }
+        for (LineaLog linea : pendientes) escribirFrame(out, linea.error, linea.texto);
+        out.flush();
+
+        // en follow: lo nuevo que escriba el contenedor, más ruido sintético si se pidió (--logs-por-segundo)
+        long porTanda = config.logsPorSegundo / 10;
+        byte[] ruido = ("INFO " + c.nombre + " atendiendo pedido GET /api/recurso?id=12345 -> 200 OK en 3ms "
+                + "usuario=anonimo traza=0af7651916cd43dd8448eb211c80319c\n").getBytes(StandardCharsets.UTF_8);
+        while (follow && !hilosHttp.isShutdown()) {
+            boolean corriendo;
+            pendientes.clear();
+            synchronized (c) {
+                if (c.lineas == visto && c.running) {
+                    try {
+                        c.wait(porTanda > 0 ? 100 : 1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                long nuevas = Math.min(c.lineas - visto, c.logs.size());
+                c.logs.stream().skip(c.logs.size() - nuevas).forEach(pendientes::add);
+                visto = c.lineas;
+                corriendo = c.running;
+            }
+            for (LineaLog linea : pendientes) escribirFrame(out, linea.error, linea.texto);
+            if (!corriendo) break;
+            for (long i = 0; i < porTanda; i++) escribirFrame(out, false, ruido);
+            out.flush();
+        }
+        out.close();
+    }
+
+    private static void escribirFrame(OutputStream out, boolean error, byte[] texto) throws IOException {
+        out.write(new byte[]{(byte) (error ? 2 : 1), 0, 0, 0,
+                (byte) (texto.length >>> 24), (byte) (texto.length >>> 16), (byte) (texto.length >>> 8), (byte) texto.length});
+        out.write(texto);
+    }
+
+    private void accion(HttpExchange exchange, Contenedor c, String accion) throws IOException {
+        long ahora = System.currentTimeMillis();
+        boolean estabaCorriendo;
+        synchronized (c) {
+            estabaCorriendo = c.running;
+        }
+        switch (accion) {
+            case "restart" -> {
+                if (estabaCorriendo) caer(c, 0, false, false);
+                reanudar(c, ahora);
+                emitir(c, "restart", null);
+            }
+            case "start" -> {
+                if (estabaCorriendo) {
+                    responder(exchange, 304, null, null);
+                    return;
+                }
+                reanudar(c, ahora);
+            }
+            case "stop", "kill" -> {
+                if (!estabaCorriendo) {
+                    responderJson(exchange, accion.equals("stop") ? 304 : 409,
+                            Map.of("message", "Container " + c.id + " is not running"));
+                    return;
+                }
+                synchronized (c) {
+                    c.detenido = true;
+                }
+                caer(c, accion.equals("stop") ? 0 : 137, false, false);
+                emitir(c, accion, null);
+            }
+            default -> {
+                responderJson(exchange, 404, Map.of("message", "acción no soportada: " + accion));
+                return;
+            }
+        }
+        responder(exchange, 204, null, null);
+    }
+
+    private void reanudar(Contenedor c, long ahora) {
+        long caida;
+        synchronized (c) {
+            caida = c.caidaNanos;
+            c.caidaNanos = 0;
+            c.detenido = false;
+            c.reinicios++;
+            c.arrancar(ahora, config);
+        }
+        if (caida != 0) latencias.recuperacion(System.nanoTime() - caida);
+        emitir(c, "start", null);
+    }
+
+    // ---------------------------------------------------------------- eventos
+
+    private void eventos(HttpExchange exchange, Map<String, String> query) throws IOException {
+        Set<String> filtro = filtroDeEventos(query.get("filters"));
+        long since = parsearSegundos(query.get("since"));
+
+        Suscriptor suscriptor = new Suscriptor(filtro);
+        synchronized (historia) {
+            // lo que pasó desde "since" sale primero, como hace Docker al reconectar
+            if (since > 0) {
+                for (Map<String, Object> evento : historia) {
+                    if ((long) evento.get("time") >= since) suscriptor.ofrecer(evento);
+                }
+            }
+            suscriptores.add(suscriptor);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        out.flush();
+        try {
+            while (!suscriptor.cerrado) {
+                byte[] evento;
+                try {
+                    evento = suscriptor.cola.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (evento == null) continue;
+                out.write(evento);
+                out.write('\n');
+                out.flush();
+            }
+        } finally {
+            suscriptores.remove(suscriptor);
+        }
+    }
+
+    private void emitir(Contenedor c, String accion, Map<String, String> extra) {
+        Map<String, String> atributos = new HashMap<>();
+        synchronized (c) {
+            atributos.putAll(c.labels);
+        }
+        atributos.put("name", c.nombre);
+        atributos.put("image", "simulador/" + c.patron.name().toLowerCase());
+        if (extra != null) atributos.putAll(extra);
+
+        long nanos = System.currentTimeMillis() * 1_000_000L;
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("status", accion);
+        evento.put("id", c.id);
+        evento.put("from", atributos.get("image"));
+        evento.put("Type", "container");
+        evento.put("Action", accion);
+        evento.put("Actor", Map.of("ID", c.id, "Attributes", atributos));
+        evento.put("scope", "local");
+        evento.put("time", nanos / 1_000_000_000L);
+        evento.put("timeNano", nanos);
+
+        synchronized (historia) {
+            historia.addLast(evento);
+            if (historia.size() > HISTORIA_EVENTOS) historia.removeFirst();
+            for (Suscriptor suscriptor : suscriptores) suscriptor.ofrecer(evento);
+        }
+    }
+
+    // filters llega como {"type":["container"],"event":["start","die"]}; solo nos importa "event"
+    @SuppressWarnings("unchecked")
+    private static Set<String> filtroDeEventos(String filters) {
+        if (filters == null || filters.isEmpty()) return null;
+        try {
+            Map<String, Object> mapa = MAPPER.readValue(filters, Map.class);
+            Object eventos = mapa.get("event");
+            if (eventos instanceof Collection<?> lista) return Set.copyOf((Collection<String>) lista);
+            if (eventos instanceof Map<?, ?> viejo) return Set.copyOf((Set<String>) viejo.keySet()); // formato de API vieja
+        } catch (IOException e) {
+            System.err.println("Filtro de eventos inválido: " + filters);
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------- utilidades
+
+    private void simularLatencia() {
+        if (config.latenciaMs <= 0 && config.jitterMs <= 0) return;
+        long jitter = config.jitterMs > 0 ? ThreadLocalRandom.current().nextLong(config.jitterMs + 1) : 0;
+        dormir(config.latenciaMs + jitter);
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void responderJson(HttpExchange exchange, int status, Object cuerpo) throws IOException {
+        responder(exchange, status, "application/json", MAPPER.writeValueAsBytes(cuerpo));
+    }
+
+    private static void responder(HttpExchange exchange, int status, String tipo, byte[] cuerpo) throws IOException {
+        if (tipo != null) exchange.getResponseHeaders().set("Content-Type", tipo);
+        exchange.sendResponseHeaders(status, cuerpo == null ? -1 : cuerpo.length);
+        if (cuerpo != null) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cuerpo);
+            }
+        }
+    }
+
+    private static Map<String, String> parsearQuery(String query) {
+        Map<String, String> mapa = new HashMap<>();
+        if (query == null) return mapa;
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual < 0) mapa.put(URLDecoder.decode(par, StandardCharsets.UTF_8), "");
+            else mapa.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                    URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+        }
+        return mapa;
+    }
+
+    private static boolean esVerdadero(String valor) {
+        return valor != null && (valor.equals("1") || valor.equalsIgnoreCase("true"));
+    }
+
+    private static long parsearSegundos(String valor) {
+        if (valor == null || valor.isEmpty()) return 0;
+        try {
+            return (long) Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // ---------------------------------------------------------------- modelo
+
+    public static class Contenedor {
+        final String id;
+        final String nombre;
+        final Patron patron;
+        final Map<String, String> labels = new LinkedHashMap<>();
+        final Random random;
+        final long creado = System.currentTimeMillis();
+        long memoriaBase;
+        long limite = 1024 * MB;
+        double cpu;
+        double fugaMbPorMinuto;
+        boolean running;
+        boolean detenido; // parado a mano: el guion no lo vuelve a tirar
+        int exitCode;
+        int reinicios;
+        long iniciado;
+        long finalizado;
+        long proximaCaida; // epoch millis, 0 si el patrón no se cae solo
+        long caidaNanos; // System.nanoTime() de la caída pendiente de recuperar
+        final Deque<LineaLog> logs = new ArrayDeque<>(); // las últimas HISTORIA_LOGS líneas
+        long lineas; // total escritas, para que los streams en follow sepan qué es nuevo
+        long cpuTotal;
+        long sistemaTotal;
+
+        Contenedor(String id, String nombre, Patron patron, long semilla) {
+            this.id = id;
+            this.nombre = nombre;
+            this.patron = patron;
+            this.random = new Random(semilla);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Patron getPatron() {
+            return patron;
+        }
+
+        public synchronized boolean isRunning() {
+            return running;
+        }
+
+        public synchronized int getReinicios() {
+            return reinicios;
+        }
+
+        synchronized void log(String texto, boolean error) {
+            logs.addLast(new LineaLog(System.currentTimeMillis(), error, (texto + "\n").getBytes(StandardCharsets.UTF_8)));
+            if (logs.size() > HISTORIA_LOGS) logs.removeFirst();
+            lineas++;
+            notifyAll();
+        }
+
+        synchronized void arrancar(long ahora, Config config) {
+            running = true;
+            iniciado = ahora;
+            log("Iniciando " + nombre + " (patrón " + patron.name().toLowerCase() + ")", false);
+            proximaCaida = switch (patron) {
+                // entre 0.5x y 1.5x del período configurado, para que no se caigan todos juntos
+                case CRASH -> ahora + (long) (config.crashCadaSegundos * 1000 * (0.5 + random.nextDouble()));
+                case FLAP -> ahora + config.flapSegundos * 1000;
+                default -> 0;
+            };
+        }
+
+        long memoria(long ahora) {
+            if (!running) return 0;
+            long extra = patron == Patron.LEAK ? (long) ((ahora - iniciado) / 60000d * fugaMbPorMinuto * MB) : 0;
+            return memoriaBase + extra;
+        }
+
+        synchronized Map<String, Object> muestra(long ahora) {
+            long deltaSistema = 4_000_000_000L;
+            long deltaCpu = running ? (long) (cpu * (0.8 + random.nextDouble() * 0.4) * 1_000_000_000L) : 0;
+            Map<String, Object> pre = cpuStats(cpuTotal, sistemaTotal);
+            cpuTotal += deltaCpu;
+            sistemaTotal += deltaSistema;
+
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("read", Instant.ofEpochMilli(ahora).toString());
+            json.put("id", id);
+            json.put("name", "/" + nombre);
+            json.put("cpu_stats", cpuStats(cpuTotal, sistemaTotal));
+            json.put("precpu_stats", pre);
+            json.put("memory_stats", Map.of("usage", memoria(ahora), "limit", limite));
+            json.put("networks", Map.of("eth0", Map.of(
+                    "rx_bytes", (ahora - creado) * 1024, "tx_bytes", (ahora - creado) * 512)));
+            json.put("blkio_stats", Map.of("io_service_bytes_recursive", List.of(
+                    Map.of("major", 8, "minor", 0, "op", "Read", "value", (ahora - creado) * 64),
+                    Map.of("major", 8, "minor", 0, "op", "Write", "value", (ahora - creado) * 32))));
+            return json;
+        }
+
+        private static Map<String, Object> cpuStats(long total, long sistema) {
+            return Map.of("cpu_usage", Map.of("total_usage", total),
+                    "system_cpu_usage", sistema,
+                    "online_cpus", 4);
+        }
+    }
+
+    // Latencia caída -> restart, medida del lado del daemon (incluye detección, backoff y el propio restart)
+    private record LineaLog(long epochMillis, boolean error, byte[] texto) {
+    }
+
+    public static class Latencias {
+        private final long[] muestras = new long[100000];
+        private int cantidad;
+        private long caidas;
+        private long recuperaciones;
+
+        synchronized void caida() {
+            caidas++;
+        }
+
+        synchronized void recuperacion(long nanos) {
+            recuperaciones++;
+            muestras[cantidad++ % muestras.length] = nanos;
+        }
+
+        public synchronized long getCaidas() {
+            return caidas;
+        }
+
+        public synchronized long getRecuperaciones() {
+            return recuperaciones;
+        }
+
+        public synchronized double percentilMs(double p) {
+            int n = Math.min(cantidad, muestras.length);
+            if (n == 0) return 0;
+            long[] ordenadas = Arrays.copyOf(muestras, n);
+            Arrays.sort(ordenadas);
+            int indice = (int) Math.ceil(p / 100 * n) - 1;
+            return ordenadas[Math.max(0, Math.min(n - 1, indice))] / 1e6;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("caidas=%d recuperadas=%d p50=%.0fms p95=%.0fms p99=%.0fms max=%.0fms",
+                    caidas, recuperaciones, percentilMs(50), percentilMs(95), percentilMs(99), percentilMs(100));
+        }
+    }
+
+    private static class Suscriptor {
+        private final Set<String> filtro;
+        private final BlockingQueue<byte[]> cola = new LinkedBlockingQueue<>(HISTORIA_EVENTOS);
+        private volatile boolean cerrado;
+
+        Suscriptor(Set<String> filtro) {
+            this.filtro = filtro;
+        }
+
+        void ofrecer(Map<String, Object> evento) {
+            if (filtro != null && !filtro.contains((String) evento.get("Action"))) return;
+            try {
+                // un cliente que no lee no frena al resto: se le cortan los eventos
+                if (!cola.offer(MAPPER.writeValueAsBytes(evento))) cerrado = true;
+            } catch (IOException e) {
+                cerrado = true;
+            }
+        }
+
+        void cerrar() {
+            cerrado = true;
+        }
+    }
+
+    // ---------------------------------------------------------------- configuración
+
+    public static class Config {
+        public int puerto = 2375;
+        public int contenedores = 1000;
+        public long semilla = 42;
+        public double protegidos = 0.5; // fracción con sentinel.auto-heal=true
+        public double crash = 0.05; // fracciones de cada patrón, el resto es ESTABLE
+        public double leak = 0.05;
+        public double flap = 0.02;
+        public long crashCadaSegundos = 120;
+        public long flapSegundos = 3;
+        public double leakMbPorMinuto = 50;
+        public long latenciaMs = 0;
+        public long jitterMs = 0;
+        public long logsPorSegundo = 0; // líneas de ruido por segundo en cada stream de logs en follow
+
+        // --clave=valor, con los mismos nombres que los campos en kebab-case
+        public static Config desdeArgs(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Argumento inválido: " + arg + " (se espera --clave=valor)");
+                }
+                String clave = arg.substring(2, arg.indexOf('='));
+                String valor = arg.substring(arg.indexOf('=') + 1);
+                switch (clave) {
+                    case "puerto" -> config.puerto = Integer.parseInt(valor);
+                    case "contenedores" -> config.contenedores = Integer.parseInt(valor);
+                    case "semilla" -> config.semilla = Long.parseLong(valor);
+                    case "protegidos" -> config.protegidos = Double.parseDouble(valor);
+                    case "crash" -> config.crash = Double.parseDouble(valor);
+                    case "leak" -> config.leak = Double.parseDouble(valor);
+                    case "flap" -> config.flap = Double.parseDouble(valor);
+                    case "crash-cada-segundos" -> config.crashCadaSegundos = Long.parseLong(valor);
+                    case "flap-segundos" -> config.flapSegundos = Long.parseLong(valor);
+                    case "leak-mb-por-minuto" -> config.leakMbPorMinuto = Double.parseDouble(valor);
+                    case "latencia-ms" -> config.latenciaMs = Long.parseLong(valor);
+                    case "jitter-ms" -> config.jitterMs = Long.parseLong(valor);
+                    case "logs-por-segundo" -> config.logsPorSegundo = Long.parseLong(valor);
+                    default -> throw new IllegalArgumentException("Opción desconocida: " + clave);
+                }
+            }
+            return config;
+        }
+    }
+}
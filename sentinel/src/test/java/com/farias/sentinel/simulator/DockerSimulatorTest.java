@@ -0,0 +1,133 @@
+package com.farias.sentinel.simulator;
+
+import com.farias.sentinel.config.DockerConfig;
+import com.farias.sentinel.model.ContainerMetrics;
+import com.farias.sentinel.service.MetricsStore;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.farias.sentinel.Esperas.esperar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// El simulador tiene que ser indistinguible de un daemon real para docker-java: mismos comandos que usa Sentinel
+class DockerSimulatorTest {
+
+    private DockerSimulator simulador;
+    private DockerClient client;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        DockerSimulator.Config config = new DockerSimulator.Config();
+        config.puerto = 0;
+        config.contenedores = 50;
+        config.crash = 0; // el guion no tira nada solo, las caídas las decide el test
+        config.leak = 0;
+        config.flap = 0;
+        simulador = new DockerSimulator(config);
+        simulador.iniciar();
+
+        DockerConfig dockerConfig = new DockerConfig();
+        ReflectionTestUtils.setField(dockerConfig, "maxConnections", 10);
+        client = dockerConfig.crearCliente("tcp://127.0.0.1:" + simulador.getPuerto());
+    }
+
+    @AfterEach
+    void detener() throws Exception {
+        client.close();
+        simulador.detener();
+    }
+
+    @Test
+    void listaComoUnDaemonReal() {
+        List<Container> contenedores = client.listContainersCmd().withShowAll(true).exec();
+        assertEquals(50, contenedores.size());
+
+        Container primero = contenedores.get(0);
+        assertEquals("running", primero.getState());
+        assertTrue(primero.getNames()[0].startsWith("/sim-"));
+        assertNotNull(primero.getLabels().get("sentinel.patron"));
+
+        assertEquals(50, client.listContainersCmd().exec().size(), "sin all=true solo los que corren");
+    }
+
+    @Test
+    void lasMuestrasSeParseanConMetricsStore() throws Exception {
+        String id = simulador.getContenedores().iterator().next().getId();
+        UnaMuestra callback = client.statsCmd(id).withNoStream(true).exec(new UnaMuestra());
+        assertTrue(callback.awaitCompletion(5, TimeUnit.SECONDS));
+
+        ContainerMetrics metrics = new MetricsStore().actualizar("sim:" + id, callback.stats);
+        assertTrue(metrics.getMemoryBytes() > 0);
+        assertEquals(1024L * 1024 * 1024, metrics.getMemoryLimit());
+    }
+
+    @Test
+    void caidaEventosYRestartMidenLaRecuperacion() throws Exception {
+        List<Event> eventos = new CopyOnWriteArrayList<>();
+        Closeable stream = client.eventsCmd()
+                .withEventTypeFilter(EventType.CONTAINER)
+                .withEventFilter("start", "die", "oom", "health_status", "destroy")
+                .withSince(String.valueOf(System.currentTimeMillis() / 1000))
+                .exec(new ResultCallback.Adapter<Event>() {
+                    @Override
+                    public void onNext(Event evento) {
+                        eventos.add(evento);
+                    }
+                });
+
+        DockerSimulator.Contenedor victima = simulador.getContenedores().iterator().next();
+        simulador.tumbar(victima.getId(), 1);
+        esperar(() -> eventos.stream().anyMatch(e -> "die".equals(e.getAction())));
+
+        Event die = eventos.get(0);
+        assertEquals(victima.getId(), die.getActor().getId());
+        assertEquals("1", die.getActor().getAttributes().get("exitCode"));
+        assertNotNull(die.getActor().getAttributes().get("name"));
+        assertFalse(victima.isRunning());
+        assertEquals("exited", client.listContainersCmd().withShowAll(true).exec().stream()
+                .filter(c -> c.getId().equals(victima.getId())).findFirst().orElseThrow().getState());
+
+        client.restartContainerCmd(victima.getId()).exec();
+        esperar(() -> eventos.stream().anyMatch(e -> "start".equals(e.getAction())));
+        assertTrue(victima.isRunning());
+        assertEquals(1, simulador.getLatencias().getRecuperaciones());
+
+        // "restart" no está en el filtro: no tiene que llegar
+        assertTrue(eventos.stream().noneMatch(e -> "restart".equals(e.getAction())));
+        stream.close();
+    }
+
+    @Test
+    void stopDejaElContenedorParadoSinContarComoCaida() {
+        String id = simulador.getContenedores().iterator().next().getId();
+        client.stopContainerCmd(id).exec();
+
+        assertEquals(0, client.listContainersCmd().exec().stream().filter(c -> c.getId().equals(id)).count());
+        assertEquals(0, simulador.getLatencias().getCaidas());
+    }
+
+    private static class UnaMuestra extends ResultCallback.Adapter<Statistics> {
+        private volatile Statistics stats;
+
+        @Override
+        public void onNext(Statistics s) {
+            stats = s;
+        }
+    }
+}
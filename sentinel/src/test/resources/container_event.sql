@@ -0,0 +1,17 @@
+-- Tabla container_event tal como la genera Hibernate a partir de ContainerEvent, para los tests y benchmarks
+-- que usan un H2 sin JPA. SentinelApplicationTests verifica que siga coincidiendo con la entidad.
+CREATE TABLE IF NOT EXISTS container_event (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    host VARCHAR(255),
+    container_name VARCHAR(255),
+    container_id VARCHAR(255),
+    event_type VARCHAR(255),
+    timestamp TIMESTAMP(6),
+    details VARCHAR(255),
+    retry_count INTEGER,
+    log_tail VARCHAR(8192)
+);
+CREATE INDEX IF NOT EXISTS idx_event_timestamp ON container_event (timestamp);
+CREATE INDEX IF NOT EXISTS idx_event_type_timestamp ON container_event (event_type, timestamp);
+CREATE INDEX IF NOT EXISTS idx_event_container_timestamp ON container_event (container_name, timestamp);
+CREATE INDEX IF NOT EXISTS idx_event_host_timestamp ON container_event (host, timestamp);